@@ -0,0 +1,110 @@
+package com.alexandre.books_manager.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Compares two JMH JSON result files, written with {@code -rf json}, benchmark by benchmark:
+ *
+ * <pre>java -cp target/benchmarks.jar com.alexandre.books_manager.benchmarks.BaselineComparison \
+ *     baseline/results.json target/results.json [threshold %]</pre>
+ *
+ * <p>A benchmark regresses when its throughput drops, or its allocation per operation grows, by more than the
+ * threshold (10% by default). The exit status is 1 when one did, so the comparison can fail a build.</p>
+ */
+public final class BaselineComparison {
+    private static final double DEFAULT_THRESHOLD = 10.0;
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    private BaselineComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparison <baseline.json> <results.json> [threshold %]");
+            System.exit(2);
+        }
+
+        Map<String, Result> baseline = read(new File(args[0]));
+        Map<String, Result> current = read(new File(args[1]));
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+        boolean regressed = false;
+
+        System.out.printf("%-70s %16s %16s %8s %12s %12s %8s%n", "Benchmark", "Baseline", "Current", "Change",
+                "Base B/op", "Curr B/op", "Change");
+
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result before = baseline.get(entry.getKey());
+            Result after = entry.getValue();
+
+            if (before == null) {
+                System.out.printf("%-70s %16s %16.1f%n", entry.getKey(), "-", after.score());
+                continue;
+            }
+
+            double scoreChange = change(before.score(), after.score());
+            double allocationChange = change(before.bytesPerOperation(), after.bytesPerOperation());
+            // Throughput must not drop, allocation must not grow
+            boolean slower = scoreChange < -threshold;
+            boolean allocatesMore = allocationChange > threshold;
+            regressed |= slower || allocatesMore;
+
+            System.out.printf("%-70s %16.1f %16.1f %+7.1f%% %12.1f %12.1f %+7.1f%%%s%n", entry.getKey(),
+                    before.score(), after.score(), scoreChange, before.bytesPerOperation(), after.bytesPerOperation(),
+                    allocationChange, slower || allocatesMore ? "  REGRESSION" : "");
+        }
+
+        if (regressed) {
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Result> read(File file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            double bytesPerOperation = Double.NaN;
+            Iterator<Map.Entry<String, JsonNode>> metrics = run.path("secondaryMetrics").fields();
+
+            while (metrics.hasNext()) {
+                Map.Entry<String, JsonNode> metric = metrics.next();
+
+                // JMH prefixes the profiler metrics with "·"
+                if (metric.getKey().replace("·", "").equals(ALLOCATION_METRIC)) {
+                    bytesPerOperation = metric.getValue().path("score").asDouble();
+                }
+            }
+
+            results.put(name(run), new Result(run.path("primaryMetric").path("score").asDouble(), bytesPerOperation));
+        }
+
+        return results;
+    }
+
+    private static String name(JsonNode run) {
+        String benchmark = run.path("benchmark").asText().replace(BaselineComparison.class.getPackageName() + ".", "");
+        StringJoiner params = new StringJoiner(", ", "(", ")").setEmptyValue("");
+        run.path("params").fields().forEachRemaining(param -> params.add(param.getKey() + "=" + param.getValue().asText()));
+        return benchmark + params;
+    }
+
+    /**
+     * @return the change from {@code before} to {@code after} in percent, 0 when there is nothing to compare
+     */
+    private static double change(double before, double after) {
+        if (Double.isNaN(before) || Double.isNaN(after) || before == 0) {
+            return 0;
+        }
+
+        return (after - before) / before * 100;
+    }
+
+    private record Result(double score, double bytesPerOperation) {}
+}
@@ -0,0 +1,71 @@
+package com.alexandre.books_manager.benchmarks;
+
+import com.alexandre.books_manager.converter.BookConverter;
+import com.alexandre.books_manager.converter.BookEditionConverter;
+import com.alexandre.books_manager.converter.DefectEditionConverter;
+import com.alexandre.books_manager.dto.BookDTO;
+import com.alexandre.books_manager.dto.BookEditionDTO;
+import com.alexandre.books_manager.dto.DefectEditionDTO;
+import com.alexandre.books_manager.model.Book;
+import com.alexandre.books_manager.model.BookEdition;
+import com.alexandre.books_manager.model.DefectEdition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts a single entity to its DTO and back, as done for every resource returned or received.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConverterBenchmark {
+    private final BookEditionConverter bookEditionConverter = new BookEditionConverter();
+    private final BookConverter bookConverter = new BookConverter(bookEditionConverter);
+    private final DefectEditionConverter defectEditionConverter = new DefectEditionConverter(bookEditionConverter);
+
+    private Book book;
+    private BookEdition edition;
+    private DefectEdition defect;
+    private BookDTO bookDTO;
+
+    @Setup
+    public void setUp() {
+        book = Fixtures.book(42);
+        edition = Fixtures.edition(42);
+        defect = Fixtures.defect(42);
+        bookDTO = bookConverter.toDto(book);
+    }
+
+    @Benchmark
+    public BookDTO bookToDto() {
+        return bookConverter.toDto(book);
+    }
+
+    @Benchmark
+    public BookEditionDTO bookEditionToDto() {
+        return bookEditionConverter.toDto(edition);
+    }
+
+    @Benchmark
+    public DefectEditionDTO defectEditionToDto() {
+        return defectEditionConverter.toDto(defect);
+    }
+
+    @Benchmark
+    public Book bookToEntity() {
+        return bookConverter.toEntity(bookDTO);
+    }
+}
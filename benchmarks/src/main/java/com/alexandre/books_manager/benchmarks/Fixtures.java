@@ -0,0 +1,66 @@
+package com.alexandre.books_manager.benchmarks;
+
+import com.alexandre.books_manager.model.Book;
+import com.alexandre.books_manager.model.BookEdition;
+import com.alexandre.books_manager.model.DefectEdition;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Entities shaped like the catalog: ISBNs, titles and batch numbers of realistic lengths.
+ */
+final class Fixtures {
+    static final int BATCHES_PER_DEFECT = 100;
+
+    private Fixtures() {
+    }
+
+    static BookEdition edition(int number) {
+        BookEdition edition = new BookEdition();
+        edition.setIsbn(String.format("978-3-16-%06d-%d", number, number % 10));
+        edition.setTitle("The Adventures of Benchmark Volume " + number);
+        edition.setAuthorName("Author Number " + number);
+        edition.setNumber(1 + number % 5);
+        edition.setVersion(0L);
+        return edition;
+    }
+
+    static Book book(int number) {
+        Book book = new Book();
+        book.setId((long) number);
+        book.setVersion(0L);
+        book.setPublisher("Schamberger-Huels");
+        book.setPublishedYear(2002);
+        book.setBatchNumber(String.format("34-%03d-%04d", number % 1000, number % 10_000));
+        book.setEdition(edition(number));
+        return book;
+    }
+
+    static List<Book> books(int count) {
+        List<Book> books = new ArrayList<>(count);
+
+        for (int number = 0; number < count; number++) {
+            books.add(book(number));
+        }
+
+        return books;
+    }
+
+    static DefectEdition defect(int number) {
+        Set<String> affectedBatches = new LinkedHashSet<>();
+
+        for (int batch = 0; batch < BATCHES_PER_DEFECT; batch++) {
+            affectedBatches.add(String.format("34-%03d-%04d", number % 1000, batch));
+        }
+
+        DefectEdition defect = new DefectEdition();
+        defect.setId((long) number);
+        defect.setDefectCode("67038-" + number);
+        defect.setEdition(edition(number));
+        defect.setAffectedBatches(affectedBatches);
+        return defect;
+    }
+}
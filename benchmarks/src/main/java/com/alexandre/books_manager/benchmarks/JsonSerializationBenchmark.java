@@ -0,0 +1,62 @@
+package com.alexandre.books_manager.benchmarks;
+
+import com.alexandre.books_manager.converter.BookConverter;
+import com.alexandre.books_manager.converter.BookEditionConverter;
+import com.alexandre.books_manager.converter.DefectEditionConverter;
+import com.alexandre.books_manager.dto.BookDTO;
+import com.alexandre.books_manager.dto.DefectEditionDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes DTOs to JSON bytes with an {@code ObjectMapper} configured like the application's.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+    private ObjectWriter bookWriter;
+    private ObjectWriter defectWriter;
+    private BookDTO book;
+    private DefectEditionDTO defect;
+
+    @Setup
+    public void setUp() {
+        BookEditionConverter bookEditionConverter = new BookEditionConverter();
+        Jackson2ObjectMapperBuilder objectMapper = Jackson2ObjectMapperBuilder.json();
+
+        bookWriter = objectMapper.build().writerFor(BookDTO.class);
+        defectWriter = objectMapper.build().writerFor(DefectEditionDTO.class);
+        book = new BookConverter(bookEditionConverter).toDto(Fixtures.book(42));
+        defect = new DefectEditionConverter(bookEditionConverter).toDto(Fixtures.defect(42));
+    }
+
+    @Benchmark
+    public byte[] bookToJson() throws JsonProcessingException {
+        return bookWriter.writeValueAsBytes(book);
+    }
+
+    /**
+     * A defect with {@value Fixtures#BATCHES_PER_DEFECT} affected batches.
+     */
+    @Benchmark
+    public byte[] defectEditionToJson() throws JsonProcessingException {
+        return defectWriter.writeValueAsBytes(defect);
+    }
+}
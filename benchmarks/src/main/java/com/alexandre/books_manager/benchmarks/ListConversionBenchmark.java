@@ -0,0 +1,48 @@
+package com.alexandre.books_manager.benchmarks;
+
+import com.alexandre.books_manager.converter.BookConverter;
+import com.alexandre.books_manager.converter.BookEditionConverter;
+import com.alexandre.books_manager.dto.BookDTO;
+import com.alexandre.books_manager.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts whole lists of books with {@code GenericConverter.toDtoList}, from a page to the whole catalog.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ListConversionBenchmark {
+    private final BookConverter bookConverter = new BookConverter(new BookEditionConverter());
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private List<Book> books;
+
+    @Setup
+    public void setUp() {
+        books = Fixtures.books(size);
+    }
+
+    @Benchmark
+    public List<BookDTO> booksToDtoList() {
+        return bookConverter.toDtoList(books);
+    }
+}
@@ -0,0 +1,124 @@
+package com.alexandre.books_manager.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.random.RandomGenerator;
+
+/**
+ * The synthetic catalog a load test runs against. Every key and text is derived from an index, so two runs
+ * with the same sizes seed and query the same data, and an existing dataset is only completed, never
+ * duplicated.
+ *
+ * <p>Edition {@code e} has the books of batches {@code 0..batchesPerEdition - 1}. Defect {@code d} belongs to
+ * the edition {@code d * editions / defects} and affects a third of its batches, at most
+ * {@value #MAX_AFFECTED_BATCHES}.</p>
+ */
+final class Dataset {
+    static final int MAX_AFFECTED_BATCHES = 20;
+
+    private static final String[] WORDS = {
+            "silent", "river", "crimson", "garden", "winter", "shadow", "golden", "empire", "hidden", "forest",
+            "broken", "crown", "distant", "harbor", "iron", "letters", "midnight", "ocean", "paper", "quiet",
+            "storm", "stone", "summer", "tide", "valley", "wild", "wind", "ashes", "autumn", "bridge"
+    };
+    private static final String[] FIRST_NAMES = {
+            "Ada", "Bruno", "Chloé", "Dmitri", "Elena", "Farid", "Greta", "Hiro", "Inès", "Jonas"
+    };
+    private static final String[] LAST_NAMES = {
+            "Almeida", "Bergström", "Castillo", "Dubois", "Eriksen", "Fontaine", "García", "Haddad", "Ivanova",
+            "Jensen", "Kowalski", "Lemaire", "Moreau", "Nakamura", "Okafor", "Petrov"
+    };
+
+    private final int editions;
+    private final int batchesPerEdition;
+    private final int defects;
+
+    Dataset(int editions, int batchesPerEdition, int defects) {
+        this.editions = editions;
+        this.batchesPerEdition = batchesPerEdition;
+        this.defects = defects;
+    }
+
+    int editions() {
+        return editions;
+    }
+
+    int batchesPerEdition() {
+        return batchesPerEdition;
+    }
+
+    int defects() {
+        return defects;
+    }
+
+    static String isbn(int edition) {
+        return String.format("978-9-%07d-%d", edition, edition % 10);
+    }
+
+    static String batchNumber(int batch) {
+        return String.format("LT-%05d", batch);
+    }
+
+    static String title(int edition) {
+        Random random = new Random(edition);
+        return capitalize(WORDS[random.nextInt(WORDS.length)]) + " " + WORDS[random.nextInt(WORDS.length)] + " "
+                + WORDS[random.nextInt(WORDS.length)];
+    }
+
+    static String authorName(int edition) {
+        Random random = new Random(-edition - 1);
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    }
+
+    /**
+     * @return a word of the titles, for searches and suggestions
+     */
+    static String word(RandomGenerator random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    static Map<String, Object> edition(int edition) {
+        return Map.of("isbn", isbn(edition), "title", title(edition), "authorName", authorName(edition),
+                "number", 1 + edition % 3);
+    }
+
+    static Map<String, Object> book(int edition, int batch) {
+        return book(isbn(edition), batchNumber(batch), edition);
+    }
+
+    static Map<String, Object> book(String isbn, String batchNumber, int edition) {
+        return Map.of("publisher", "Load Test Press", "publishedYear", 1990 + edition % 35,
+                "batchNumber", batchNumber, "edition", Map.of("isbn", isbn, "title", title(edition),
+                        "authorName", authorName(edition), "number", 1 + edition % 3));
+    }
+
+    int editionOfDefect(int defect) {
+        return (int) ((long) defect * editions / defects);
+    }
+
+    static String defectCode(int defect) {
+        return String.format("LT-DEFECT-%06d", defect);
+    }
+
+    Map<String, Object> defect(int defect) {
+        return Map.of("defectCode", defectCode(defect), "editionIsbn", isbn(editionOfDefect(defect)),
+                "affectedBatches", affectedBatches());
+    }
+
+    private List<String> affectedBatches() {
+        List<String> batchNumbers = new ArrayList<>();
+
+        for (int batch = 0; batch < batchesPerEdition && batchNumbers.size() < MAX_AFFECTED_BATCHES; batch += 3) {
+            batchNumbers.add(batchNumber(batch));
+        }
+
+        return batchNumbers;
+    }
+
+    private static String capitalize(String word) {
+        return word.substring(0, 1).toUpperCase(Locale.ROOT) + word.substring(1);
+    }
+}
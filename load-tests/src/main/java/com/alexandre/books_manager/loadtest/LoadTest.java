@@ -0,0 +1,298 @@
+package com.alexandre.books_manager.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.random.RandomGenerator;
+
+/**
+ * Seeds a synthetic dataset into a running application, then loads it at increasing request rates and
+ * writes the latencies of every endpoint to a JSON report:
+ *
+ * <pre>java -jar load-tests/target/load-tests.jar --editions=1000 --batches-per-edition=10 --defects=100 \
+ *     --rates=50,100,200,400 --commit=$(git rev-parse --short HEAD)</pre>
+ *
+ * <p>The load follows an open model: requests are scheduled at a fixed rate whatever the response times, as
+ * independent clients would send them, and each latency runs from the scheduled time. A closed loop of
+ * clients waiting for their responses would slow down with the server and hide its queueing delay. The rates
+ * run from the lowest up, and stop after the first one the application does not sustain.</p>
+ */
+public final class LoadTest {
+    private static final double MIN_ACHIEVED_RATE = 0.95;
+    private static final double MAX_ERROR_RATE = 0.01;
+    private static final int SEED_CONCURRENCY = 16;
+    private static final int BOOKS_PER_SEED_REQUEST = 1000;
+    private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toMicros(5);
+
+    private final LoadTestOptions options;
+    private final Dataset dataset;
+    private final Workload workload;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private LoadTest(LoadTestOptions options) {
+        this.options = options;
+        this.dataset = new Dataset(options.editions(), options.batchesPerEdition(), options.defects());
+        this.workload = new Workload(options.baseUrl(), dataset, options.mix());
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        LoadTestReport report = new LoadTest(options).run();
+
+        Files.createDirectories(options.report().toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(options.report().toFile(), report);
+        System.out.printf("Report written to %s, max throughput %.0f requests/s%n", options.report(),
+                report.maxThroughput());
+    }
+
+    private LoadTestReport run() throws Exception {
+        String startedAt = Instant.now().toString();
+        seed();
+
+        List<LoadTestReport.Step> steps = new ArrayList<>();
+        double maxThroughput = 0;
+
+        try {
+            for (int rate : options.rates()) {
+                LoadTestReport.Step step = runStep(rate);
+                steps.add(step);
+                System.out.printf("%6d requests/s scheduled: %8.1f succeeded/s, p50 %8.2f ms, p99 %8.2f ms, "
+                                + "p99.9 %8.2f ms, %d errors, %d failures%s%n", rate, step.achievedRate(),
+                        step.overall().p50(), step.overall().p99(), step.overall().p999(), step.overall().errors(),
+                        step.overall().failures(), step.sustained() ? "" : ", not sustained");
+
+                if (!step.sustained()) {
+                    break;
+                }
+
+                maxThroughput = Math.max(maxThroughput, step.achievedRate());
+            }
+        } finally {
+            sendAll(workload.cleanUp(), Set.of(204, 404));
+        }
+
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        options.mix().forEach((operation, weight) -> mix.put(operation.endpoint(), weight));
+
+        return new LoadTestReport(options.commit(), startedAt, options.baseUrl().toString(),
+                new LoadTestReport.DatasetSize(dataset.editions(), dataset.batchesPerEdition(), dataset.defects()),
+                mix, steps, maxThroughput);
+    }
+
+    /**
+     * Creates the editions, books and defects of the dataset that are not there yet from an earlier run:
+     * editions are looked up first, books and defects already there conflict and are kept.
+     */
+    private void seed() throws Exception {
+        long start = System.nanoTime();
+        List<HttpRequest> editionLookups = new ArrayList<>();
+        List<HttpRequest> editions = new ArrayList<>();
+        List<HttpRequest> books = new ArrayList<>();
+        List<HttpRequest> defects = new ArrayList<>();
+        List<Map<String, Object>> bookBatch = new ArrayList<>();
+
+        for (int edition = 0; edition < dataset.editions(); edition++) {
+            editionLookups.add(workload.get("/api/v1/book-editions/" + Dataset.isbn(edition)));
+
+            for (int batch = 0; batch < dataset.batchesPerEdition(); batch++) {
+                bookBatch.add(Dataset.book(edition, batch));
+
+                if (bookBatch.size() == BOOKS_PER_SEED_REQUEST) {
+                    books.add(workload.post("/api/v1/books/batch", bookBatch));
+                    bookBatch = new ArrayList<>();
+                }
+            }
+        }
+
+        if (!bookBatch.isEmpty()) {
+            books.add(workload.post("/api/v1/books/batch", bookBatch));
+        }
+
+        for (int defect = 0; defect < dataset.defects(); defect++) {
+            defects.add(workload.post("/api/v1/book-defects", dataset.defect(defect)));
+        }
+
+        List<Integer> editionStatuses = sendAll(editionLookups, Set.of(200, 404));
+
+        for (int edition = 0; edition < dataset.editions(); edition++) {
+            if (editionStatuses.get(edition) == 404) {
+                editions.add(workload.post("/api/v1/book-editions", Dataset.edition(edition)));
+            }
+        }
+
+        sendAll(editions, Set.of(201));
+        sendAll(books, Set.of(200));
+        sendAll(defects, Set.of(200, 409));
+        System.out.printf("Seeded %d editions, %d books and %d defects in %d s%n", dataset.editions(),
+                dataset.editions() * dataset.batchesPerEdition(), dataset.defects(),
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+    }
+
+    /**
+     * Sends requests a few at a time and fails on the first unexpected status.
+     *
+     * @return the status of each request
+     */
+    private List<Integer> sendAll(List<HttpRequest> requests, Set<Integer> expectedStatuses) throws Exception {
+        Semaphore concurrency = new Semaphore(SEED_CONCURRENCY);
+        List<Future<Integer>> responses = new ArrayList<>();
+        List<Integer> statuses = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (HttpRequest request : requests) {
+                concurrency.acquire();
+                responses.add(executor.submit(() -> {
+                    try {
+                        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } finally {
+                        concurrency.release();
+                    }
+                }));
+            }
+
+            for (int request = 0; request < requests.size(); request++) {
+                int status = responses.get(request).get();
+
+                if (!expectedStatuses.contains(status)) {
+                    throw new IllegalStateException(requests.get(request).method() + " " + requests.get(request).uri()
+                            + " answered " + status);
+                }
+
+                statuses.add(status);
+            }
+        }
+
+        return statuses;
+    }
+
+    /**
+     * Schedules requests at {@code rate} per second for the warmup and the duration, and records the latencies
+     * of those scheduled after the warmup.
+     */
+    private LoadTestReport.Step runStep(int rate) {
+        Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+        Map<Operation, LongAdder> failures = new EnumMap<>(Operation.class);
+
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(HIGHEST_LATENCY, 3));
+            errors.put(operation, new LongAdder());
+            failures.put(operation, new LongAdder());
+        }
+
+        RandomGenerator random = new SplittableRandom(rate);
+        AtomicInteger inFlight = new AtomicInteger();
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long recordFrom = start + options.warmup().toNanos();
+        long end = recordFrom + options.duration().toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long scheduledAt = start; scheduledAt < end; scheduledAt += interval) {
+                for (long wait = scheduledAt - System.nanoTime(); wait > 0; wait = scheduledAt - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+
+                Workload.Call call = workload.prepare(workload.pick(random), random);
+                boolean recorded = scheduledAt >= recordFrom;
+
+                if (inFlight.get() >= options.maxInFlight()) {
+                    if (recorded) {
+                        failures.get(call.operation()).increment();
+                    }
+
+                    continue;
+                }
+
+                long scheduled = scheduledAt;
+                inFlight.incrementAndGet();
+                executor.execute(() -> {
+                    try {
+                        int status = client.send(call.request(), HttpResponse.BodyHandlers.discarding()).statusCode();
+                        long latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled);
+
+                        if (status < 400) {
+                            call.onSuccess().run();
+                        }
+
+                        if (recorded) {
+                            latencies.get(call.operation()).recordValue(Math.min(latency, HIGHEST_LATENCY));
+
+                            if (status >= 400) {
+                                errors.get(call.operation()).increment();
+                            }
+                        }
+                    } catch (IOException e) {
+                        if (recorded) {
+                            failures.get(call.operation()).increment();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            }
+        }
+
+        return toStep(rate, latencies, errors, failures);
+    }
+
+    private LoadTestReport.Step toStep(int rate, Map<Operation, Histogram> latencies, Map<Operation, LongAdder> errors,
+                                       Map<Operation, LongAdder> failures) {
+        Histogram overall = new Histogram(HIGHEST_LATENCY, 3);
+        long overallErrors = 0;
+        long overallFailures = 0;
+        Map<String, LoadTestReport.Latencies> endpoints = new LinkedHashMap<>();
+
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            long operationErrors = errors.get(operation).sum();
+            long operationFailures = failures.get(operation).sum();
+
+            if (histogram.getTotalCount() + operationFailures == 0) {
+                continue;
+            }
+
+            overall.add(histogram);
+            overallErrors += operationErrors;
+            overallFailures += operationFailures;
+            endpoints.put(operation.endpoint(), LoadTestReport.Latencies.of(histogram, operationErrors, operationFailures));
+        }
+
+        LoadTestReport.Latencies overallLatencies = LoadTestReport.Latencies.of(overall, overallErrors, overallFailures);
+        double achievedRate = (overall.getTotalCount() - overallErrors) / (options.duration().toNanos() / 1e9);
+        boolean sustained = achievedRate >= MIN_ACHIEVED_RATE * rate
+                && overallLatencies.errorRate() <= MAX_ERROR_RATE
+                && overallLatencies.p99() <= options.p99Target().toMillis();
+
+        return new LoadTestReport.Step(rate, achievedRate, sustained, overallLatencies, endpoints);
+    }
+}
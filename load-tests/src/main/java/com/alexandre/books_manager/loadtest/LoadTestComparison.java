@@ -0,0 +1,99 @@
+package com.alexandre.books_manager.loadtest;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Compares two load test reports, step by step and endpoint by endpoint:
+ *
+ * <pre>java -cp load-tests/target/load-tests.jar com.alexandre.books_manager.loadtest.LoadTestComparison \
+ *     baseline.json report.json [threshold %]</pre>
+ *
+ * <p>An endpoint regresses when its p99 grows by more than the threshold (20% by default) and by more than
+ * {@value #MIN_P99_INCREASE_MS} ms, so that sub-millisecond jitter is not reported, or when it starts failing.
+ * Endpoints with fewer than {@value #MIN_COUNT} requests in either run are shown but never regress on latency.
+ * The maximum throughput regresses when it drops by more than the threshold. The exit status is 1 when
+ * anything regressed, so the comparison can fail a release build.</p>
+ */
+public final class LoadTestComparison {
+    private static final double DEFAULT_THRESHOLD = 20.0;
+    private static final double MIN_P99_INCREASE_MS = 1.0;
+    // Below that, a p99 is one of the slowest few requests and changes from run to run
+    private static final long MIN_COUNT = 100;
+
+    private LoadTestComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: LoadTestComparison <baseline.json> <report.json> [threshold %]");
+            System.exit(2);
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        LoadTestReport baseline = objectMapper.readValue(new File(args[0]), LoadTestReport.class);
+        LoadTestReport current = objectMapper.readValue(new File(args[1]), LoadTestReport.class);
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+        boolean regressed = false;
+
+        if (!baseline.dataset().equals(current.dataset()) || !baseline.mix().equals(current.mix())) {
+            System.out.println("Warning: the reports were run with different datasets or mixes");
+        }
+
+        System.out.printf("Comparing %s (baseline) with %s%n", baseline.commit(), current.commit());
+
+        for (LoadTestReport.Step step : current.steps()) {
+            LoadTestReport.Step baselineStep = baseline.steps().stream()
+                    .filter(candidate -> candidate.targetRate() == step.targetRate())
+                    .findFirst()
+                    .orElse(null);
+
+            if (baselineStep == null) {
+                continue;
+            }
+
+            System.out.printf("%n%d requests/s%n%-60s %22s %22s %22s %8s%n", step.targetRate(), "Endpoint",
+                    "p50 ms", "p99 ms", "p99.9 ms", "Change");
+            regressed |= compare("overall", baselineStep.overall(), step.overall(), threshold);
+
+            for (Map.Entry<String, LoadTestReport.Latencies> endpoint : step.endpoints().entrySet()) {
+                LoadTestReport.Latencies before = baselineStep.endpoints().get(endpoint.getKey());
+
+                if (before != null) {
+                    regressed |= compare(endpoint.getKey(), before, endpoint.getValue(), threshold);
+                }
+            }
+        }
+
+        double throughputChange = change(baseline.maxThroughput(), current.maxThroughput());
+        boolean throughputRegressed = throughputChange < -threshold;
+        regressed |= throughputRegressed;
+        System.out.printf("%nMax throughput: %.1f -> %.1f requests/s (%+.1f%%)%s%n", baseline.maxThroughput(),
+                current.maxThroughput(), throughputChange, throughputRegressed ? "  REGRESSION" : "");
+
+        if (regressed) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean compare(String name, LoadTestReport.Latencies before, LoadTestReport.Latencies after,
+                                   double threshold) {
+        double p99Change = change(before.p99(), after.p99());
+        boolean slower = p99Change > threshold && after.p99() - before.p99() > MIN_P99_INCREASE_MS
+                && Math.min(before.count(), after.count()) >= MIN_COUNT;
+        boolean failing = before.errorRate() == 0 && after.errorRate() > 0;
+
+        System.out.printf("%-60s %10.2f -> %8.2f %10.2f -> %8.2f %10.2f -> %8.2f %+7.1f%%%s%n", name,
+                before.p50(), after.p50(), before.p99(), after.p99(), before.p999(), after.p999(), p99Change,
+                slower ? "  REGRESSION" : failing ? "  ERRORS" : "");
+        return slower || failing;
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) / before * 100;
+    }
+}
@@ -0,0 +1,103 @@
+package com.alexandre.books_manager.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The options of a load test, given on the command line as {@code --name=value}.
+ *
+ * @param baseUrl           where the application listens
+ * @param editions          the number of editions to seed
+ * @param batchesPerEdition the number of books to seed for each edition, one per batch
+ * @param defects           the number of defects to seed, spread over the editions
+ * @param rates             the request rates to run, in requests per second, one step each and in order
+ * @param warmup            how long each step runs before its latencies are recorded
+ * @param duration          how long each step records latencies
+ * @param p99Target         the p99 latency above which a step is not sustained
+ * @param maxInFlight       the number of requests waiting for a response above which new ones are dropped
+ * @param mix               the weight of each operation in the workload
+ * @param report            where to write the report
+ * @param commit            the commit the application was built from, written in the report
+ */
+record LoadTestOptions(
+        URI baseUrl,
+        int editions,
+        int batchesPerEdition,
+        int defects,
+        List<Integer> rates,
+        Duration warmup,
+        Duration duration,
+        Duration p99Target,
+        int maxInFlight,
+        Map<Operation, Integer> mix,
+        Path report,
+        String commit
+) {
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        LoadTestOptions options = new LoadTestOptions(
+                URI.create(values.getOrDefault("base-url", "http://localhost:8080")),
+                Integer.parseInt(values.getOrDefault("editions", "1000")),
+                Integer.parseInt(values.getOrDefault("batches-per-edition", "10")),
+                Integer.parseInt(values.getOrDefault("defects", "100")),
+                Arrays.stream(values.getOrDefault("rates", "50,100,200,400").split(","))
+                        .map(String::strip)
+                        .map(Integer::valueOf)
+                        .toList(),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmup-seconds", "10"))),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration-seconds", "30"))),
+                Duration.ofMillis(Long.parseLong(values.getOrDefault("p99-target-ms", "500"))),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "10000")),
+                parseMix(values.get("mix")),
+                Path.of(values.getOrDefault("report", "target/load-test-report.json")),
+                values.getOrDefault("commit", "unknown"));
+
+        values.keySet().removeAll(List.of("base-url", "editions", "batches-per-edition", "defects", "rates",
+                "warmup-seconds", "duration-seconds", "p99-target-ms", "max-in-flight", "mix", "report", "commit"));
+
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options " + values.keySet());
+        }
+
+        if (options.editions() < 1 || options.batchesPerEdition() < 1 || options.defects() < 0) {
+            throw new IllegalArgumentException("At least one edition and one batch per edition are needed");
+        }
+
+        return options;
+    }
+
+    /**
+     * Parses weights such as {@code book.get=50,recall.check=20} over the {@link Operation#weight() default ones}.
+     */
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+
+        for (Operation operation : Operation.values()) {
+            weights.put(operation, operation.weight());
+        }
+
+        if (mix != null) {
+            for (String weight : mix.split(",")) {
+                String[] nameAndWeight = weight.strip().split("=");
+                weights.put(Operation.byName(nameAndWeight[0]), Integer.valueOf(nameAndWeight[1]));
+            }
+        }
+
+        return weights;
+    }
+}
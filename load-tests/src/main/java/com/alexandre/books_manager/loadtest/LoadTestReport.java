@@ -0,0 +1,87 @@
+package com.alexandre.books_manager.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The JSON report of a load test. Latencies are in milliseconds and measured from the time each request was
+ * scheduled, not sent, so a server falling behind shows in the latencies instead of slowing the load down.
+ *
+ * @param commit        the commit the application was built from
+ * @param startedAt     when the load test started, as an ISO-8601 instant
+ * @param baseUrl       the application load tested
+ * @param dataset       the size of the seeded dataset
+ * @param mix           the weight of each operation, by endpoint
+ * @param steps         one result per request rate, in the order they ran
+ * @param maxThroughput the highest rate of successful requests per second among the sustained steps, 0 when
+ *                      none was
+ */
+record LoadTestReport(
+        String commit,
+        String startedAt,
+        String baseUrl,
+        DatasetSize dataset,
+        Map<String, Integer> mix,
+        List<Step> steps,
+        double maxThroughput
+) {
+    record DatasetSize(int editions, int batchesPerEdition, int defects) {}
+
+    /**
+     * @param targetRate   the requests per second scheduled
+     * @param achievedRate the successful requests per second
+     * @param sustained    whether the application kept up: at least 95% of the target rate succeeded, with
+     *                     at most 1% of errors and the p99 within target
+     * @param overall      the latencies of all the endpoints together
+     * @param endpoints    the latencies by endpoint
+     */
+    record Step(
+            int targetRate,
+            double achievedRate,
+            boolean sustained,
+            Latencies overall,
+            Map<String, Latencies> endpoints
+    ) {}
+
+    /**
+     * @param count     the number of requests answered, the latencies of which are recorded
+     * @param errors    the requests answered with an error status
+     * @param failures  the requests not answered: failed, timed out, or dropped because too many were in flight
+     * @param histogram the HdrHistogram of the latencies in microseconds, compressed and in Base64
+     */
+    record Latencies(
+            long count,
+            long errors,
+            long failures,
+            double mean,
+            double p50,
+            double p90,
+            double p99,
+            double p999,
+            double max,
+            String histogram
+    ) {
+        static Latencies of(Histogram histogram, long errors, long failures) {
+            ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+            int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+
+            return new Latencies(histogram.getTotalCount(), errors, failures, histogram.getMean() / 1_000,
+                    percentile(histogram, 50), percentile(histogram, 90), percentile(histogram, 99),
+                    percentile(histogram, 99.9), histogram.getMaxValue() / 1_000.0,
+                    Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length)));
+        }
+
+        double errorRate() {
+            return count + failures == 0 ? 0 : (double) (errors + failures) / (count + failures);
+        }
+
+        private static double percentile(Histogram histogram, double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1_000.0;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.alexandre.books_manager.loadtest;
+
+/**
+ * An endpoint of the application, with its default weight in the workload. The weights add up to 100, so
+ * each is the percentage of requests sent to the endpoint; the writes create and delete as much as they add,
+ * so the dataset keeps its size over a run.
+ */
+enum Operation {
+    BOOK_GET("book.get", "GET /api/v1/books/{batchNumber}/{isbn}", 23),
+    BOOK_PAGE("book.page", "GET /api/v1/books", 4),
+    BOOK_STREAM("book.stream", "GET /api/v1/books (NDJSON)", 0),
+    BOOK_CREATE("book.create", "POST /api/v1/books", 2),
+    BOOK_BATCH_CREATE("book.batch-create", "POST /api/v1/books/batch", 1),
+    BOOK_UPDATE("book.update", "PATCH /api/v1/books", 3),
+    BOOK_DELETE("book.delete", "DELETE /api/v1/books/{batchNumber}/{isbn}", 4),
+    EDITION_GET("edition.get", "GET /api/v1/book-editions/{isbn}", 17),
+    EDITION_PAGE("edition.page", "GET /api/v1/book-editions", 4),
+    EDITION_SEARCH("edition.search", "GET /api/v1/book-editions/search", 8),
+    EDITION_SUGGESTIONS("edition.suggestions", "GET /api/v1/book-editions/suggestions", 10),
+    EDITION_CREATE("edition.create", "POST /api/v1/book-editions", 1),
+    EDITION_UPDATE("edition.update", "PATCH /api/v1/book-editions", 2),
+    EDITION_DELETE("edition.delete", "DELETE /api/v1/book-editions/{isbn}", 1),
+    DEFECT_LIST("defect.list", "GET /api/v1/book-defects", 1),
+    DEFECT_CREATE("defect.create", "POST /api/v1/book-defects", 1),
+    RECALL_CHECK("recall.check", "GET /api/v1/book-defects/recalls/{batchNumber}/{isbn}", 15),
+    RECALL_BATCH_CHECK("recall.batch-check", "POST /api/v1/book-defects/recalls", 3);
+
+    private final String name;
+    private final String endpoint;
+    private final int weight;
+
+    Operation(String name, String endpoint, int weight) {
+        this.name = name;
+        this.endpoint = endpoint;
+        this.weight = weight;
+    }
+
+    static Operation byName(String name) {
+        for (Operation operation : values()) {
+            if (operation.name.equals(name)) {
+                return operation;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown operation " + name);
+    }
+
+    /**
+     * @return the name used in the {@code --mix} option
+     */
+    String operationName() {
+        return name;
+    }
+
+    /**
+     * @return the method and path, the key of the operation in the report
+     */
+    String endpoint() {
+        return endpoint;
+    }
+
+    int weight() {
+        return weight;
+    }
+}
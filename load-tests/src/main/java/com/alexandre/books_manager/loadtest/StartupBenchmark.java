@@ -0,0 +1,157 @@
+package com.alexandre.books_manager.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the application several times in each mode and measures the time from launching its process to the
+ * first successful response, and the resident memory of the process at that point:
+ *
+ * <pre>java -cp load-tests/target/load-tests.jar com.alexandre.books_manager.loadtest.StartupBenchmark \
+ *     --modes=jvm,cds,aot,aot-cds,native --runs=5</pre>
+ *
+ * <p>The JVM modes need the jar and archives of the fast-start profile, the native mode the executable of the
+ * native profile; modes whose files are missing are skipped. Every start runs against the same database, with
+ * the application's own configuration unless {@code --app-args} overrides it, and is stopped before the
+ * next one. The output of each start is kept under {@code --logs} to see why one failed.</p>
+ */
+public final class StartupBenchmark {
+    private static final long POLL_INTERVAL_MS = 10;
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(30);
+
+    private final StartupBenchmarkOptions options;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    private StartupBenchmark(StartupBenchmarkOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new StartupBenchmark(StartupBenchmarkOptions.parse(args)).run();
+    }
+
+    private void run() throws Exception {
+        if (answers()) {
+            throw new IllegalStateException(options.url() + " already answers, stop the application running there");
+        }
+
+        Files.createDirectories(options.logs());
+        Map<StartupMode, List<Sample>> samples = new LinkedHashMap<>();
+
+        for (StartupMode mode : options.modes()) {
+            if (!Files.exists(mode.artifact(options))) {
+                System.out.printf("Skipping %s, %s is missing%n", mode.modeName(), mode.artifact(options));
+                continue;
+            }
+
+            List<Sample> modeSamples = new ArrayList<>();
+
+            for (int run = 1; run <= options.runs(); run++) {
+                Sample sample = start(mode, run);
+                modeSamples.add(sample);
+                System.out.printf("%-8s run %d: first request after %6d ms, %6.1f MB resident%n", mode.modeName(), run,
+                        sample.millis(), sample.residentMegabytes());
+            }
+
+            samples.put(mode, modeSamples);
+        }
+
+        System.out.printf("%n%-8s %12s %12s %12s %16s%n", "Mode", "median ms", "min ms", "max ms", "median RSS MB");
+        samples.forEach((mode, modeSamples) -> {
+            List<Long> millis = modeSamples.stream().map(Sample::millis).sorted().toList();
+            List<Double> megabytes = modeSamples.stream()
+                    .map(Sample::residentMegabytes)
+                    .sorted(Comparator.naturalOrder())
+                    .toList();
+            System.out.printf("%-8s %12d %12d %12d %16.1f%n", mode.modeName(), millis.get(millis.size() / 2),
+                    millis.getFirst(), millis.getLast(), megabytes.get(megabytes.size() / 2));
+        });
+    }
+
+    /**
+     * Launches the application and polls the URL until it answers successfully, then stops it.
+     */
+    private Sample start(StartupMode mode, int run) throws Exception {
+        Path log = options.logs().resolve(mode.modeName() + "-" + run + ".log");
+        ProcessBuilder builder = new ProcessBuilder(mode.command(options))
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile());
+        long start = System.nanoTime();
+        long deadline = start + options.timeout().toNanos();
+        Process process = builder.start();
+
+        try {
+            while (!answers()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(mode.modeName() + " exited with status " + process.exitValue()
+                            + ", see " + log);
+                }
+
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException(mode.modeName() + " did not answer within " + options.timeout()
+                            + ", see " + log);
+                }
+
+                Thread.sleep(POLL_INTERVAL_MS);
+            }
+
+            long elapsed = System.nanoTime() - start;
+            return new Sample(TimeUnit.NANOSECONDS.toMillis(elapsed), residentKilobytes(process.pid()));
+        } finally {
+            process.destroy();
+
+            if (!process.waitFor(STOP_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private boolean answers() throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(options.url()).timeout(Duration.ofSeconds(5)).GET().build();
+
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            // Not listening yet
+            return false;
+        }
+    }
+
+    private static long residentKilobytes(long pid) throws IOException, InterruptedException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+
+        if (Files.exists(status)) {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            }
+        }
+
+        // No /proc on macOS
+        Process ps = new ProcessBuilder("ps", "-o", "rss=", "-p", Long.toString(pid)).start();
+        String output = new String(ps.getInputStream().readAllBytes()).strip();
+        ps.waitFor();
+        return Long.parseLong(output);
+    }
+
+    private record Sample(long millis, long residentKilobytes) {
+        double residentMegabytes() {
+            return residentKilobytes / 1024.0;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.alexandre.books_manager.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The options of a startup benchmark, given on the command line as {@code --name=value}.
+ *
+ * @param modes            the modes to start the application in, in order
+ * @param runs             the number of starts of each mode
+ * @param directory        the application extracted by the fast-start profile, with its class data sharing archives
+ * @param nativeExecutable the application compiled by the native profile
+ * @param url              the request that must succeed for the application to be started
+ * @param timeout          how long a start may take before the benchmark fails
+ * @param java             the java command the JVM modes run with, the one the archives were created with
+ * @param jvmArgs          more arguments for the JVM modes, such as heap settings
+ * @param appArgs          more arguments for the application in every mode, such as its data source
+ * @param logs             where to write the output of each start
+ */
+record StartupBenchmarkOptions(
+        List<StartupMode> modes,
+        int runs,
+        Path directory,
+        Path nativeExecutable,
+        URI url,
+        Duration timeout,
+        String java,
+        List<String> jvmArgs,
+        List<String> appArgs,
+        Path logs
+) {
+    static StartupBenchmarkOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        StartupBenchmarkOptions options = new StartupBenchmarkOptions(
+                Arrays.stream(values.getOrDefault("modes", "jvm,cds,aot,aot-cds,native").split(","))
+                        .map(String::strip)
+                        .map(StartupMode::byName)
+                        .toList(),
+                Integer.parseInt(values.getOrDefault("runs", "5")),
+                Path.of(values.getOrDefault("directory", "target/fast-start")),
+                Path.of(values.getOrDefault("native-executable", "target/books-manager")),
+                URI.create(values.getOrDefault("url", "http://localhost:8080/api/v1/book-editions?limit=1")),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("timeout-seconds", "120"))),
+                values.getOrDefault("java", Path.of(System.getProperty("java.home"), "bin", "java").toString()),
+                split(values.get("jvm-args")),
+                split(values.get("app-args")),
+                Path.of(values.getOrDefault("logs", "target/startup-benchmark")));
+
+        values.keySet().removeAll(List.of("modes", "runs", "directory", "native-executable", "url", "timeout-seconds",
+                "java", "jvm-args", "app-args", "logs"));
+
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options " + values.keySet());
+        }
+
+        if (options.runs() < 1) {
+            throw new IllegalArgumentException("At least one run is needed");
+        }
+
+        return options;
+    }
+
+    private static List<String> split(String arguments) {
+        return arguments == null || arguments.isBlank() ? List.of() : List.of(arguments.strip().split("\\s+"));
+    }
+}
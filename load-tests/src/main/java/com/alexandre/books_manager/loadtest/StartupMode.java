@@ -0,0 +1,82 @@
+package com.alexandre.books_manager.loadtest;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A way of starting the application. The JVM modes run the jar extracted by the fast-start profile, with or
+ * without its ahead-of-time generated code and with or without the class data sharing archive created by a
+ * training run of the same mode; the native mode runs the executable compiled by the native profile.
+ */
+enum StartupMode {
+    JVM("jvm", false, null),
+    CDS("cds", false, "application.jsa"),
+    AOT("aot", true, null),
+    AOT_CDS("aot-cds", true, "application-aot.jsa"),
+    NATIVE("native", true, null);
+
+    private static final String APPLICATION_JAR = "books-manager.jar";
+
+    private final String name;
+    private final boolean aot;
+    private final String archive;
+
+    StartupMode(String name, boolean aot, String archive) {
+        this.name = name;
+        this.aot = aot;
+        this.archive = archive;
+    }
+
+    static StartupMode byName(String name) {
+        for (StartupMode mode : values()) {
+            if (mode.name.equals(name)) {
+                return mode;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown mode " + name);
+    }
+
+    String modeName() {
+        return name;
+    }
+
+    /**
+     * @return the file the mode runs, which the fast-start or native profile builds
+     */
+    Path artifact(StartupBenchmarkOptions options) {
+        if (this == NATIVE) {
+            return options.nativeExecutable().toAbsolutePath();
+        }
+
+        // The archive only maps when the class path is the one of the training run, an absolute path
+        Path directory = options.directory().toAbsolutePath();
+        return archive == null ? directory.resolve(APPLICATION_JAR) : directory.resolve(archive);
+    }
+
+    List<String> command(StartupBenchmarkOptions options) {
+        List<String> command = new ArrayList<>();
+
+        if (this == NATIVE) {
+            command.add(artifact(options).toString());
+        } else {
+            command.add(options.java());
+            command.addAll(options.jvmArgs());
+
+            if (archive != null) {
+                command.add("-XX:SharedArchiveFile=" + artifact(options));
+            }
+
+            if (aot) {
+                command.add("-Dspring.aot.enabled=true");
+            }
+
+            command.add("-jar");
+            command.add(options.directory().toAbsolutePath().resolve(APPLICATION_JAR).toString());
+        }
+
+        command.addAll(options.appArgs());
+        return command;
+    }
+}
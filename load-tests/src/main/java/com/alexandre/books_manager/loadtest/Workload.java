@@ -0,0 +1,242 @@
+package com.alexandre.books_manager.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.random.RandomGenerator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Builds the request of each operation against the seeded {@link Dataset}. Reads and updates target random
+ * seeded books and editions, and updates write back the seeded values, so the dataset stays the same. Books
+ * and editions created during the run are remembered and deleted by the delete operations. Defects cannot be
+ * deleted, so they are only added to editions created during the run, and deleted with them.
+ */
+final class Workload {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final int PAGE_SIZE = 20;
+    private static final int BOOKS_PER_BATCH = 2;
+    private static final int RECALLS_PER_BATCH = 50;
+    // Deletes leave the latest created books and editions alone, as requests on them may still be in flight
+    private static final int UNDELETED_BACKLOG = 10;
+
+    private final URI baseUrl;
+    private final Dataset dataset;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    // Keeps the keys created by this run apart from those of an earlier, interrupted one
+    private final String runId = Long.toString(System.currentTimeMillis(), 36).toUpperCase(Locale.ROOT);
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Queue<String[]> createdBooks = new ConcurrentLinkedQueue<>();
+    private final Queue<CreatedEdition> createdEditions = new ConcurrentLinkedQueue<>();
+    // Created editions get books from the next batch create, so that defects can be added to them
+    private final Queue<CreatedEdition> editionsWithoutBooks = new ConcurrentLinkedQueue<>();
+    // Defects are added to the latest edition given books, while the deletes take the oldest edition
+    private final AtomicReference<String[]> latestBookOfCreatedEdition = new AtomicReference<>();
+
+    /**
+     * A request ready to send, and what to do once it succeeded.
+     */
+    record Call(Operation operation, HttpRequest request, Runnable onSuccess) {}
+
+    /**
+     * An edition created during the run, with the titles of the seeded edition {@code edition}.
+     */
+    private record CreatedEdition(String isbn, int edition) {}
+
+    Workload(URI baseUrl, Dataset dataset, Map<Operation, Integer> mix) {
+        this.baseUrl = baseUrl;
+        this.dataset = dataset;
+        this.operations = mix.entrySet().stream()
+                .filter(weight -> weight.getValue() > 0)
+                .map(Map.Entry::getKey)
+                .toArray(Operation[]::new);
+        this.cumulativeWeights = new int[operations.length];
+
+        for (int operation = 0, total = 0; operation < operations.length; operation++) {
+            total += mix.get(operations[operation]);
+            cumulativeWeights[operation] = total;
+        }
+
+        if (operations.length == 0) {
+            throw new IllegalArgumentException("The mix has no operation with a positive weight");
+        }
+    }
+
+    Operation pick(RandomGenerator random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+
+        for (int operation = 0; ; operation++) {
+            if (value < cumulativeWeights[operation]) {
+                return operations[operation];
+            }
+        }
+    }
+
+    /**
+     * Builds the request of an operation. A delete with too few created to delete creates instead, and so
+     * does a defect with no created edition that has books to add it to.
+     */
+    Call prepare(Operation operation, RandomGenerator random) {
+        int edition = random.nextInt(dataset.editions());
+        int batch = random.nextInt(dataset.batchesPerEdition());
+
+        return switch (operation) {
+            case BOOK_GET -> call(operation, get("/api/v1/books/" + Dataset.batchNumber(batch) + "/" + Dataset.isbn(edition)));
+            case BOOK_PAGE -> call(operation, get("/api/v1/books?limit=" + PAGE_SIZE));
+            case BOOK_STREAM -> call(operation, request("/api/v1/books").setHeader("Accept", "application/x-ndjson").GET());
+            case BOOK_CREATE -> {
+                String batchNumber = newKey("LT-RUN-");
+                yield new Call(operation, post("/api/v1/books", Dataset.book(Dataset.isbn(edition), batchNumber, edition)),
+                        () -> createdBooks.add(new String[] {batchNumber, Dataset.isbn(edition)}));
+            }
+            case BOOK_BATCH_CREATE -> {
+                CreatedEdition createdEdition = editionsWithoutBooks.poll();
+                String isbn = createdEdition != null ? createdEdition.isbn() : Dataset.isbn(edition);
+                int titles = createdEdition != null ? createdEdition.edition() : edition;
+                List<Map<String, Object>> books = new ArrayList<>();
+
+                for (int book = 0; book < BOOKS_PER_BATCH; book++) {
+                    books.add(Dataset.book(isbn, newKey("LT-RUN-"), titles));
+                }
+
+                String[] firstBook = {isbn, (String) books.getFirst().get("batchNumber")};
+                // The books of a created edition are deleted with it
+                yield new Call(operation, post("/api/v1/books/batch", books), createdEdition != null
+                        ? () -> latestBookOfCreatedEdition.set(firstBook)
+                        : () -> books.forEach(book -> createdBooks.add(new String[] {(String) book.get("batchNumber"), isbn})));
+            }
+            case BOOK_UPDATE -> call(operation, request("/api/v1/books")
+                    .header("Content-Type", "application/json")
+                    .method("PATCH", body(Dataset.book(edition, batch))));
+            case BOOK_DELETE -> {
+                String[] book = createdBooks.size() > UNDELETED_BACKLOG ? createdBooks.poll() : null;
+                yield book != null
+                        ? call(operation, request("/api/v1/books/" + book[0] + "/" + book[1]).DELETE())
+                        : prepare(Operation.BOOK_CREATE, random);
+            }
+            case EDITION_GET -> call(operation, get("/api/v1/book-editions/" + Dataset.isbn(edition)));
+            case EDITION_PAGE -> call(operation, get("/api/v1/book-editions?limit=" + PAGE_SIZE));
+            case EDITION_SEARCH -> call(operation, get("/api/v1/book-editions/search?limit=" + PAGE_SIZE + "&q="
+                    + Dataset.word(random)));
+            case EDITION_SUGGESTIONS -> call(operation, get("/api/v1/book-editions/suggestions?prefix="
+                    + Dataset.word(random).substring(0, 1 + random.nextInt(3))));
+            case EDITION_CREATE -> {
+                CreatedEdition createdEdition = new CreatedEdition(newKey("979-9-"), edition);
+                Map<String, Object> body = Map.of("isbn", createdEdition.isbn(), "title", Dataset.title(edition),
+                        "authorName", Dataset.authorName(edition), "number", 1);
+                yield new Call(operation, post("/api/v1/book-editions", body), () -> {
+                    createdEditions.add(createdEdition);
+                    editionsWithoutBooks.add(createdEdition);
+                });
+            }
+            case EDITION_UPDATE -> call(operation, request("/api/v1/book-editions")
+                    .header("Content-Type", "application/json")
+                    .method("PATCH", body(Dataset.edition(edition))));
+            case EDITION_DELETE -> {
+                CreatedEdition createdEdition = createdEditions.size() > UNDELETED_BACKLOG ? createdEditions.poll() : null;
+
+                if (createdEdition == null) {
+                    yield prepare(Operation.EDITION_CREATE, random);
+                }
+
+                editionsWithoutBooks.remove(createdEdition);
+                String[] latestBook = latestBookOfCreatedEdition.get();
+
+                if (latestBook != null && latestBook[0].equals(createdEdition.isbn())) {
+                    latestBookOfCreatedEdition.compareAndSet(latestBook, null);
+                }
+
+                yield call(operation, request("/api/v1/book-editions/" + createdEdition.isbn()).DELETE());
+            }
+            case DEFECT_LIST -> call(operation, get("/api/v1/book-defects"));
+            case DEFECT_CREATE -> {
+                String[] book = latestBookOfCreatedEdition.get();
+                yield book != null
+                        ? call(operation, post("/api/v1/book-defects", Map.of("defectCode", newKey("LT-RUN-"),
+                                "editionIsbn", book[0], "affectedBatches", List.of(book[1]))))
+                        : prepare(Operation.BOOK_BATCH_CREATE, random);
+            }
+            case RECALL_CHECK -> call(operation, get("/api/v1/book-defects/recalls/" + Dataset.batchNumber(batch) + "/"
+                    + Dataset.isbn(edition)));
+            case RECALL_BATCH_CHECK -> {
+                List<Map<String, String>> scannedBooks = new ArrayList<>();
+
+                for (int book = 0; book < RECALLS_PER_BATCH; book++) {
+                    scannedBooks.add(Map.of(
+                            "batchNumber", Dataset.batchNumber(random.nextInt(dataset.batchesPerEdition())),
+                            "isbn", Dataset.isbn(random.nextInt(dataset.editions()))));
+                }
+
+                yield call(operation, post("/api/v1/book-defects/recalls", scannedBooks));
+            }
+        };
+    }
+
+    /**
+     * @return the deletes of the books and editions this run created and did not delete yet
+     */
+    List<HttpRequest> cleanUp() {
+        List<HttpRequest> deletes = new ArrayList<>();
+
+        for (String[] book = createdBooks.poll(); book != null; book = createdBooks.poll()) {
+            deletes.add(request("/api/v1/books/" + book[0] + "/" + book[1]).DELETE().build());
+        }
+
+        for (CreatedEdition edition = createdEditions.poll(); edition != null; edition = createdEditions.poll()) {
+            deletes.add(request("/api/v1/book-editions/" + edition.isbn()).DELETE().build());
+        }
+
+        return deletes;
+    }
+
+    HttpRequest post(String path, Object body) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .POST(body(body))
+                .build();
+    }
+
+    HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(baseUrl.resolve(path))
+                .header("Accept", "application/json")
+                .timeout(TIMEOUT);
+    }
+
+    private HttpRequest.BodyPublisher body(Object body) {
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Call call(Operation operation, HttpRequest.Builder request) {
+        return call(operation, request.build());
+    }
+
+    private Call call(Operation operation, HttpRequest request) {
+        return new Call(operation, request, () -> {});
+    }
+
+    private String newKey(String prefix) {
+        return prefix + runId + "-" + sequence.incrementAndGet();
+    }
+}
@@ -1,26 +1,51 @@
 package com.alexandre.books_manager.controller;
 
 import com.alexandre.books_manager.converter.BookConverter;
+import com.alexandre.books_manager.converter.CursorConverter;
+import com.alexandre.books_manager.converter.ETagConverter;
+import com.alexandre.books_manager.dto.BookBatchResultDTO;
 import com.alexandre.books_manager.dto.BookDTO;
+import com.alexandre.books_manager.dto.CursorPageDTO;
 import com.alexandre.books_manager.dto.UpdateBookDTO;
 import com.alexandre.books_manager.model.Book;
+import com.alexandre.books_manager.repository.BookRepository;
 import com.alexandre.books_manager.service.BookService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping(path = "/api/v1/books", produces = MediaType.APPLICATION_JSON_VALUE)
 public class BookController {
+    public static final int MAX_BATCH_SIZE = 1000;
 
     private BookService bookService;
     private BookConverter bookConverter;
+    private CursorConverter cursorConverter;
+    private ETagConverter eTagConverter;
+    private ObjectMapper objectMapper;
+    private ObjectWriter bookWriter;
 
     @Autowired
     public void setBookService(BookService bookService) {
@@ -32,6 +57,23 @@ public class BookController {
         this.bookConverter = bookConverter;
     }
 
+    @Autowired
+    public void setCursorConverter(CursorConverter cursorConverter) {
+        this.cursorConverter = cursorConverter;
+    }
+
+    @Autowired
+    public void setETagConverter(ETagConverter eTagConverter) {
+        this.eTagConverter = eTagConverter;
+    }
+
+    @Autowired
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.bookWriter = objectMapper.writerFor(BookDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
     @PostMapping
     public ResponseEntity<BookDTO> saveBook(@RequestBody @Valid BookDTO bookDTO) {
         Book book = bookService.save(bookConverter.toEntity(bookDTO));
@@ -45,26 +87,128 @@ public class BookController {
         return ResponseEntity.created(location).body(savedBookDTO);
     }
 
+    /**
+     * Creates up to {@link #MAX_BATCH_SIZE} books in one request and reports, in request order, whether
+     * each of them was created, conflicted with an existing book, or was skipped because its edition could
+     * not be created.
+     */
+    @PostMapping(path = "/batch")
+    public ResponseEntity<List<BookBatchResultDTO>> saveBooks(
+            @RequestBody @Size(min = 1, max = MAX_BATCH_SIZE) List<@Valid BookDTO> bookDTOs) {
+        List<Book> books = bookDTOs.stream()
+                .map(bookConverter::toEntity)
+                .toList();
+
+        Set<String> invalidIsbns = new HashSet<>();
+        bookService.saveAll(books, invalidIsbns);
+
+        List<BookBatchResultDTO> results = books.stream()
+                .map(book -> new BookBatchResultDTO(
+                        book.getBatchNumber(),
+                        book.getEdition().getIsbn(),
+                        batchStatus(book, invalidIsbns)))
+                .toList();
+
+        return ResponseEntity.ok(results);
+    }
+
+    private static BookBatchResultDTO.Status batchStatus(Book book, Set<String> invalidIsbns) {
+        if (book.getId() != null) {
+            return BookBatchResultDTO.Status.CREATED;
+        }
+
+        return invalidIsbns.contains(book.getEdition().getIsbn())
+                ? BookBatchResultDTO.Status.INVALID_EDITION
+                : BookBatchResultDTO.Status.CONFLICT;
+    }
+
     @GetMapping
-    public @ResponseBody ResponseEntity<Iterable<BookDTO>> findAllBook() {
-        Iterable<Book> bookList = bookService.findAll();
-        return ResponseEntity.ok(bookConverter.toDtoList(bookList));
+    public @ResponseBody ResponseEntity<CursorPageDTO<BookDTO>> findAllBook(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorConverter.DEFAULT_PAGE_SIZE)
+            @Min(1) @Max(CursorConverter.MAX_PAGE_SIZE) int limit) {
+        List<Book> bookList = bookService.findPage(cursorConverter.fromCursorAsLong(cursor), limit + 1);
+        return ResponseEntity.ok(cursorConverter.toPage(
+                bookList, limit, bookConverter::toDto, book -> book.getId().toString()));
+    }
+
+    /**
+     * Streams the whole catalog as newline-delimited JSON. Each book is written as soon as it is read,
+     * so the response starts right away and neither side has to hold the full list in memory.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBooks() {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                // Each line ends with its own newline, instead of the space Jackson puts between root values
+                generator.setRootValueSeparator(null);
+                bookService.streamAll(book -> {
+                    try {
+                        bookWriter.writeValue(generator, bookConverter.toDto(book));
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
+    /**
+     * Updates a book with a single statement. With {@code If-Match}, the update only happens if the book still
+     * has that ETag, otherwise {@code 412 Precondition Failed} is returned. With {@code Prefer: return=minimal},
+     * the book is not read back and {@code 204 No Content} is returned.
+     */
     @PatchMapping
     public @ResponseBody ResponseEntity<BookDTO> updateBookByBatchNumberAndIsbn(
-            @RequestBody @Valid UpdateBookDTO bookDTO) {
+            @RequestBody @Valid UpdateBookDTO bookDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = Preferences.PREFER, required = false) String prefer) {
+        Long[] expectedVersions = eTagConverter.fromIfMatch(ifMatch, 2);
         Book updatedBookEntity = bookConverter.toEntity(bookDTO);
-        Book updatedBook = bookService.update(updatedBookEntity);
+
+        if (Preferences.isReturnMinimal(prefer)) {
+            Long version = expectedVersions != null
+                    ? bookService.patch(updatedBookEntity, expectedVersions[0], expectedVersions[1])
+                    : bookService.patch(updatedBookEntity, null, null);
+            ResponseEntity.HeadersBuilder<?> response = ResponseEntity.noContent()
+                    .header(Preferences.PREFERENCE_APPLIED, Preferences.RETURN_MINIMAL);
+            return (expectedVersions != null ? response.eTag(eTagConverter.toETag(version, expectedVersions[1])) : response)
+                    .build();
+        }
+
+        Book updatedBook = expectedVersions != null
+                ? bookService.update(updatedBookEntity, expectedVersions[0], expectedVersions[1])
+                : bookService.update(updatedBookEntity);
 
         BookDTO updatedBookDTO = bookConverter.toDto(updatedBook);
-        return ResponseEntity.ok(updatedBookDTO);
+        return ResponseEntity.ok()
+                .eTag(toETag(updatedBook))
+                .body(updatedBookDTO);
     }
 
+    /**
+     * Returns a book with its ETag, which covers both the book and its edition. When {@code If-None-Match}
+     * holds the current ETag, only their versions are read and a {@code 304 Not Modified} without body is
+     * returned.
+     */
     @GetMapping(path = "/{batchNumber}/{isbn}")
     public @ResponseBody ResponseEntity<BookDTO> findBookByBatchNumberAndIsbn(
             @PathVariable String batchNumber,
-            @PathVariable String isbn) {
+            @PathVariable String isbn,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            Optional<String> eTag = bookService.findVersion(batchNumber, isbn).map(this::toETag);
+
+            if (eTag.isPresent() && eTagConverter.matchesIfNoneMatch(ifNoneMatch, eTag.get())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag.get()).build();
+            }
+        }
+
         Optional<Book> bookFound = bookService.findByBatchNumberAndEditionIsbn(batchNumber, isbn);
 
         if (bookFound.isEmpty()) {
@@ -72,7 +216,9 @@ public class BookController {
         }
 
         BookDTO bookDTO = bookConverter.toDto(bookFound.get());
-        return ResponseEntity.ok(bookDTO);
+        return ResponseEntity.ok()
+                .eTag(toETag(bookFound.get()))
+                .body(bookDTO);
     }
 
     @DeleteMapping(path = "/{batchNumber}/{isbn}")
@@ -82,4 +228,12 @@ public class BookController {
         bookService.delete(batchNumber, isbn);
         return ResponseEntity.noContent().build();
     }
+
+    private String toETag(Book book) {
+        return eTagConverter.toETag(book.getVersion(), book.getEdition().getVersion());
+    }
+
+    private String toETag(BookRepository.BookVersion version) {
+        return eTagConverter.toETag(version.getVersion(), version.getEditionVersion());
+    }
 }
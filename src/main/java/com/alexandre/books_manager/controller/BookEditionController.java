@@ -1,18 +1,30 @@
 package com.alexandre.books_manager.controller;
 
 import com.alexandre.books_manager.converter.BookEditionConverter;
+import com.alexandre.books_manager.converter.CursorConverter;
+import com.alexandre.books_manager.converter.ETagConverter;
 import com.alexandre.books_manager.dto.BookEditionDTO;
+import com.alexandre.books_manager.dto.BookEditionSuggestionsDTO;
+import com.alexandre.books_manager.dto.CursorPageDTO;
 import com.alexandre.books_manager.dto.UpdateBookEditionDTO;
 import com.alexandre.books_manager.model.BookEdition;
+import com.alexandre.books_manager.service.BookEditionSearchService;
 import com.alexandre.books_manager.service.BookEditionService;
+import com.alexandre.books_manager.service.BookEditionSuggestionService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
+import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -20,28 +32,98 @@ import java.util.Optional;
 public class BookEditionController {
 
     private BookEditionService bookEditionService;
+    private BookEditionSearchService bookEditionSearchService;
+    private BookEditionSuggestionService bookEditionSuggestionService;
     private BookEditionConverter bookEditionConverter;
+    private CursorConverter cursorConverter;
+    private ETagConverter eTagConverter;
 
     @Autowired
     public void setBookEditionService(BookEditionService bookEditionService) {
         this.bookEditionService = bookEditionService;
     }
 
+    @Autowired
+    public void setBookEditionSearchService(BookEditionSearchService bookEditionSearchService) {
+        this.bookEditionSearchService = bookEditionSearchService;
+    }
+
+    @Autowired
+    public void setBookEditionSuggestionService(BookEditionSuggestionService bookEditionSuggestionService) {
+        this.bookEditionSuggestionService = bookEditionSuggestionService;
+    }
+
     @Autowired
     public void setBookEditionConverter(BookEditionConverter bookEditionConverter) {
         this.bookEditionConverter = bookEditionConverter;
     }
 
+    @Autowired
+    public void setCursorConverter(CursorConverter cursorConverter) {
+        this.cursorConverter = cursorConverter;
+    }
+
+    @Autowired
+    public void setETagConverter(ETagConverter eTagConverter) {
+        this.eTagConverter = eTagConverter;
+    }
+
     @GetMapping
-    public @ResponseBody ResponseEntity<Iterable<BookEditionDTO>> findAllBookEditions() {
-        Iterable<BookEdition> bookEditionList = bookEditionService.findAll();
-        return ResponseEntity.ok(bookEditionConverter.toDtoList(bookEditionList));
+    public @ResponseBody ResponseEntity<CursorPageDTO<BookEditionDTO>> findAllBookEditions(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorConverter.DEFAULT_PAGE_SIZE)
+            @Min(1) @Max(CursorConverter.MAX_PAGE_SIZE) int limit) {
+        List<BookEdition> bookEditionList = bookEditionService.findPage(cursorConverter.fromCursor(cursor), limit + 1);
+        return ResponseEntity.ok(cursorConverter.toPage(
+                bookEditionList, limit, bookEditionConverter::toDto, BookEdition::getIsbn));
     }
 
+    /**
+     * Searches editions by title and author name, most relevant first. The last word of {@code q} also
+     * matches the words it is a prefix of.
+     */
+    @GetMapping(path = "/search")
+    public @ResponseBody ResponseEntity<CursorPageDTO<BookEditionDTO>> searchBookEditions(
+            @RequestParam @NotBlank String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorConverter.DEFAULT_PAGE_SIZE)
+            @Min(1) @Max(CursorConverter.MAX_PAGE_SIZE) int limit) {
+        List<BookEditionSearchService.Match> matches =
+                bookEditionSearchService.search(q, cursorConverter.fromCursor(cursor), limit + 1);
+        return ResponseEntity.ok(cursorConverter.toPage(
+                matches, limit, match -> bookEditionConverter.toDto(match.edition()), BookEditionSearchService.Match::position));
+    }
+
+    /**
+     * Suggests the titles and author names starting with {@code prefix}, those with the most books first.
+     * Served from memory, without querying the database.
+     */
+    @GetMapping(path = "/suggestions")
+    public @ResponseBody ResponseEntity<BookEditionSuggestionsDTO> suggestBookEditions(
+            @RequestParam @NotBlank String prefix,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(BookEditionSuggestionService.MAX_SUGGESTIONS) int limit) {
+        return ResponseEntity.ok(new BookEditionSuggestionsDTO(
+                bookEditionSuggestionService.suggestTitles(prefix, limit),
+                bookEditionSuggestionService.suggestAuthorNames(prefix, limit)));
+    }
+
+    /**
+     * Returns an edition with its ETag. When {@code If-None-Match} holds the current ETag, only the version
+     * of the edition is read and a {@code 304 Not Modified} without body is returned.
+     */
     @GetMapping(path = "/{isbn}")
     public @ResponseBody ResponseEntity<BookEditionDTO> findEdition(
-            @PathVariable String isbn
+            @PathVariable String isbn,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
+        if (ifNoneMatch != null) {
+            Optional<String> eTag = bookEditionService.findVersionByIsbn(isbn).map(eTagConverter::toETag);
+
+            if (eTag.isPresent() && eTagConverter.matchesIfNoneMatch(ifNoneMatch, eTag.get())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag.get()).build();
+            }
+        }
+
         Optional<BookEdition> bookEdition = bookEditionService.findByIsbn(isbn);
 
         if (bookEdition.isEmpty()) {
@@ -49,7 +131,9 @@ public class BookEditionController {
         }
 
         BookEditionDTO bookEditionDTO = bookEditionConverter.toDto(bookEdition.get());
-        return ResponseEntity.ok(bookEditionDTO);
+        return ResponseEntity.ok()
+                .eTag(eTagConverter.toETag(bookEdition.get().getVersion()))
+                .body(bookEditionDTO);
     }
 
     @PostMapping
@@ -65,14 +149,35 @@ public class BookEditionController {
         return ResponseEntity.created(location).body(savedBookEditionDTO);
     }
 
+    /**
+     * Updates an edition with a single statement. With {@code If-Match}, the update only happens if the edition
+     * still has that ETag, otherwise {@code 412 Precondition Failed} is returned. With
+     * {@code Prefer: return=minimal}, the edition is not read back and {@code 204 No Content} is returned.
+     */
     @PatchMapping
     public @ResponseBody ResponseEntity<BookEditionDTO> editBookEdition(
-            @RequestBody @Valid UpdateBookEditionDTO bookEditionDTO) {
+            @RequestBody @Valid UpdateBookEditionDTO bookEditionDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = Preferences.PREFER, required = false) String prefer) {
+        Long[] expectedVersions = eTagConverter.fromIfMatch(ifMatch, 1);
+        Long expectedVersion = expectedVersions != null ? expectedVersions[0] : null;
         BookEdition updatedBookEditionEntity = bookEditionConverter.toEntity(bookEditionDTO);
-        BookEdition updatedBookEdition = bookEditionService.update(updatedBookEditionEntity);
+
+        if (Preferences.isReturnMinimal(prefer)) {
+            Long version = bookEditionService.patch(updatedBookEditionEntity, expectedVersion);
+            ResponseEntity.HeadersBuilder<?> response = ResponseEntity.noContent()
+                    .header(Preferences.PREFERENCE_APPLIED, Preferences.RETURN_MINIMAL);
+            return (version != null ? response.eTag(eTagConverter.toETag(version)) : response).build();
+        }
+
+        BookEdition updatedBookEdition = expectedVersion != null
+                ? bookEditionService.update(updatedBookEditionEntity, expectedVersion)
+                : bookEditionService.update(updatedBookEditionEntity);
 
         BookEditionDTO updatedBookEditionDTO = bookEditionConverter.toDto(updatedBookEdition);
-        return ResponseEntity.ok(updatedBookEditionDTO);
+        return ResponseEntity.ok()
+                .eTag(eTagConverter.toETag(updatedBookEdition.getVersion()))
+                .body(updatedBookEditionDTO);
     }
 
     @DeleteMapping(path = "/{isbn}")
@@ -4,11 +4,15 @@ import com.alexandre.books_manager.converter.DefectEditionConverter;
 import com.alexandre.books_manager.converter.DefectEditionCreateConverter;
 import com.alexandre.books_manager.dto.DefectEditionCreateDTO;
 import com.alexandre.books_manager.dto.DefectEditionDTO;
+import com.alexandre.books_manager.dto.RecallCheckDTO;
+import com.alexandre.books_manager.dto.ScannedBookDTO;
 import com.alexandre.books_manager.model.BookEdition;
 import com.alexandre.books_manager.model.DefectEdition;
 import com.alexandre.books_manager.service.BookEditionService;
 import com.alexandre.books_manager.service.DefectEditionService;
+import com.alexandre.books_manager.service.RecallCheckService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -20,10 +24,13 @@ import java.util.Optional;
 @RestController
 @RequestMapping(path = "/api/v1/book-defects", produces = MediaType.APPLICATION_JSON_VALUE)
 public class DefectEditionController {
+    public static final int MAX_RECALL_CHECKS = 1000;
+
     private DefectEditionService defectEditionService;
     private DefectEditionCreateConverter defectEditionCreateConverter;
     private DefectEditionConverter defectEditionConverter;
     private BookEditionService bookEditionService;
+    private RecallCheckService recallCheckService;
 
     @Autowired
     public void setDefectEditionService(DefectEditionService defectEditionService) {
@@ -45,6 +52,11 @@ public class DefectEditionController {
         this.defectEditionConverter = defectEditionConverter;
     }
 
+    @Autowired
+    public void setRecallCheckService(RecallCheckService recallCheckService) {
+        this.recallCheckService = recallCheckService;
+    }
+
     @GetMapping
     public ResponseEntity<List<DefectEditionDTO>> findAll() {
         Iterable<DefectEdition> defectEditions = defectEditionService.findAll();
@@ -66,4 +78,23 @@ public class DefectEditionController {
         DefectEditionDTO savedDefectEditionDTO = defectEditionConverter.toDto(savedDefectEdition);
         return ResponseEntity.ok(savedDefectEditionDTO);
     }
+
+    @GetMapping(path = "/recalls/{batchNumber}/{isbn}")
+    public ResponseEntity<RecallCheckDTO> checkRecall(@PathVariable String batchNumber, @PathVariable String isbn) {
+        return ResponseEntity.ok(new RecallCheckDTO(batchNumber, isbn, recallCheckService.isAffected(batchNumber, isbn)));
+    }
+
+    /**
+     * Checks up to {@link #MAX_RECALL_CHECKS} scanned books in one request and reports, in request order,
+     * whether each one is affected by a defect. Nothing is written: the body only carries the books to check.
+     */
+    @PostMapping(path = "/recalls")
+    public ResponseEntity<List<RecallCheckDTO>> checkRecalls(
+            @RequestBody @Size(min = 1, max = MAX_RECALL_CHECKS) List<@Valid ScannedBookDTO> scannedBooks) {
+        List<RecallCheckDTO> checks = scannedBooks.stream()
+                .map(book -> new RecallCheckDTO(book.batchNumber(), book.isbn(),
+                        recallCheckService.isAffected(book.batchNumber(), book.isbn())))
+                .toList();
+        return ResponseEntity.ok(checks);
+    }
 }
@@ -0,0 +1,32 @@
+package com.alexandre.books_manager.controller;
+
+/**
+ * The {@code Prefer} request header (RFC 7240) understood by the write endpoints.
+ */
+final class Preferences {
+    static final String PREFER = "Prefer";
+    static final String PREFERENCE_APPLIED = "Preference-Applied";
+    static final String RETURN_MINIMAL = "return=minimal";
+
+    private Preferences() {
+    }
+
+    /**
+     * Tells whether the client asked not to get the updated resource back.
+     *
+     * @param prefer the {@code Prefer} header value, possibly {@code null}
+     */
+    static boolean isReturnMinimal(String prefer) {
+        if (prefer == null) {
+            return false;
+        }
+
+        for (String preference : prefer.split(",")) {
+            if (preference.trim().equalsIgnoreCase(RETURN_MINIMAL)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,76 @@
+package com.alexandre.books_manager.converter;
+
+import com.alexandre.books_manager.dto.CursorPageDTO;
+import com.alexandre.books_manager.exception.BadRequestException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Converts keyset positions to and from the opaque {@code next} tokens handed out by the list endpoints.
+ *
+ * <p>A token only carries the key of the last row of the previous page, so fetching any page is an
+ * index range scan ({@code WHERE key > ? ORDER BY key LIMIT ?}) no matter how deep the client has paged.</p>
+ */
+@Component
+public class CursorConverter {
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    public String toCursor(String key) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String fromCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    public Long fromCursorAsLong(String cursor) {
+        String key = fromCursor(cursor);
+
+        if (key == null) {
+            return null;
+        }
+
+        try {
+            return Long.valueOf(key);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Builds a page out of rows fetched with a limit of {@code pageSize + 1}. The extra row is only used
+     * to know whether a next page exists and is never returned to the client.
+     *
+     * @param rows     the rows read from the repository, at most {@code pageSize + 1}
+     * @param pageSize the number of items the client asked for
+     * @param mapper   converts a row into the item returned to the client
+     * @param key      extracts the keyset value of a row
+     * @return the page with a {@code next} token, or a {@code null} token on the last page
+     */
+    public <S, T> CursorPageDTO<T> toPage(List<S> rows, int pageSize, Function<S, T> mapper, Function<S, String> key) {
+        boolean hasNext = rows.size() > pageSize;
+        List<S> pageRows = hasNext ? rows.subList(0, pageSize) : rows;
+
+        List<T> items = pageRows.stream()
+                .map(mapper)
+                .toList();
+
+        String next = hasNext ? toCursor(key.apply(pageRows.get(pageRows.size() - 1))) : null;
+        return new CursorPageDTO<>(items, next);
+    }
+}
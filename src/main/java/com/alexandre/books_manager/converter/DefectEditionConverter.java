@@ -5,6 +5,9 @@ import com.alexandre.books_manager.model.BookEdition;
 import com.alexandre.books_manager.model.DefectEdition;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashSet;
+import java.util.List;
+
 @Component
 public class DefectEditionConverter implements GenericConverter<DefectEdition, DefectEditionDTO> {
     private final BookEditionConverter bookEditionConverter;
@@ -23,7 +26,7 @@ public class DefectEditionConverter implements GenericConverter<DefectEdition, D
         return new DefectEditionDTO(
                 bookEditionConverter.toDto(bookEdition),
                 defectEdition.getDefectCode(),
-                defectEdition.getAffectedBatches()
+                List.copyOf(defectEdition.getAffectedBatches())
         );
     }
 
@@ -37,7 +40,7 @@ public class DefectEditionConverter implements GenericConverter<DefectEdition, D
         DefectEdition defectEdition = new DefectEdition();
         defectEdition.setDefectCode(defectEditionDto.defectCode());
         defectEdition.setEdition(bookEdition);
-        defectEdition.setAffectedBatches(defectEditionDto.affectedBatches());
+        defectEdition.setAffectedBatches(new LinkedHashSet<>(defectEditionDto.affectedBatches()));
 
         return defectEdition;
     }
@@ -4,6 +4,9 @@ import com.alexandre.books_manager.dto.DefectEditionCreateDTO;
 import com.alexandre.books_manager.model.DefectEdition;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashSet;
+import java.util.List;
+
 @Component
 public class DefectEditionCreateConverter implements GenericConverter<DefectEdition, DefectEditionCreateDTO> {
     public DefectEditionCreateDTO toDto(DefectEdition defectEdition) {
@@ -14,7 +17,7 @@ public class DefectEditionCreateConverter implements GenericConverter<DefectEdit
         return new DefectEditionCreateDTO(
                 defectEdition.getDefectCode(),
                 defectEdition.getEdition().getIsbn(),
-                defectEdition.getAffectedBatches()
+                List.copyOf(defectEdition.getAffectedBatches())
         );
     }
 
@@ -25,7 +28,7 @@ public class DefectEditionCreateConverter implements GenericConverter<DefectEdit
 
         DefectEdition defectEdition = new DefectEdition();
         defectEdition.setDefectCode(defectEditionDto.defectCode());
-        defectEdition.setAffectedBatches(defectEditionDto.affectedBatches());
+        defectEdition.setAffectedBatches(new LinkedHashSet<>(defectEditionDto.affectedBatches()));
 
         return defectEdition;
     }
@@ -0,0 +1,80 @@
+package com.alexandre.books_manager.converter;
+
+import com.alexandre.books_manager.exception.PreconditionFailedException;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Converts entity versions to and from strong ETags. A representation built from several entities, such as
+ * a book embedding its edition, gets one ETag made of all their versions, so it changes when any of them does.
+ */
+@Component
+public class ETagConverter {
+    private static final String SEPARATOR = "-";
+
+    public String toETag(Long... versions) {
+        return Arrays.stream(versions)
+                .map(String::valueOf)
+                .collect(Collectors.joining(SEPARATOR, "\"", "\""));
+    }
+
+    /**
+     * Tells whether an {@code If-None-Match} header matches {@code eTag}, using the weak comparison the header
+     * calls for, in which case the client's copy is current and a {@code 304 Not Modified} can be returned.
+     *
+     * @param ifNoneMatch the header value, possibly {@code null}
+     * @param eTag        the current ETag of the resource
+     */
+    public boolean matchesIfNoneMatch(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+
+            if (tag.equals("*") || tag.equals(eTag) || tag.equals("W/" + eTag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Reads the versions an {@code If-Match} header expects.
+     *
+     * @param ifMatch  the header value, possibly {@code null}
+     * @param versions how many versions the ETag of the resource is made of
+     * @return the expected versions, or {@code null} when the header is absent or {@code *}
+     * @throws PreconditionFailedException when the header can never match a current ETag of the resource,
+     *                                     such as a weak, malformed or foreign ETag
+     */
+    public Long[] fromIfMatch(String ifMatch, int versions) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        String eTag = ifMatch.trim();
+
+        if (eTag.length() < 2 || !eTag.startsWith("\"") || !eTag.endsWith("\"")) {
+            throw new PreconditionFailedException("If-Match must be a single strong ETag");
+        }
+
+        String[] parts = eTag.substring(1, eTag.length() - 1).split(SEPARATOR, -1);
+
+        if (parts.length != versions) {
+            throw new PreconditionFailedException("Resource has been modified");
+        }
+
+        try {
+            return Arrays.stream(parts)
+                    .map(Long::valueOf)
+                    .toArray(Long[]::new);
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("Resource has been modified");
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.alexandre.books_manager.datasource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Puts a {@link ConcurrencyLimitingDataSource} in front of the application data source, whether it is the
+ * auto-configured pool or the replica routing one.
+ */
+@Configuration(proxyBeanMethods = false)
+public class ConcurrencyLimitConfiguration {
+    private static final String DATA_SOURCE_BEAN_NAME = "dataSource";
+
+    @Bean
+    static BeanPostProcessor concurrencyLimitingDataSourcePostProcessor(Environment environment) {
+        ConcurrencyLimitProperties properties = Binder.get(environment)
+                .bindOrCreate("books-manager.datasource", ConcurrencyLimitProperties.class);
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (DATA_SOURCE_BEAN_NAME.equals(beanName) && bean instanceof DataSource dataSource
+                        && !(bean instanceof ConcurrencyLimitingDataSource)) {
+                    return new ConcurrencyLimitingDataSource(dataSource, properties.maxConcurrency(),
+                            properties.acquireTimeout());
+                }
+
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package com.alexandre.books_manager.datasource;
+
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * How many connections the application may hold at once, bound from {@code books-manager.datasource.*}.
+ *
+ * @param maxConcurrency the number of connections open at once, at most the total size of the pools
+ * @param acquireTimeout how long a caller waits for a connection before failing
+ */
+public record ConcurrencyLimitProperties(
+        @DefaultValue("10") int maxConcurrency,
+        @DefaultValue("30s") Duration acquireTimeout
+) {}
@@ -0,0 +1,151 @@
+package com.alexandre.books_manager.datasource;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lets at most {@code maxConcurrency} connections be open at once, and makes every other caller wait in a
+ * fair queue for up to {@code acquireTimeout}.
+ *
+ * <p>With virtual threads, the number of requests in flight is no longer bounded by a thread pool: every one
+ * of them may ask the connection pool for a connection. Waiting on a semaphore parks a virtual thread
+ * without tying up its carrier, and keeps the crowd out of the pool's own hand-off, which is only meant for a
+ * few waiters. A caller that waits too long gets a {@link SQLTransientConnectionException}, as when the pool
+ * itself times out.</p>
+ */
+public class ConcurrencyLimitingDataSource extends DelegatingDataSource implements Closeable {
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final long acquireTimeoutNanos;
+
+    public ConcurrencyLimitingDataSource(DataSource targetDataSource, int maxConcurrency, Duration acquireTimeout) {
+        super(targetDataSource);
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        return limited(() -> obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        return limited(() -> obtainTargetDataSource().getConnection(username, password));
+    }
+
+    /**
+     * @return how many more connections may be opened right now
+     */
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * @return roughly how many callers are waiting for a connection right now
+     */
+    public int waitingCallers() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * @return how many connections may be open at once
+     */
+    public int maxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Closes the target data source, such as a connection pool, when it can be closed. This is a
+     * {@link Closeable} so that wrappers closing their own target, like the statement metrics proxy, close it.
+     */
+    @Override
+    public void close() throws IOException {
+        if (obtainTargetDataSource() instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new SQLTransientConnectionException("Timed out waiting for one of the " + maxConcurrency
+                        + " database connections");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    /**
+     * Opens a connection with the permit already acquired, and returns a connection that gives the permit
+     * back when it is closed.
+     */
+    private Connection limited(ConnectionOpener opener) throws SQLException {
+        Connection connection;
+
+        try {
+            connection = opener.open();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+
+        AtomicBoolean closed = new AtomicBoolean();
+
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class}, (proxy, method, arguments) -> switch (method.getName()) {
+                    case "getTargetConnection" -> connection;
+                    case "equals" -> proxy == arguments[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> "Concurrency limited " + connection;
+                    case "isClosed" -> closed.get() || connection.isClosed();
+                    case "close" -> {
+                        if (closed.compareAndSet(false, true)) {
+                            try {
+                                connection.close();
+                            } finally {
+                                permits.release();
+                            }
+                        }
+
+                        yield null;
+                    }
+                    default -> {
+                        try {
+                            yield method.invoke(connection, arguments);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    }
+                });
+    }
+
+    @FunctionalInterface
+    private interface ConnectionOpener {
+        Connection open() throws SQLException;
+    }
+}
@@ -0,0 +1,41 @@
+package com.alexandre.books_manager.datasource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.support.SQLErrorCodeSQLExceptionTranslator;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+
+/**
+ * Translates the SQL errors of JPA the way {@link org.springframework.jdbc.core.JdbcTemplate} does, from the
+ * error codes of the database. A duplicate key then surfaces as a
+ * {@link org.springframework.dao.DuplicateKeyException} from the repositories as well, rather than as a
+ * generic {@link org.springframework.dao.DataIntegrityViolationException} to tell apart by the constraint
+ * Hibernate managed to extract from the message.
+ */
+@Configuration(proxyBeanMethods = false)
+public class JpaExceptionTranslationConfiguration {
+
+    /**
+     * Sets the translator on the dialect of the entity manager factory, which the transaction manager and the
+     * repositories both translate their exceptions with. The factory only takes the dialect of its vendor
+     * adapter once initialized.
+     */
+    @Bean
+    static BeanPostProcessor jpaExceptionTranslatorPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof AbstractEntityManagerFactoryBean entityManagerFactory
+                        && entityManagerFactory.getJpaDialect() instanceof HibernateJpaDialect dialect
+                        && entityManagerFactory.getDataSource() != null) {
+                    dialect.setJdbcExceptionTranslator(
+                            new SQLErrorCodeSQLExceptionTranslator(entityManagerFactory.getDataSource()));
+                }
+
+                return bean;
+            }
+        };
+    }
+}
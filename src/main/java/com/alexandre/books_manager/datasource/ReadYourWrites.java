@@ -0,0 +1,28 @@
+package com.alexandre.books_manager.datasource;
+
+/**
+ * Whether the current thread must read from the primary because its client has just written. Read-only
+ * transactions go to a replica otherwise, which may not have caught up with those writes yet.
+ *
+ * <p>The flag belongs to the request thread and is not handed over to the threads a request continues on, such
+ * as the one writing a {@code StreamingResponseBody}. Reads made there must not rely on it: the catalog export
+ * reads outside of any transaction, from the stream pool or the primary.</p>
+ */
+public final class ReadYourWrites {
+    private static final ThreadLocal<Boolean> STICKY = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static void stickToPrimary() {
+        STICKY.set(Boolean.TRUE);
+    }
+
+    public static boolean isStickingToPrimary() {
+        return STICKY.get() != null;
+    }
+
+    public static void clear() {
+        STICKY.remove();
+    }
+}
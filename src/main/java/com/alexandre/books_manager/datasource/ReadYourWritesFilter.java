@@ -0,0 +1,74 @@
+package com.alexandre.books_manager.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Keeps a client on the primary for {@code replicaLag} after it writes. Any request that may write, that is
+ * any request but GET, HEAD and OPTIONS, reads from the primary and sets a cookie that expires with the lag;
+ * requests sending that cookie back read from the primary too. The cookie is set before the request is
+ * handled, so the client gets it even when the response is streamed.
+ */
+class ReadYourWritesFilter extends OncePerRequestFilter {
+    static final String COOKIE_NAME = "books-manager-read-primary";
+
+    private static final Set<String> SAFE_METHODS = Set.of(HttpMethod.GET.name(), HttpMethod.HEAD.name(),
+            HttpMethod.OPTIONS.name());
+
+    private final Duration replicaLag;
+
+    ReadYourWritesFilter(Duration replicaLag) {
+        this.replicaLag = replicaLag;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean writing = !SAFE_METHODS.contains(request.getMethod());
+
+        if (writing) {
+            ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, "1")
+                    .path("/")
+                    .maxAge(replicaLag)
+                    .httpOnly(true)
+                    .sameSite("Lax")
+                    .build();
+            response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+        }
+
+        if (writing || hasCookie(request)) {
+            ReadYourWrites.stickToPrimary();
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.clear();
+        }
+    }
+
+    private static boolean hasCookie(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return false;
+        }
+
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,78 @@
+package com.alexandre.books_manager.datasource;
+
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.datasource.ConnectionHandle;
+import org.springframework.orm.jpa.JpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.sql.SQLException;
+
+/**
+ * Keeps what read-only transactions load from a replica out of the second-level cache. A lagging replica may
+ * return an edition older than the one just committed on the primary; put in the cache, that stale edition would
+ * then be served to every client, including the ones reading their own writes from the primary.
+ *
+ * <p>Such transactions still read from the cache, with {@link CacheStoreMode#BYPASS}: entries are only put by the
+ * transactions running on the primary. It is set as a property of the entity manager, which Hibernate reads on
+ * every load, and the previous store mode is restored once the transaction completes, as the entity manager may
+ * outlive it.</p>
+ */
+final class ReplicaCacheJpaDialect implements JpaDialect {
+    private final JpaDialect delegate;
+
+    private record ReplicaTransactionData(Object delegateData, EntityManager entityManager,
+                                          Object previousStoreMode) {}
+
+    ReplicaCacheJpaDialect(JpaDialect delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition) throws SQLException {
+        Object transactionData = delegate.beginTransaction(entityManager, definition);
+
+        // Same decision as ReplicaRoutingDataSource, taken on the same thread
+        if (!definition.isReadOnly() || ReadYourWrites.isStickingToPrimary()) {
+            return transactionData;
+        }
+
+        Object previousStoreMode = entityManager.getProperties()
+                .getOrDefault(AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE, CacheStoreMode.USE);
+        entityManager.setProperty(AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+        return new ReplicaTransactionData(transactionData, entityManager, previousStoreMode);
+    }
+
+    @Override
+    public Object prepareTransaction(EntityManager entityManager, boolean readOnly, String name) {
+        return delegate.prepareTransaction(entityManager, readOnly, name);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof ReplicaTransactionData replicaTransactionData) {
+            replicaTransactionData.entityManager().setProperty(AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE,
+                    replicaTransactionData.previousStoreMode());
+            delegate.cleanupTransaction(replicaTransactionData.delegateData());
+        } else {
+            delegate.cleanupTransaction(transactionData);
+        }
+    }
+
+    @Override
+    public ConnectionHandle getJdbcConnection(EntityManager entityManager, boolean readOnly) throws SQLException {
+        return delegate.getJdbcConnection(entityManager, readOnly);
+    }
+
+    @Override
+    public void releaseJdbcConnection(ConnectionHandle conHandle, EntityManager entityManager) throws SQLException {
+        delegate.releaseJdbcConnection(conHandle, entityManager);
+    }
+
+    @Override
+    public DataAccessException translateExceptionIfPossible(RuntimeException ex) {
+        return delegate.translateExceptionIfPossible(ex);
+    }
+}
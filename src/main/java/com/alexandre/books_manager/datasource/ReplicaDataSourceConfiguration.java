@@ -0,0 +1,138 @@
+package com.alexandre.books_manager.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends read-only transactions to the replicas and everything else to the primary, once at least one
+ * replica is configured under {@code books-manager.datasource.replicas}.
+ *
+ * <p>The routing happens in a {@link LazyConnectionDataSourceProxy}: it only fetches a real connection when
+ * the first statement runs, by which time the transaction manager has marked the connection read-only or not.
+ * Read-only connections come from the replicas in turn, unless the client has just written (see
+ * {@link ReadYourWritesFilter}). What those transactions load is kept out of the second-level cache (see
+ * {@link ReplicaCacheJpaDialect}).</p>
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "books-manager.datasource.replicas[0].url")
+@EnableConfigurationProperties({DataSourceProperties.class, ReplicaProperties.class})
+public class ReplicaDataSourceConfiguration {
+
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties,
+                                              ObjectProvider<JdbcConnectionDetails> connectionDetails) {
+        HikariDataSource dataSource = DataSourceBuilder.create(properties.getClassLoader())
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(properties.determineUrl())
+                .username(properties.determineUsername())
+                .password(properties.determinePassword())
+                .build();
+
+        // Connection details from Docker Compose win over the spring.datasource properties
+        connectionDetails.ifAvailable(details -> {
+            dataSource.setJdbcUrl(details.getJdbcUrl());
+            dataSource.setUsername(details.getUsername());
+            dataSource.setPassword(details.getPassword());
+            dataSource.setDriverClassName(details.getDriverClassName());
+        });
+
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean(defaultCandidate = false)
+    public ReplicaPools replicaPools(ReplicaProperties replicaProperties, DataSourceProperties properties,
+                                     Environment environment) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+
+        for (ReplicaProperties.Replica replica : replicaProperties.replicas()) {
+            HikariDataSource dataSource = DataSourceBuilder.create(properties.getClassLoader())
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(replica.url())
+                    .username(replica.username())
+                    .password(replica.password())
+                    .build();
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+            dataSource.setPoolName("replica-" + replicas.size());
+            dataSource.setReadOnly(true);
+            replicas.add(dataSource);
+        }
+
+        return new ReplicaPools(replicas);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                 @Qualifier("replicaPools") ReplicaPools replicaPools) {
+        return routingDataSource(primaryDataSource, replicaPools.dataSources());
+    }
+
+    /**
+     * Decorates the dialect of the transaction manager once it is initialized: before that, it would be replaced
+     * by the dialect of the entity manager factory.
+     */
+    @Bean
+    static BeanPostProcessor replicaCacheJpaDialectPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof JpaTransactionManager transactionManager
+                        && !(transactionManager.getJpaDialect() instanceof ReplicaCacheJpaDialect)) {
+                    transactionManager.setJpaDialect(new ReplicaCacheJpaDialect(transactionManager.getJpaDialect()));
+                }
+
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(ReplicaProperties replicaProperties) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(replicaProperties.replicaLag()));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * The connection pools of the replicas, closed with the application context.
+     */
+    public record ReplicaPools(List<HikariDataSource> dataSources) implements AutoCloseable {
+        @Override
+        public void close() {
+            dataSources.forEach(HikariDataSource::close);
+        }
+    }
+
+    static DataSource routingDataSource(DataSource primary, List<? extends DataSource> replicas) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(new ReplicaRoutingDataSource(primary, replicas));
+        return dataSource;
+    }
+}
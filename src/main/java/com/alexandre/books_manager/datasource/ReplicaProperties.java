@@ -0,0 +1,27 @@
+package com.alexandre.books_manager.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Read replicas of the primary database, bound from {@code books-manager.datasource.*}.
+ *
+ * @param replicas    the replica pools read-only transactions are spread over; none keeps every query on the
+ *                    primary
+ * @param replicaLag  how far behind the primary a replica may be. A client that has just written reads from
+ *                    the primary for that long
+ */
+@ConfigurationProperties("books-manager.datasource")
+public record ReplicaProperties(
+        @DefaultValue List<Replica> replicas,
+        @DefaultValue("5s") Duration replicaLag
+) {
+    /**
+     * Connection settings of one replica. Pool settings are shared with the primary, under
+     * {@code spring.datasource.hikari.*}.
+     */
+    public record Replica(String url, String username, String password) {}
+}
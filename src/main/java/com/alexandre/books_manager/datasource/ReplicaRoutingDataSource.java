@@ -0,0 +1,43 @@
+package com.alexandre.books_manager.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Where read-only transactions get their connection: the replicas in turn, or the primary while the current
+ * thread {@link ReadYourWrites sticks to it}.
+ */
+final class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private static final String PRIMARY = "primary";
+
+    private final int replicas;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    ReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas) {
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(PRIMARY, primary);
+
+        for (int replica = 0; replica < replicas.size(); replica++) {
+            targetDataSources.put(replica, replicas.get(replica));
+        }
+
+        this.replicas = replicas.size();
+        setTargetDataSources(targetDataSources);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (ReadYourWrites.isStickingToPrimary()) {
+            return PRIMARY;
+        }
+
+        return Math.floorMod(nextReplica.getAndIncrement(), replicas);
+    }
+}
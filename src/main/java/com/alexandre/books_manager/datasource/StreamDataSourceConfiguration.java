@@ -0,0 +1,57 @@
+package com.alexandre.books_manager.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * A small pool on the primary, with its own connection parameters, for the reads that stream a whole table.
+ *
+ * <p>On MySQL, reading rows in chunks needs {@code useCursorFetch=true}, which also turns every statement of the
+ * connection into a server-side prepared statement: an extra prepare and close round-trip per query. Keeping it
+ * off the application pool means only the streams pay for it. The pool is outside
+ * {@code books-manager.datasource.max-concurrency} and the SQL metrics.</p>
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "books-manager.datasource.stream.enabled", havingValue = "true")
+@EnableConfigurationProperties({DataSourceProperties.class, StreamProperties.class})
+public class StreamDataSourceConfiguration {
+
+    @Bean(defaultCandidate = false)
+    public HikariDataSource streamDataSource(StreamProperties streamProperties, DataSourceProperties properties,
+                                             ObjectProvider<JdbcConnectionDetails> connectionDetails,
+                                             Environment environment) {
+        HikariDataSource dataSource = DataSourceBuilder.create(properties.getClassLoader())
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(properties.determineUrl())
+                .username(properties.determineUsername())
+                .password(properties.determinePassword())
+                .build();
+
+        // Connection details from Docker Compose win over the spring.datasource properties
+        connectionDetails.ifAvailable(details -> {
+            dataSource.setJdbcUrl(details.getJdbcUrl());
+            dataSource.setUsername(details.getUsername());
+            dataSource.setPassword(details.getPassword());
+            dataSource.setDriverClassName(details.getDriverClassName());
+        });
+
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        streamProperties.properties().forEach(dataSource::addDataSourceProperty);
+        dataSource.setMaximumPoolSize(streamProperties.maximumPoolSize());
+        dataSource.setMinimumIdle(0);
+        dataSource.setPoolName("stream");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+}
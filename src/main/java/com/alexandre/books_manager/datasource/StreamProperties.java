@@ -0,0 +1,23 @@
+package com.alexandre.books_manager.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+/**
+ * The connection pool long reads such as the catalog export stream through, bound from
+ * {@code books-manager.datasource.stream.*}.
+ *
+ * @param enabled         whether streams get a pool of their own; otherwise they read from the application data
+ *                        source
+ * @param properties      driver properties of this pool only, on top of the primary's settings, e.g.
+ *                        {@code useCursorFetch=true} so that MySQL hands the rows over in chunks
+ * @param maximumPoolSize the number of streams reading at once; other streams wait for a connection
+ */
+@ConfigurationProperties("books-manager.datasource.stream")
+public record StreamProperties(
+        boolean enabled,
+        @DefaultValue Map<String, String> properties,
+        @DefaultValue("2") int maximumPoolSize
+) {}
@@ -0,0 +1,84 @@
+package com.alexandre.books_manager.diagnostics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logs the virtual threads that stay pinned to their carrier longer than a threshold, with the stack that
+ * pinned them. A virtual thread blocking inside a {@code synchronized} block or a native frame cannot unmount,
+ * so a pinned section on the JDBC path holds a carrier for the whole database round-trip.
+ *
+ * <p>Pinning is reported by the JDK as {@code jdk.VirtualThreadPinned} flight recorder events, which this
+ * monitor streams while the application runs. Enable it with
+ * {@code books-manager.diagnostics.pinned-threads.enabled=true}.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "books-manager.diagnostics.pinned-threads.enabled", havingValue = "true")
+public class PinnedThreadMonitor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PinnedThreadMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 20;
+
+    private final Duration threshold;
+    private final AtomicLong pinnedCount = new AtomicLong();
+    private RecordingStream recording;
+
+    public PinnedThreadMonitor(@Value("${books-manager.diagnostics.pinned-threads.threshold:20ms}") Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    @PostConstruct
+    void start() {
+        recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::report);
+        recording.startAsync();
+    }
+
+    @PreDestroy
+    void stop() {
+        recording.close();
+    }
+
+    /**
+     * @return how many pinned sections have been reported since the monitor started
+     */
+    public long getPinnedCount() {
+        return pinnedCount.get();
+    }
+
+    private void report(RecordedEvent event) {
+        pinnedCount.incrementAndGet();
+
+        if (!LOGGER.isWarnEnabled()) {
+            return;
+        }
+
+        StringBuilder stack = new StringBuilder();
+
+        if (event.getStackTrace() != null) {
+            event.getStackTrace().getFrames().stream()
+                    .limit(LOGGED_FRAMES)
+                    .map(PinnedThreadMonitor::describe)
+                    .forEach(frame -> stack.append(System.lineSeparator()).append("\tat ").append(frame));
+        }
+
+        LOGGER.warn("Virtual thread pinned to its carrier for {} ms{}", event.getDuration().toMillis(), stack);
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + "(line " + frame.getLineNumber() + ")";
+    }
+}
@@ -0,0 +1,104 @@
+package com.alexandre.books_manager.diagnostics;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import ch.qos.logback.core.rolling.SizeAndTimeBasedRollingPolicy;
+import ch.qos.logback.core.util.FileSize;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.logging.logback.StructuredLogEncoder;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The appenders of the SQL log, attached to the {@link SqlLoggingListener} logger only while the SQL log is
+ * enabled, so that its file is not even created otherwise.
+ *
+ * <p>The events go through an asynchronous appender: the request thread puts them in a bounded queue, which is
+ * preallocated, and drops them rather than wait when the queue is full. The file, one structured JSON line per
+ * event, is written by the appender's thread and rolled daily or every 50 MB.</p>
+ */
+final class SqlLogAppenders implements AutoCloseable {
+    static final String APPENDER_NAME = "SQL_ASYNC";
+
+    private static final int QUEUE_SIZE = 8192;
+    private static final FileSize MAX_FILE_SIZE = FileSize.valueOf("50MB");
+    private static final int MAX_HISTORY_DAYS = 7;
+    private static final FileSize TOTAL_SIZE_CAP = FileSize.valueOf("1GB");
+
+    private final Logger logger;
+    private final Level configuredLevel;
+    private final AsyncAppender appender;
+
+    private SqlLogAppenders(Logger logger, Level configuredLevel, AsyncAppender appender) {
+        this.logger = logger;
+        this.configuredLevel = configuredLevel;
+        this.appender = appender;
+    }
+
+    /**
+     * Starts the appenders and sends the SQL events to them only. The logger logs from {@code INFO} on unless
+     * its level is configured.
+     */
+    static SqlLogAppenders attach(SqlLogProperties properties) {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+
+        StructuredLogEncoder encoder = new StructuredLogEncoder();
+        encoder.setContext(context);
+        encoder.setFormat(properties.format());
+        encoder.setCharset(StandardCharsets.UTF_8);
+        encoder.start();
+
+        RollingFileAppender<ILoggingEvent> file = new RollingFileAppender<>();
+        file.setContext(context);
+        file.setName("SQL_FILE");
+        file.setFile(properties.file());
+        file.setEncoder(encoder);
+
+        SizeAndTimeBasedRollingPolicy<ILoggingEvent> rollingPolicy = new SizeAndTimeBasedRollingPolicy<>();
+        rollingPolicy.setContext(context);
+        rollingPolicy.setParent(file);
+        rollingPolicy.setFileNamePattern(properties.file() + ".%d{yyyy-MM-dd}.%i.gz");
+        rollingPolicy.setMaxFileSize(MAX_FILE_SIZE);
+        rollingPolicy.setMaxHistory(MAX_HISTORY_DAYS);
+        rollingPolicy.setTotalSizeCap(TOTAL_SIZE_CAP);
+        rollingPolicy.start();
+        file.setRollingPolicy(rollingPolicy);
+        file.start();
+
+        AsyncAppender appender = new AsyncAppender();
+        appender.setContext(context);
+        appender.setName(APPENDER_NAME);
+        appender.setQueueSize(QUEUE_SIZE);
+        appender.setDiscardingThreshold(0);
+        appender.setNeverBlock(true);
+        appender.setIncludeCallerData(false);
+        appender.addAppender(file);
+        appender.start();
+
+        Logger logger = context.getLogger(SqlLoggingListener.class);
+        Level configuredLevel = logger.getLevel();
+
+        if (configuredLevel == null) {
+            logger.setLevel(Level.INFO);
+        }
+
+        logger.addAppender(appender);
+        logger.setAdditive(false);
+        return new SqlLogAppenders(logger, configuredLevel, appender);
+    }
+
+    /**
+     * Gives the SQL events back to the root appenders, and writes the queued ones before closing the file.
+     */
+    @Override
+    public void close() {
+        logger.setAdditive(true);
+        logger.setLevel(configuredLevel);
+        logger.detachAppender(appender);
+        appender.stop();
+    }
+}
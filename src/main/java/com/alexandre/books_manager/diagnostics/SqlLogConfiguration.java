@@ -0,0 +1,66 @@
+package com.alexandre.books_manager.diagnostics;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Logs SQL statements through a proxy of the application data source ({@link SqlLoggingListener}), once
+ * enabled with {@code books-manager.sql-log.enabled=true}. The events go to their own asynchronous appender
+ * ({@link SqlLogAppenders}), attached along with the proxy, so a request thread hands them over without waiting
+ * for the file.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "books-manager.sql-log.enabled", havingValue = "true")
+public class SqlLogConfiguration {
+    private static final String DATA_SOURCE_BEAN_NAME = "dataSource";
+
+    @Bean
+    static SqlLoggingDataSourcePostProcessor sqlLoggingDataSourcePostProcessor(Environment environment) {
+        return new SqlLoggingDataSourcePostProcessor(Binder.get(environment)
+                .bindOrCreate("books-manager.sql-log", SqlLogProperties.class));
+    }
+
+    /**
+     * Wraps the data source in the logging proxy and attaches the appenders of the SQL log until the context
+     * closes.
+     */
+    static final class SqlLoggingDataSourcePostProcessor implements BeanPostProcessor, DisposableBean {
+        private final SqlLogProperties properties;
+        private SqlLogAppenders appenders;
+
+        private SqlLoggingDataSourcePostProcessor(SqlLogProperties properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (DATA_SOURCE_BEAN_NAME.equals(beanName) && bean instanceof DataSource dataSource) {
+                if (appenders == null) {
+                    appenders = SqlLogAppenders.attach(properties);
+                }
+
+                return ProxyDataSourceBuilder.create(dataSource)
+                        .name(DATA_SOURCE_BEAN_NAME)
+                        .listener(new SqlLoggingListener(properties))
+                        .build();
+            }
+
+            return bean;
+        }
+
+        @Override
+        public void destroy() {
+            if (appenders != null) {
+                appenders.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.alexandre.books_manager.diagnostics;
+
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Which SQL statements are logged, bound from {@code books-manager.sql-log.*}.
+ *
+ * @param sampleRate    the share of the statements faster than {@code slowThreshold} that are logged, from 0 to 1
+ * @param slowThreshold how long a statement may run before it is always logged, with its bind parameters
+ * @param file          the file the statements are written to, rolled next to it
+ * @param format        the structured format of its lines: {@code logstash}, {@code ecs} or {@code gelf}
+ */
+public record SqlLogProperties(
+        @DefaultValue("0") double sampleRate,
+        @DefaultValue("200ms") Duration slowThreshold,
+        @DefaultValue("logs/sql.json") String file,
+        @DefaultValue("logstash") String format
+) {}
@@ -0,0 +1,94 @@
+package com.alexandre.books_manager.diagnostics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.spi.LoggingEventBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logs the SQL statements slower than a threshold, with their bind parameters and duration, and a sample of
+ * the others without their parameters. Each statement is one event whose details are key-value pairs, so a
+ * structured encoder writes them as fields of its JSON line.
+ *
+ * <p>Unlike {@code spring.jpa.show-sql}, which formats and prints every statement on the request thread,
+ * statements that are neither slow nor sampled cost one comparison and one random number.</p>
+ */
+class SqlLoggingListener implements QueryExecutionListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SqlLoggingListener.class);
+    private static final int LOGGED_PARAMETER_SETS = 10;
+
+    private final double sampleRate;
+    private final long slowThresholdMillis;
+
+    SqlLoggingListener(SqlLogProperties properties) {
+        this.sampleRate = properties.sampleRate();
+        this.slowThresholdMillis = properties.slowThreshold().toMillis();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        boolean slow = execInfo.getElapsedTime() >= slowThresholdMillis;
+
+        if (slow ? !LOGGER.isWarnEnabled() : !sampled()) {
+            return;
+        }
+
+        for (QueryInfo query : queryInfoList) {
+            LoggingEventBuilder event = (slow ? LOGGER.atWarn() : LOGGER.atInfo())
+                    .addKeyValue("sql", query.getQuery())
+                    .addKeyValue("duration_ms", execInfo.getElapsedTime())
+                    .addKeyValue("success", execInfo.isSuccess())
+                    .addKeyValue("connection", execInfo.getConnectionId());
+
+            if (execInfo.isBatch()) {
+                event.addKeyValue("batch_size", execInfo.getBatchSize());
+            }
+
+            if (slow) {
+                event.addKeyValue("parameters", parameters(query));
+            }
+
+            event.log(slow ? "Slow SQL statement" : "SQL statement");
+        }
+    }
+
+    private boolean sampled() {
+        return sampleRate > 0 && LOGGER.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * @return the bind parameters of the statement, one list per batch entry, up to
+     * {@value #LOGGED_PARAMETER_SETS} entries
+     */
+    private static List<List<String>> parameters(QueryInfo query) {
+        List<List<String>> parameterSets = new ArrayList<>();
+
+        for (List<ParameterSetOperation> operations : query.getParametersList()) {
+            if (parameterSets.size() == LOGGED_PARAMETER_SETS) {
+                break;
+            }
+
+            List<String> values = new ArrayList<>(operations.size());
+
+            for (ParameterSetOperation operation : operations) {
+                values.add(ParameterSetOperation.isSetNullParameterOperation(operation) ? null
+                        : String.valueOf(operation.getArgs()[1]));
+            }
+
+            parameterSets.add(values);
+        }
+
+        return parameterSets;
+    }
+}
@@ -0,0 +1,13 @@
+package com.alexandre.books_manager.dto;
+
+public record BookBatchResultDTO(
+        String batchNumber,
+        String isbn,
+        Status status
+) {
+    public enum Status {
+        CREATED,
+        CONFLICT,
+        INVALID_EDITION
+    }
+}
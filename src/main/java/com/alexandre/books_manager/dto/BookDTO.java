@@ -1,5 +1,6 @@
 package com.alexandre.books_manager.dto;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -8,5 +9,5 @@ public record BookDTO(
         @NotBlank String publisher,
         @NotNull @Positive Integer publishedYear,
         @NotBlank String batchNumber,
-        @NotNull BookEditionDTO edition
+        @NotNull @Valid BookEditionDTO edition
 ) {}
@@ -0,0 +1,8 @@
+package com.alexandre.books_manager.dto;
+
+import java.util.List;
+
+public record BookEditionSuggestionsDTO(
+        List<String> titles,
+        List<String> authorNames
+) {}
@@ -0,0 +1,7 @@
+package com.alexandre.books_manager.dto;
+
+public record RecallCheckDTO(
+        String batchNumber,
+        String isbn,
+        boolean affected
+) {}
@@ -0,0 +1,8 @@
+package com.alexandre.books_manager.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record ScannedBookDTO(
+        @NotBlank String batchNumber,
+        @NotBlank String isbn
+) {}
@@ -0,0 +1,7 @@
+package com.alexandre.books_manager.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,35 @@
+package com.alexandre.books_manager.metrics;
+
+import com.alexandre.books_manager.datasource.ConcurrencyLimitingDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Gauges of the connection limit in front of the pools: how many connections may still be opened, and how
+ * many callers wait for one. Callers waiting here never reach the pool, so the pool's own pending count stays
+ * low even when the application is saturated.
+ */
+class ConcurrencyLimitMetrics implements MeterBinder {
+    private final ConcurrencyLimitingDataSource dataSource;
+
+    ConcurrencyLimitMetrics(ConcurrencyLimitingDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("books_manager.datasource.connections.max", dataSource,
+                        ConcurrencyLimitingDataSource::maxConcurrency)
+                .description("Connections the application may hold at once")
+                .register(registry);
+        Gauge.builder("books_manager.datasource.connections.available", dataSource,
+                        ConcurrencyLimitingDataSource::availablePermits)
+                .description("Connections that may still be opened before callers wait")
+                .register(registry);
+        Gauge.builder("books_manager.datasource.connections.waiting", dataSource,
+                        ConcurrencyLimitingDataSource::waitingCallers)
+                .description("Callers waiting for a connection")
+                .register(registry);
+    }
+}
@@ -0,0 +1,93 @@
+package com.alexandre.books_manager.metrics;
+
+import com.alexandre.books_manager.datasource.ConcurrencyLimitingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Adds the application's own meters to those of Spring Boot (HTTP requests, HikariCP pools, JVM), all scraped
+ * from {@code /actuator/prometheus}:
+ * <ul>
+ *     <li>{@code books_manager.service}: every call to a {@link com.alexandre.books_manager.service.GenericService}
+ *     implementation ({@link ServiceMetricsAspect});</li>
+ *     <li>{@code books_manager.sql.statements}: every SQL statement, through a proxy of the data source
+ *     ({@link SqlMetricsListener});</li>
+ *     <li>{@code books_manager.sql.statements.per.request} and {@code books_manager.sql.time.per.request}: the
+ *     SQL statements of each request ({@link RequestSqlMetricsFilter});</li>
+ *     <li>{@code hibernate.*}: the session statistics of Hibernate, which it only gathers when asked to;</li>
+ *     <li>{@code books_manager.datasource.connections.*}: the connection limit in front of the pools
+ *     ({@link ConcurrencyLimitMetrics}).</li>
+ * </ul>
+ *
+ * <p>With {@code books-manager.metrics.enabled=false}, none of the above is set up: statements go straight to
+ * the pool, or to the budget of {@link SqlBudgetConfiguration}, and Hibernate keeps no statistics.</p>
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "books-manager.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class MetricsConfiguration {
+    private static final String DATA_SOURCE_BEAN_NAME = "dataSource";
+
+    @Bean
+    static BeanPostProcessor sqlMetricsDataSourcePostProcessor(ObjectProvider<MeterRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (DATA_SOURCE_BEAN_NAME.equals(beanName) && bean instanceof DataSource dataSource) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(DATA_SOURCE_BEAN_NAME)
+                            .listener(new SqlMetricsListener(registry::getObject))
+                            .build();
+                }
+
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<RequestSqlMetricsFilter> requestSqlMetricsFilter(MeterRegistry registry) {
+        FilterRegistrationBean<RequestSqlMetricsFilter> registration =
+                new FilterRegistrationBean<>(new RequestSqlMetricsFilter(registry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    ServiceMetricsAspect serviceMetricsAspect(MeterRegistry registry) {
+        return new ServiceMetricsAspect(registry);
+    }
+
+    @Bean
+    MeterBinder concurrencyLimitMetrics(DataSource dataSource) {
+        // DataSourceUnwrapper only looks through the statement proxies (metrics, budget) for interfaces
+        DataSource target = dataSource;
+
+        while (target instanceof ProxyDataSource proxy) {
+            target = proxy.getDataSource();
+        }
+
+        ConcurrencyLimitingDataSource limited =
+                DataSourceUnwrapper.unwrap(target, ConcurrencyLimitingDataSource.class);
+        return limited != null ? new ConcurrencyLimitMetrics(limited) : registry -> {
+        };
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer hibernateStatisticsCustomizer() {
+        return properties -> properties.putIfAbsent(AvailableSettings.GENERATE_STATISTICS, "true");
+    }
+}
@@ -0,0 +1,58 @@
+package com.alexandre.books_manager.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how many SQL statements each request ran, and how long they took, tagged with the method and URI
+ * template of the endpoint like {@code http.server.requests}. Requests that no handler matched are not
+ * recorded, so that unknown URIs do not create new series.
+ */
+class RequestSqlMetricsFilter extends OncePerRequestFilter {
+    static final String STATEMENTS_NAME = "books_manager.sql.statements.per.request";
+    static final String TIME_NAME = "books_manager.sql.time.per.request";
+
+    private final MeterRegistry registry;
+
+    RequestSqlMetricsFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatements statements = SqlStatements.startRequest();
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SqlStatements.clearRequest();
+
+            if (request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String uri) {
+                Tags tags = Tags.of("method", request.getMethod(), "uri", uri);
+                DistributionSummary.builder(STATEMENTS_NAME)
+                        .description("SQL statements run by a request")
+                        .baseUnit("statements")
+                        .tags(tags)
+                        .register(registry)
+                        .record(statements.count());
+                Timer.builder(TIME_NAME)
+                        .description("Time a request spent running SQL statements")
+                        .tags(tags)
+                        .register(registry)
+                        .record(statements.nanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
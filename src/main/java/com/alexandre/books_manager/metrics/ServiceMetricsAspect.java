@@ -0,0 +1,47 @@
+package com.alexandre.books_manager.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Times every public method of the {@link com.alexandre.books_manager.service.GenericService} implementations,
+ * tagged with the service, the method and the exception thrown, if any. The aspect wraps the transaction, so
+ * the time includes the commit and what runs after it.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+class ServiceMetricsAspect {
+    static final String TIMER_NAME = "books_manager.service";
+
+    private final MeterRegistry registry;
+
+    ServiceMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * com.alexandre.books_manager.service.GenericService+.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String exception = "none";
+
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(TIMER_NAME)
+                    .description("Calls to the services")
+                    .tag("service", ClassUtils.getUserClass(joinPoint.getTarget()).getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(registry));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.alexandre.books_manager.metrics;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * Checks the SQL statements of each request and transaction against the budgets of
+ * {@code books-manager.sql-budget.*} ({@link SqlBudgetProperties}), through a proxy of the data source of its
+ * own ({@link SqlBudgetListener}). The budget only depends on {@code books-manager.sql-budget.mode}: it still
+ * holds with {@code books-manager.metrics.enabled=false}, and with {@code off} the data source is not wrapped
+ * and requests are not counted.
+ */
+@Configuration(proxyBeanMethods = false)
+public class SqlBudgetConfiguration {
+    private static final String DATA_SOURCE_BEAN_NAME = "dataSource";
+
+    @Bean
+    static BeanPostProcessor sqlBudgetDataSourcePostProcessor(Environment environment) {
+        SqlBudgetProperties budget = sqlBudgetProperties(environment);
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (budget.mode() != SqlBudgetProperties.Mode.OFF
+                        && DATA_SOURCE_BEAN_NAME.equals(beanName) && bean instanceof DataSource dataSource) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(DATA_SOURCE_BEAN_NAME)
+                            .listener(new SqlBudgetListener(budget))
+                            .build();
+                }
+
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlBudgetFilter> sqlBudgetFilter(Environment environment) {
+        FilterRegistrationBean<SqlBudgetFilter> registration = new FilterRegistrationBean<>(new SqlBudgetFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        registration.setEnabled(sqlBudgetProperties(environment).mode() != SqlBudgetProperties.Mode.OFF);
+        return registration;
+    }
+
+    @Bean
+    WebMvcConfigurer sqlBudgetConfigurer(Environment environment) {
+        SqlBudgetProperties budget = sqlBudgetProperties(environment);
+
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                if (budget.mode() != SqlBudgetProperties.Mode.OFF) {
+                    registry.addInterceptor(new SqlBudgetInterceptor(budget));
+                }
+            }
+        };
+    }
+
+    private static SqlBudgetProperties sqlBudgetProperties(Environment environment) {
+        return Binder.get(environment).bindOrCreate("books-manager.sql-budget", SqlBudgetProperties.class);
+    }
+}
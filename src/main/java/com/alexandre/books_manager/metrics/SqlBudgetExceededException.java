@@ -0,0 +1,11 @@
+package com.alexandre.books_manager.metrics;
+
+/**
+ * Thrown by a SQL statement that runs over the budget of its request or transaction, when the budget is
+ * enforced with {@code books-manager.sql-budget.mode=fail}.
+ */
+public class SqlBudgetExceededException extends RuntimeException {
+    public SqlBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,37 @@
+package com.alexandre.books_manager.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Counts the SQL statements of each request against its budget, from zero, on the request thread. These are
+ * counted apart from those of {@link RequestSqlMetricsFilter}, so the budget holds whether the metrics are
+ * enabled or not.
+ */
+class SqlBudgetFilter extends OncePerRequestFilter {
+    private static final ThreadLocal<SqlStatements> REQUEST = new ThreadLocal<>();
+
+    /**
+     * @return the statements of the current request, or {@code null} outside of a request
+     */
+    static SqlStatements currentRequest() {
+        return REQUEST.get();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        REQUEST.set(new SqlStatements("request"));
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            REQUEST.remove();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.alexandre.books_manager.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Gives the statements of a request the budget of its endpoint, once the endpoint is known.
+ */
+class SqlBudgetInterceptor implements HandlerInterceptor {
+    private final SqlBudgetProperties properties;
+
+    SqlBudgetInterceptor(SqlBudgetProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        SqlStatements statements = SqlBudgetFilter.currentRequest();
+
+        if (statements != null && request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String uri) {
+            statements.limit(request.getMethod() + " " + uri, properties.maxStatements(request.getMethod(), uri),
+                    properties.maxRepetitions());
+        }
+
+        return true;
+    }
+}
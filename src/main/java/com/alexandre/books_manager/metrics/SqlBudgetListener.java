@@ -0,0 +1,75 @@
+package com.alexandre.books_manager.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds every statement run through the data source to the statements of the current request and transaction.
+ * A statement running over the budget of either is reported with the application code that ran it: logged
+ * with {@link SqlBudgetProperties.Mode#WARN}, failed with {@link SqlBudgetProperties.Mode#FAIL}.
+ */
+class SqlBudgetListener implements QueryExecutionListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SqlBudgetListener.class);
+    private static final String APPLICATION_PACKAGE = "com.alexandre.books_manager.";
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private final SqlBudgetProperties budget;
+
+    SqlBudgetListener(SqlBudgetProperties budget) {
+        this.budget = budget;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        String sql = queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery();
+        long elapsedNanos = TimeUnit.MILLISECONDS.toNanos(execInfo.getElapsedTime());
+
+        SqlStatements request = SqlBudgetFilter.currentRequest();
+        String violation = request != null ? request.record(sql, execInfo.isBatch(), elapsedNanos) : null;
+
+        SqlStatements transaction = SqlStatements.currentTransaction(budget.maxRepetitions());
+
+        if (transaction != null) {
+            String transactionViolation = transaction.record(sql, execInfo.isBatch(), elapsedNanos);
+            violation = violation != null ? violation : transactionViolation;
+        }
+
+        if (violation != null) {
+            report(violation);
+        }
+    }
+
+    private void report(String violation) {
+        String message = violation + ", from " + callSite();
+
+        if (budget.mode() == SqlBudgetProperties.Mode.FAIL) {
+            throw new SqlBudgetExceededException(message);
+        }
+
+        LOGGER.warn(message);
+    }
+
+    /**
+     * @return the innermost frame of the application outside of this package, which ran the statement
+     */
+    private static String callSite() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE)
+                        && !frame.getClassName().startsWith(SqlBudgetListener.class.getPackageName())
+                        && !frame.getClassName().contains("$$"))
+                .findFirst()
+                .map(StackWalker.StackFrame::toStackTraceElement)
+                .map(StackTraceElement::toString)
+                .orElse("outside of the application"));
+    }
+}
@@ -0,0 +1,60 @@
+package com.alexandre.books_manager.metrics;
+
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * How many SQL statements requests and transactions may run, bound from {@code books-manager.sql-budget.*}.
+ *
+ * @param mode           what to do with a request or transaction running over its budget
+ * @param maxStatements  how many statements a request may run, unless its endpoint has its own budget
+ * @param maxRepetitions how many times a request or a transaction may run the same statement, with
+ *                       any parameters, before it is reported as a probable N+1
+ * @param endpoints      the budgets of particular endpoints
+ */
+public record SqlBudgetProperties(
+        @DefaultValue("warn") Mode mode,
+        @DefaultValue("50") int maxStatements,
+        @DefaultValue("10") int maxRepetitions,
+        @DefaultValue List<Endpoint> endpoints
+) {
+
+    /**
+     * @return the statements a request to the endpoint may run
+     */
+    int maxStatements(String method, String uri) {
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.matches(method, uri)) {
+                return endpoint.maxStatements();
+            }
+        }
+
+        return maxStatements;
+    }
+
+    public enum Mode {
+        /**
+         * Statements are not checked.
+         */
+        OFF,
+        /**
+         * Logs a warning with the statement and where it was run from.
+         */
+        WARN,
+        /**
+         * Fails the statement with a {@link SqlBudgetExceededException}, for tests.
+         */
+        FAIL
+    }
+
+    /**
+     * @param endpoint      the method and URI template of the endpoint, as in {@code GET /api/v1/books}
+     * @param maxStatements how many statements a request to the endpoint may run
+     */
+    public record Endpoint(String endpoint, int maxStatements) {
+        boolean matches(String method, String uri) {
+            return endpoint.equals(method + " " + uri);
+        }
+    }
+}
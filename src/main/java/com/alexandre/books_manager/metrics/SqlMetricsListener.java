@@ -0,0 +1,98 @@
+package com.alexandre.books_manager.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Times every statement run through the data source, by statement type and outcome, and adds it to the
+ * statements of the current request. A JDBC batch counts as one statement, as it is one round-trip.
+ *
+ * <p>The registry is looked up on the first statement rather than when the data source is wrapped, which
+ * happens while bean post-processors are still being registered.</p>
+ */
+class SqlMetricsListener implements QueryExecutionListener {
+    static final String TIMER_NAME = "books_manager.sql.statements";
+
+    private static final String START_NANOS = SqlMetricsListener.class.getName() + ".start";
+
+    private final Supplier<MeterRegistry> registry;
+    private volatile Timers timers;
+
+    SqlMetricsListener(Supplier<MeterRegistry> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long start = execInfo.getCustomValue(START_NANOS, Long.class);
+
+        if (start == null) {
+            return;
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        String sql = queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery();
+        QueryType type = sql.isEmpty() ? QueryType.OTHER : QueryUtils.getQueryType(sql);
+
+        timers().get(type, execInfo.isSuccess()).record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        SqlStatements request = SqlStatements.currentRequest();
+
+        if (request != null) {
+            request.record(sql, execInfo.isBatch(), elapsedNanos);
+        }
+    }
+
+    private Timers timers() {
+        Timers current = timers;
+
+        if (current == null) {
+            // Registering twice on a race returns the same meters
+            current = new Timers(registry.get());
+            timers = current;
+        }
+
+        return current;
+    }
+
+    private static final class Timers {
+        private final Map<QueryType, Timer> succeeded = new EnumMap<>(QueryType.class);
+        private final Map<QueryType, Timer> failed = new EnumMap<>(QueryType.class);
+
+        private Timers(MeterRegistry registry) {
+            for (QueryType type : QueryType.values()) {
+                succeeded.put(type, timer(registry, type, "success"));
+                failed.put(type, timer(registry, type, "error"));
+            }
+        }
+
+        private Timer get(QueryType type, boolean success) {
+            return (success ? succeeded : failed).get(type);
+        }
+
+        private static Timer timer(MeterRegistry registry, QueryType type, String outcome) {
+            return Timer.builder(TIMER_NAME)
+                    .description("SQL statements run through the application data source")
+                    .tag("type", type.name().toLowerCase(Locale.ROOT))
+                    .tag("outcome", outcome)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.alexandre.books_manager.metrics;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The SQL statements run so far by a request or a transaction: how many, for how long, and how many times
+ * each statement was repeated. The statements of a request are those run on its thread, so statements run
+ * on another thread, such as a streamed response, are not counted. The requests counted here, from
+ * {@link #startRequest}, are those of the metrics; the budget counts its own ({@link SqlBudgetFilter}).
+ *
+ * <p>A scope may be given a budget: {@link #record} then reports the statement that runs over it, and the
+ * first statement repeated more than {@code maxRepetitions} times, which is usually a lazy association or a
+ * lookup in a loop. JDBC batches are counted once and never count as repetitions, and neither do id
+ * allocations from the {@code *_seq} sequences, which a large batch of inserts legitimately repeats.</p>
+ */
+public final class SqlStatements {
+    private static final ThreadLocal<SqlStatements> REQUEST = new ThreadLocal<>();
+    private static final Object TRANSACTION_KEY = SqlStatements.class.getName() + ".transaction";
+    private static final String ID_SEQUENCE_SUFFIX = "_seq";
+
+    private String scope;
+    private int maxStatements = Integer.MAX_VALUE;
+    private int maxRepetitions = Integer.MAX_VALUE;
+    private int count;
+    private long nanos;
+    private Map<String, Integer> repetitions;
+
+    SqlStatements(String scope) {
+        this.scope = scope;
+    }
+
+    /**
+     * Starts counting the statements of the request on the current thread from zero.
+     */
+    public static SqlStatements startRequest() {
+        SqlStatements statements = new SqlStatements("request");
+        REQUEST.set(statements);
+        return statements;
+    }
+
+    /**
+     * @return the statements of the current request, or {@code null} outside of a request
+     */
+    public static SqlStatements currentRequest() {
+        return REQUEST.get();
+    }
+
+    public static void clearRequest() {
+        REQUEST.remove();
+    }
+
+    /**
+     * @return the statements of the current transaction, counted from its first statement until it
+     * completes, or {@code null} outside of a transaction
+     */
+    static SqlStatements currentTransaction(int maxRepetitions) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+
+        SqlStatements statements = (SqlStatements) TransactionSynchronizationManager.getResource(TRANSACTION_KEY);
+
+        if (statements == null) {
+            String name = TransactionSynchronizationManager.getCurrentTransactionName();
+            statements = new SqlStatements("transaction " + (name != null ? name : "(unnamed)"));
+            statements.maxRepetitions = maxRepetitions;
+            TransactionSynchronizationManager.bindResource(TRANSACTION_KEY, statements);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_KEY);
+                }
+            });
+        }
+
+        return statements;
+    }
+
+    /**
+     * Sets the budget of the statements, including those already run.
+     *
+     * @param scope          what ran the statements, for the reports
+     * @param maxStatements  how many statements may run
+     * @param maxRepetitions how many times a statement may run
+     */
+    void limit(String scope, int maxStatements, int maxRepetitions) {
+        this.scope = scope;
+        this.maxStatements = maxStatements;
+        this.maxRepetitions = maxRepetitions;
+    }
+
+    /**
+     * Counts a statement.
+     *
+     * @return why the statement runs over the budget, or {@code null} when it is within it
+     */
+    String record(String sql, boolean batch, long elapsedNanos) {
+        count++;
+        nanos += elapsedNanos;
+
+        if (count == maxStatements + 1) {
+            return scope + " ran more than " + maxStatements + " SQL statements";
+        }
+
+        if (batch || maxRepetitions == Integer.MAX_VALUE || sql.contains(ID_SEQUENCE_SUFFIX)) {
+            return null;
+        }
+
+        if (repetitions == null) {
+            repetitions = new HashMap<>();
+        }
+
+        int times = repetitions.merge(sql, 1, Integer::sum);
+        return times == maxRepetitions + 1
+                ? scope + " ran the same SQL statement more than " + maxRepetitions + " times: " + sql
+                : null;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public long nanos() {
+        return nanos;
+    }
+}
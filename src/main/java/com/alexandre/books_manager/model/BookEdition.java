@@ -1,16 +1,28 @@
 package com.alexandre.books_manager.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = BookEdition.CACHE_REGION)
 @Table(name = "book_editions")
 public class BookEdition {
+    public static final String CACHE_REGION = "book-editions";
+
     @Id
     @Column(nullable = false, unique = true, updatable = false)
     private String isbn;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     @Column(nullable = false)
     private String title;
 
@@ -53,4 +65,12 @@ public class BookEdition {
     public void setIsbn(String isbn) {
         this.isbn = isbn;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -1,9 +1,11 @@
 package com.alexandre.books_manager.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 @Entity
 @Table(
@@ -12,7 +14,8 @@ import java.util.List;
 )
 public class DefectEdition {
     @Id
-    @GeneratedValue(strategy=GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "defect_editions_seq")
+    @SequenceGenerator(name = "defect_editions_seq", sequenceName = "defect_editions_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -22,11 +25,17 @@ public class DefectEdition {
     @JoinColumn(name = "edition_isbn", nullable = false)
     private BookEdition edition;
 
+    /**
+     * Keyed by {@code (defect_id, batch_number)}: adding or removing a batch writes only that row, and the
+     * index on {@code batch_number} finds the defects affecting a batch without scanning the table.
+     */
     @ElementCollection
+    @Fetch(FetchMode.SUBSELECT)
     @CollectionTable(name = "affected_batches",
-            joinColumns = @JoinColumn(name = "defect_code"))
-    @Column(name = "batch_number")
-    private List<String> affectedBatches = new ArrayList<>();
+            joinColumns = @JoinColumn(name = "defect_id", foreignKey = @ForeignKey(name = "fk_affected_batches_defect")),
+            indexes = @Index(name = "idx_affected_batches_batch_number", columnList = "batch_number"))
+    @Column(name = "batch_number", nullable = false)
+    private Set<String> affectedBatches = new LinkedHashSet<>();
 
     public Long getId() {
         return id;
@@ -44,11 +53,11 @@ public class DefectEdition {
         this.defectCode = defectCode;
     }
 
-    public List<String> getAffectedBatches() {
+    public Set<String> getAffectedBatches() {
         return affectedBatches;
     }
 
-    public void setAffectedBatches(List<String> affectedBatches) {
+    public void setAffectedBatches(Set<String> affectedBatches) {
         this.affectedBatches = affectedBatches;
     }
 
@@ -0,0 +1,45 @@
+package com.alexandre.books_manager.model;
+
+import jakarta.persistence.*;
+
+/**
+ * How many times books and defects were changed through one running instance. Each instance only writes its
+ * own row, and the others sum the rows to find out whether anything changed since they last looked.
+ */
+@Entity
+@Table(name = "instance_changes")
+public class InstanceChanges {
+    @Id
+    @Column(nullable = false, updatable = false, length = 36)
+    private String instanceId;
+
+    @Column(nullable = false)
+    private Long bookChanges = 0L;
+
+    @Column(nullable = false)
+    private Long defectChanges = 0L;
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void setInstanceId(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    public Long getBookChanges() {
+        return bookChanges;
+    }
+
+    public void setBookChanges(Long bookChanges) {
+        this.bookChanges = bookChanges;
+    }
+
+    public Long getDefectChanges() {
+        return defectChanges;
+    }
+
+    public void setDefectChanges(Long defectChanges) {
+        this.defectChanges = defectChanges;
+    }
+}
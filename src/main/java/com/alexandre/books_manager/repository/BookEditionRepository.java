@@ -1,13 +1,102 @@
 package com.alexandre.books_manager.repository;
 
 import com.alexandre.books_manager.model.BookEdition;
+import jakarta.persistence.QueryHint;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BookEditionRepository extends CrudRepository<BookEdition, String> {
-    Optional<BookEdition> findByIsbn(String isbn);
-    void deleteByIsbn(String isbn);
+public interface BookEditionRepository extends CrudRepository<BookEdition, String>, BookEditionRepositoryCustom {
+    /**
+     * Looks an edition up by its id, so that it is served from the second-level cache when present there.
+     * A derived query on the same column would always go to the database.
+     */
+    default Optional<BookEdition> findByIsbn(String isbn) {
+        return findById(isbn);
+    }
+
+    /**
+     * Reads an edition from the database, skipping the second-level cache. Needed right after
+     * {@link #updateNonNullFields}: the cached edition is only evicted once the transaction completes.
+     */
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_SHARED_CACHE_RETRIEVE_MODE, value = "BYPASS"))
+    @Query("select e from BookEdition e where e.isbn = :isbn")
+    Optional<BookEdition> findUncachedByIsbn(String isbn);
+
+    @Query("select e.version from BookEdition e where e.isbn = :isbn")
+    Optional<Long> findVersionByIsbn(String isbn);
+
+    List<BookEdition> findAllByOrderByIsbnAsc(Limit limit);
+
+    @Query("select e.isbn as isbn, e.version as version from BookEdition e where e.isbn > :isbn order by e.isbn")
+    List<EditionVersion> findVersionsByIsbnGreaterThan(String isbn, Limit limit);
+
+    List<BookEdition> findByIsbnGreaterThanOrderByIsbnAsc(String isbn, Limit limit);
+
+    /**
+     * Sets the non-null values on the edition and bumps its version, in a single statement. When
+     * {@code version} is given, the row is only updated if it is still at that version.
+     *
+     * @return the number of updated rows: 0 when the edition does not exist or is at another version
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update BookEdition e set " +
+            "e.title = coalesce(:title, e.title), " +
+            "e.authorName = coalesce(:authorName, e.authorName), " +
+            "e.number = coalesce(:number, e.number), " +
+            "e.version = e.version + 1 " +
+            "where e.isbn = :isbn and (:version is null or e.version = :version)")
+    int updateNonNullFields(String isbn, String title, String authorName, Integer number, Long version);
+
+    /**
+     * Reads the title, author and version of the editions ordered by ISBN, starting right after {@code isbn},
+     * together with how many books each one has.
+     */
+    @Query("select e.isbn as isbn, e.title as title, e.authorName as authorName, e.version as version, " +
+            "count(b) as books from BookEdition e left join e.books b where e.isbn > :isbn " +
+            "group by e.isbn, e.title, e.authorName, e.version order by e.isbn")
+    List<EditionSummary> findSummariesByIsbnGreaterThan(String isbn, Limit limit);
+
+    /**
+     * Counts the editions and sums their versions, which every create, update and delete changes.
+     */
+    @Query("select count(e) as editions, coalesce(sum(e.version), 0) as versions from BookEdition e")
+    EditionsWatermark findWatermark();
+
+    @Modifying(clearAutomatically = true)
+    @Query("delete from BookEdition e where e.isbn = :isbn")
+    int deleteByIsbn(String isbn);
+
+    @Modifying(clearAutomatically = true)
+    @Query("delete from BookEdition e where e.isbn in :isbns " +
+            "and not exists (select b from Book b where b.edition = e) " +
+            "and not exists (select d from DefectEdition d where d.edition = e)")
+    int deleteUnusedByIsbnIn(Collection<String> isbns);
+
+    interface EditionSummary {
+        String getIsbn();
+        String getTitle();
+        String getAuthorName();
+        long getVersion();
+        long getBooks();
+    }
+
+    interface EditionVersion {
+        String getIsbn();
+        long getVersion();
+    }
+
+    interface EditionsWatermark {
+        long getEditions();
+        long getVersions();
+    }
 }
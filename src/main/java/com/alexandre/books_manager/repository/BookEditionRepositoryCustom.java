@@ -0,0 +1,13 @@
+package com.alexandre.books_manager.repository;
+
+public interface BookEditionRepositoryCustom {
+    /**
+     * Inserts an edition with a plain JDBC {@code INSERT}, bypassing the persistence context. A duplicate ISBN
+     * surfaces as a {@link org.springframework.dao.DataIntegrityViolationException} and leaves no half-persisted
+     * entity behind, so the caller can simply read the existing row afterwards.
+     *
+     * <p>Going around Hibernate also keeps the second-level cache intact: a native or HQL insert would evict
+     * the whole edition region, although a row that did not exist cannot be cached.</p>
+     */
+    void insert(String isbn, String title, String authorName, Integer number);
+}
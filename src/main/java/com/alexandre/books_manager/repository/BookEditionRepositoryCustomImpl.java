@@ -0,0 +1,20 @@
+package com.alexandre.books_manager.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class BookEditionRepositoryCustomImpl implements BookEditionRepositoryCustom {
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insert(String isbn, String title, String authorName, Integer number) {
+        jdbcTemplate.update(
+                "INSERT INTO book_editions (isbn, version, title, author_name, number) VALUES (?, 0, ?, ?, ?)",
+                isbn, title, authorName, number);
+    }
+}
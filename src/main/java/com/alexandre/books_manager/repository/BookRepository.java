@@ -1,14 +1,113 @@
 package com.alexandre.books_manager.repository;
 
 import com.alexandre.books_manager.model.Book;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Collection;
 import java.util.Optional;
 
+/**
+ * Read paths that end up in {@code BookConverter} load the edition in the same query, so converting
+ * a list of books does not issue one extra SELECT per book for its lazy {@code edition}.
+ */
 @Repository
-public interface BookRepository extends CrudRepository<Book, Long> {
+public interface BookRepository extends CrudRepository<Book, Long>, BookRepositoryCustom {
+    /**
+     * Number of rows the JDBC driver fetches per round-trip when streaming the catalog. On MySQL it only
+     * takes effect together with {@code useCursorFetch=true}, set on the stream pool by
+     * {@code books-manager.datasource.stream.properties}.
+     */
+    int STREAM_FETCH_SIZE = 1000;
+
+    @EntityGraph(attributePaths = "edition")
     Optional<Book> findByBatchNumberAndEditionIsbn(String batchNumber, String isbn);
-    void deleteByBatchNumberAndEditionIsbn(String batchNumber, String isbn);
+
+    /**
+     * Reads only the versions a book's representation depends on, to answer conditional requests without
+     * loading the book.
+     */
+    @Query("select b.version as version, e.version as editionVersion from Book b join b.edition e " +
+            "where b.batchNumber = :batchNumber and e.isbn = :isbn")
+    Optional<BookVersion> findVersionByBatchNumberAndEditionIsbn(String batchNumber, String isbn);
+
+    /**
+     * Sets the non-null values on the book and bumps its version, in a single statement. When versions are
+     * given, the row is only updated if the book and its edition are still at those versions.
+     *
+     * @return the number of updated rows: 0 when the book does not exist or a version differs
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Book b set " +
+            "b.publisher = coalesce(:publisher, b.publisher), " +
+            "b.publishedYear = coalesce(:publishedYear, b.publishedYear), " +
+            "b.version = b.version + 1 " +
+            "where b.batchNumber = :batchNumber and b.edition.isbn = :isbn " +
+            "and (:version is null or b.version = :version) " +
+            "and (:editionVersion is null or exists " +
+            "(select e.isbn from BookEdition e where e.isbn = :isbn and e.version = :editionVersion))")
+    int updateNonNullFields(String batchNumber, String isbn, String publisher, Integer publishedYear,
+                            Long version, Long editionVersion);
+
+    @Modifying(clearAutomatically = true)
+    @Query("delete from Book b where b.batchNumber = :batchNumber and b.edition.isbn = :isbn")
+    int deleteByBatchNumberAndEditionIsbn(String batchNumber, String isbn);
+
+    @Modifying(clearAutomatically = true)
+    @Query("delete from Book b where b.edition.isbn = :isbn")
+    int deleteByEditionIsbn(String isbn);
+
+    @EntityGraph(attributePaths = "edition")
     Iterable<Book> findByEditionIsbn(String isbn);
+
+    @Override
+    @EntityGraph(attributePaths = "edition")
+    Iterable<Book> findAll();
+
+    @EntityGraph(attributePaths = "edition")
+    List<Book> findAllByOrderByIdAsc(Limit limit);
+
+    @EntityGraph(attributePaths = "edition")
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Returns the natural keys of the books whose ISBN and batch number are both among the given values.
+     * The result is a superset of the exact pairs looked up, so callers match pairs on their side.
+     */
+    @Query("select b.edition.isbn as isbn, b.batchNumber as batchNumber from Book b " +
+            "where b.edition.isbn in :isbns and b.batchNumber in :batchNumbers")
+    List<BookKey> findKeysByEditionIsbnInAndBatchNumberIn(Collection<String> isbns, Collection<String> batchNumbers);
+
+    /**
+     * Returns which of the given batch numbers exist for the edition with the given ISBN.
+     */
+    @Query("select b.batchNumber from Book b where b.edition.isbn = :isbn and b.batchNumber in :batchNumbers")
+    List<String> findBatchNumbersByEditionIsbnAndBatchNumberIn(String isbn, Collection<String> batchNumbers);
+
+    /**
+     * Counts the books of each of the given editions. Editions without books are left out.
+     */
+    @Query("select b.edition.isbn as isbn, count(b) as books from Book b " +
+            "where b.edition.isbn in :isbns group by b.edition.isbn")
+    List<EditionBookCount> countByEditionIsbnIn(Collection<String> isbns);
+
+    interface BookKey {
+        String getIsbn();
+        String getBatchNumber();
+    }
+
+    interface BookVersion {
+        Long getVersion();
+        Long getEditionVersion();
+    }
+
+    interface EditionBookCount {
+        String getIsbn();
+        long getBooks();
+    }
 }
@@ -0,0 +1,17 @@
+package com.alexandre.books_manager.repository;
+
+import com.alexandre.books_manager.model.Book;
+
+import java.util.stream.Stream;
+
+public interface BookRepositoryCustom {
+    /**
+     * Reads every book with its edition, ordered by id, through a forward-only cursor fetching
+     * {@link BookRepository#STREAM_FETCH_SIZE} rows at a time. The rows are read in a stateless session on a
+     * connection of their own, from the stream pool when one is configured: nothing is kept in a persistence
+     * context, whatever the size of the table, and no transaction holds an application connection meanwhile.
+     *
+     * <p>The stream must be closed to give the connection back.</p>
+     */
+    Stream<Book> streamAllWithEditions();
+}
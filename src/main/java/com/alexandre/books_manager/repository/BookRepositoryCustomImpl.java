@@ -0,0 +1,62 @@
+package com.alexandre.books_manager.repository;
+
+import com.alexandre.books_manager.model.Book;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.stream.Stream;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+    private SessionFactory sessionFactory;
+    private DataSource dataSource;
+    private DataSource streamDataSource;
+
+    @Autowired
+    public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Autowired(required = false)
+    @Qualifier("streamDataSource")
+    public void setStreamDataSource(DataSource streamDataSource) {
+        this.streamDataSource = streamDataSource;
+    }
+
+    @Override
+    public Stream<Book> streamAllWithEditions() {
+        DataSource source = streamDataSource != null ? streamDataSource : dataSource;
+        Connection connection = DataSourceUtils.getConnection(source);
+        StatelessSession session = null;
+
+        try {
+            session = sessionFactory.withStatelessOptions().connection(connection).openStatelessSession();
+            StatelessSession openedSession = session;
+
+            return session.createSelectionQuery("select b from Book b join fetch b.edition order by b.id", Book.class)
+                    .setFetchSize(BookRepository.STREAM_FETCH_SIZE)
+                    .getResultStream()
+                    .onClose(() -> {
+                        openedSession.close();
+                        DataSourceUtils.releaseConnection(connection, source);
+                    });
+        } catch (RuntimeException e) {
+            if (session != null) {
+                session.close();
+            }
+
+            DataSourceUtils.releaseConnection(connection, source);
+            throw e;
+        }
+    }
+}
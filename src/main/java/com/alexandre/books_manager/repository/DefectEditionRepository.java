@@ -1,9 +1,53 @@
 package com.alexandre.books_manager.repository;
 
 import com.alexandre.books_manager.model.DefectEdition;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface DefectEditionRepository extends CrudRepository<DefectEdition, String> {
+    /**
+     * Loads every defect with its edition in one query. The affected batches of all the returned defects
+     * are then loaded together by a single subselect the first time any of them is read, so converting
+     * the whole list costs two statements no matter how many defects there are.
+     */
+    @Override
+    @EntityGraph(attributePaths = "edition")
+    Iterable<DefectEdition> findAll();
+
+    /**
+     * Deletes every defect of an edition with a single statement. Hibernate clears the matching rows of
+     * {@code affected_batches} first, with one more statement.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("delete from DefectEdition d where d.edition.isbn = :isbn")
+    int deleteByEditionIsbn(String isbn);
+
+    /**
+     * Returns every affected batch of every defect as (ISBN, batch number) pairs, read from the collection
+     * table without loading any defect.
+     */
+    @Query("select d.edition.isbn as isbn, b as batchNumber from DefectEdition d join d.affectedBatches b")
+    List<AffectedBatch> findAllAffectedBatches();
+
+    /**
+     * Returns the defects of an edition that list this batch, through the index on
+     * {@code affected_batches.batch_number}.
+     */
+    @Query("select d from DefectEdition d join d.affectedBatches b where b = :batchNumber and d.edition.isbn = :isbn")
+    List<DefectEdition> findByEditionIsbnAndAffectedBatch(String isbn, String batchNumber);
+
+    @Query("select b from DefectEdition d join d.affectedBatches b where d.edition.isbn = :isbn")
+    List<String> findAffectedBatchNumbersByEditionIsbn(String isbn);
+
+    interface AffectedBatch {
+        String getIsbn();
+
+        String getBatchNumber();
+    }
 }
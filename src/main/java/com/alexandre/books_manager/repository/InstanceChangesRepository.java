@@ -0,0 +1,34 @@
+package com.alexandre.books_manager.repository;
+
+import com.alexandre.books_manager.model.InstanceChanges;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface InstanceChangesRepository extends CrudRepository<InstanceChanges, String> {
+    @Transactional
+    @Modifying
+    @Query("update InstanceChanges c set c.bookChanges = c.bookChanges + 1 where c.instanceId = :instanceId")
+    int incrementBookChanges(String instanceId);
+
+    @Transactional
+    @Modifying
+    @Query("update InstanceChanges c set c.defectChanges = c.defectChanges + 1 where c.instanceId = :instanceId")
+    int incrementDefectChanges(String instanceId);
+
+    /**
+     * Sums the changes counted by every instance but {@code instanceId}. The table has one row per instance
+     * ever started, so the sums stay cheap to read however large the catalog grows.
+     */
+    @Query("select coalesce(sum(c.bookChanges), 0) as bookChanges, coalesce(sum(c.defectChanges), 0) as defectChanges " +
+            "from InstanceChanges c where c.instanceId <> :instanceId")
+    ChangeCounts sumChangesOfOtherInstances(String instanceId);
+
+    interface ChangeCounts {
+        long getBookChanges();
+        long getDefectChanges();
+    }
+}
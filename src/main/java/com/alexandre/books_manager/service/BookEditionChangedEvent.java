@@ -0,0 +1,9 @@
+package com.alexandre.books_manager.service;
+
+/**
+ * Published by {@link BookEditionService} when an edition is created, updated or deleted. It only carries the
+ * ISBN: listeners read the committed state of the edition themselves.
+ *
+ * @param isbn the ISBN of the changed edition
+ */
+public record BookEditionChangedEvent(String isbn) {}
@@ -0,0 +1,548 @@
+package com.alexandre.books_manager.service;
+
+import com.alexandre.books_manager.exception.BadRequestException;
+import com.alexandre.books_manager.model.BookEdition;
+import com.alexandre.books_manager.repository.BookEditionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Full-text search over the title and author name of the editions, backed by an embedded Lucene index.
+ *
+ * <p>The index is kept on disk under {@code books-manager.search.index-directory}, or in memory when that
+ * property is empty. It follows the database through {@link BookEditionChangedEvent}s, handled once the
+ * change is committed, and is committed to disk every {@code books-manager.search.commit-interval} when it
+ * changed. Each commit records a watermark of the indexed editions, their number and the sum of their versions,
+ * which a create, an update and a delete all change. On startup the index is rebuilt from the database when
+ * the watermark differs, e.g. after a crash lost the changes of the last interval.</p>
+ *
+ * <p>Events are only published by the instance making the change. To catch up with the changes made through the
+ * other instances sharing the database, every {@code books-manager.search.resync-interval} the watermark of the
+ * index is compared with the database; when they differ, the version of every edition is compared with the
+ * indexed one, and only the editions that differ are read and indexed again.</p>
+ */
+@Service
+public class BookEditionSearchService {
+    static final String ISBN = "isbn";
+    static final String TITLE = "title";
+    static final String AUTHOR_NAME = "authorName";
+    static final String TITLE_PREFIXES = "titlePrefixes";
+    static final String AUTHOR_NAME_PREFIXES = "authorNamePrefixes";
+    static final String VERSION = "version";
+    static final String WATERMARK = "watermark";
+
+    private static final float TITLE_BOOST = 2f;
+    private static final int MAX_PREFIX_LENGTH = 20;
+    private static final int REINDEX_PAGE_SIZE = 1000;
+    private static final int RELOAD_LOCK_STRIPES = 64;
+    private static final Sort BY_RELEVANCE = new Sort(SortField.FIELD_SCORE, new SortField(ISBN, SortField.Type.STRING));
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final Analyzer indexAnalyzer = new PerFieldAnalyzerWrapper(analyzer, Map.of(
+            TITLE_PREFIXES, new PrefixAnalyzer(),
+            AUTHOR_NAME_PREFIXES, new PrefixAnalyzer()));
+    private BookEditionRepository bookEditionRepository;
+    private String indexDirectory = "";
+    private Directory directory;
+    private IndexWriter indexWriter;
+    private SearcherManager searcherManager;
+    // The watermark of the last commit, guarded by commitLock
+    private String committedWatermark = "";
+    private final Lock commitLock = new ReentrantLock();
+    // Serializes the reloads of an edition, so the last one to run always indexes the latest committed edition
+    private final StripedLocks reloadLocks = new StripedLocks(RELOAD_LOCK_STRIPES);
+
+    /**
+     * An edition matching a search, with its position in the results.
+     *
+     * @param edition  the matching edition
+     * @param position where the next page of results starts when this edition is the last of a page
+     */
+    public record Match(BookEdition edition, String position) {}
+
+    /**
+     * An entry of the index matching a search.
+     */
+    record Hit(String isbn, float score) {
+        String position() {
+            return score + ":" + isbn;
+        }
+    }
+
+    @Autowired
+    public void setBookEditionRepository(BookEditionRepository bookEditionRepository) {
+        this.bookEditionRepository = bookEditionRepository;
+    }
+
+    @Value("${books-manager.search.index-directory:}")
+    public void setIndexDirectory(String indexDirectory) {
+        this.indexDirectory = indexDirectory;
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        directory = indexDirectory.isBlank() ? new ByteBuffersDirectory() : FSDirectory.open(Path.of(indexDirectory));
+        indexWriter = new IndexWriter(directory, new IndexWriterConfig(indexAnalyzer));
+        searcherManager = new SearcherManager(indexWriter, null);
+        committedWatermark = readCommittedWatermark();
+
+        if (!committedWatermark.equals(toWatermark(bookEditionRepository.findWatermark()))) {
+            reindex();
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        commit();
+        searcherManager.close();
+        indexWriter.close();
+        directory.close();
+    }
+
+    /**
+     * Searches editions whose title or author name contain every word of {@code text}, the last word being
+     * matched as a prefix so that partially typed queries already find results. Editions are ranked by
+     * relevance, title matches weighing more than author matches.
+     *
+     * <p>Pages follow each other with {@code after}, which is only stable as long as the index does not change:
+     * an edition updated in between may be skipped or returned twice.</p>
+     *
+     * @param text  the words to look for
+     * @param after the position of the last match of the previous page, or {@code null} for the first page
+     * @param limit the maximum number of matches to return
+     * @return the matches of the requested page, most relevant first
+     */
+    @Transactional(readOnly = true)
+    public List<Match> search(String text, String after, int limit) {
+        List<Hit> hits = findHits(text, after, limit);
+        Map<String, BookEdition> editions = new HashMap<>();
+
+        bookEditionRepository.findAllById(hits.stream().map(Hit::isbn).toList())
+                .forEach(edition -> editions.put(edition.getIsbn(), edition));
+
+        List<Match> matches = new ArrayList<>(hits.size());
+
+        for (Hit hit : hits) {
+            BookEdition edition = editions.get(hit.isbn());
+
+            // Deleted after the index was searched
+            if (edition != null) {
+                matches.add(new Match(edition, hit.position()));
+            }
+        }
+
+        return matches;
+    }
+
+    /**
+     * Updates the index once a change to an edition is committed, or right away when it was made outside of
+     * a transaction. Changes that are rolled back never reach the index.
+     *
+     * <p>The edition is read on the connection the committed transaction still holds, not in a new transaction:
+     * that would need a second connection while holding the first, and writers holding every connection
+     * would then wait for each other until they time out.</p>
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookEditionChanged(BookEditionChangedEvent event) {
+        reload(event.isbn());
+        refresh();
+    }
+
+    /**
+     * Catches up with the editions changed through other instances. A change indexed here but not committed
+     * yet is committed first, so that the watermarks compare the same editions.
+     */
+    @Scheduled(fixedDelayString = "${books-manager.search.resync-interval:30s}",
+            initialDelayString = "${books-manager.search.resync-interval:30s}")
+    void resync() {
+        commit();
+
+        if (currentCommittedWatermark().equals(toWatermark(bookEditionRepository.findWatermark()))) {
+            return;
+        }
+
+        try {
+            catchUp();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    List<Hit> findHits(String text, String after, int limit) {
+        Query query = toQuery(text);
+
+        if (query == null) {
+            return List.of();
+        }
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+
+            try {
+                int maxDoc = searcher.getIndexReader().maxDoc();
+
+                if (maxDoc == 0) {
+                    return List.of();
+                }
+
+                TopDocs topDocs = searcher.searchAfter(toFieldDoc(after, maxDoc), query, limit, BY_RELEVANCE, true);
+                List<Hit> hits = new ArrayList<>(topDocs.scoreDocs.length);
+
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    BytesRef isbn = (BytesRef) ((FieldDoc) scoreDoc).fields[1];
+                    hits.add(new Hit(isbn.utf8ToString(), scoreDoc.score));
+                }
+
+                return hits;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void index(BookEdition edition) {
+        Document document = new Document();
+        document.add(new StringField(ISBN, edition.getIsbn(), Field.Store.NO));
+        document.add(new SortedDocValuesField(ISBN, new BytesRef(edition.getIsbn())));
+        document.add(new NumericDocValuesField(VERSION, edition.getVersion()));
+        document.add(new TextField(TITLE, edition.getTitle(), Field.Store.NO));
+        document.add(new TextField(AUTHOR_NAME, edition.getAuthorName(), Field.Store.NO));
+        document.add(new TextField(TITLE_PREFIXES, edition.getTitle(), Field.Store.NO));
+        document.add(new TextField(AUTHOR_NAME_PREFIXES, edition.getAuthorName(), Field.Store.NO));
+
+        try {
+            indexWriter.updateDocument(new Term(ISBN, edition.getIsbn()), document);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Indexes the latest committed state of an edition, or removes it when it no longer exists.
+     */
+    private void reload(String isbn) {
+        Lock lock = reloadLocks.get(isbn);
+        lock.lock();
+
+        try {
+            Optional<BookEdition> edition = bookEditionRepository.findUncachedByIsbn(isbn);
+
+            if (edition.isPresent()) {
+                index(edition.get());
+            } else {
+                remove(isbn);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void remove(String isbn) {
+        try {
+            indexWriter.deleteDocuments(new Term(ISBN, isbn));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Makes the changes indexed so far visible to searches.
+     */
+    void refresh() {
+        try {
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Commits the changes indexed since the last commit, together with the watermark of the index they make up.
+     * A change indexed while the watermark is computed may be committed without being counted in it, which
+     * only costs a needless rebuild if the application stops right then.
+     */
+    @Scheduled(fixedDelayString = "${books-manager.search.commit-interval:1s}")
+    void commit() {
+        try {
+            if (indexWriter.hasUncommittedChanges()) {
+                commitWithWatermark();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Rebuilds the whole index from the database, reading the editions page by page.
+     */
+    private void reindex() throws IOException {
+        indexWriter.deleteAll();
+        List<BookEdition> page = bookEditionRepository.findAllByOrderByIsbnAsc(Limit.of(REINDEX_PAGE_SIZE));
+
+        while (!page.isEmpty()) {
+            page.forEach(this::index);
+            String lastIsbn = page.get(page.size() - 1).getIsbn();
+            page = bookEditionRepository.findByIsbnGreaterThanOrderByIsbnAsc(lastIsbn, Limit.of(REINDEX_PAGE_SIZE));
+        }
+
+        commitWithWatermark();
+        refresh();
+    }
+
+    private void commitWithWatermark() throws IOException {
+        commitLock.lock();
+
+        try {
+            String watermark;
+
+            try (DirectoryReader reader = DirectoryReader.open(indexWriter)) {
+                watermark = readWatermark(reader);
+            }
+
+            indexWriter.setLiveCommitData(Map.of(WATERMARK, watermark).entrySet());
+            indexWriter.commit();
+            committedWatermark = watermark;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private String currentCommittedWatermark() {
+        commitLock.lock();
+
+        try {
+            return committedWatermark;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Reads the version of every edition page by page, and indexes again those whose version differs from the
+     * index, or that are missing from either side.
+     */
+    private void catchUp() throws IOException {
+        Map<String, Long> indexedVersions;
+
+        try (DirectoryReader reader = DirectoryReader.open(indexWriter)) {
+            indexedVersions = readIndexedVersions(reader);
+        }
+
+        String lastIsbn = "";
+        List<BookEditionRepository.EditionVersion> page;
+
+        do {
+            page = bookEditionRepository.findVersionsByIsbnGreaterThan(lastIsbn, Limit.of(REINDEX_PAGE_SIZE));
+
+            for (BookEditionRepository.EditionVersion edition : page) {
+                Long indexedVersion = indexedVersions.remove(edition.getIsbn());
+
+                if (indexedVersion == null || indexedVersion != edition.getVersion()) {
+                    reload(edition.getIsbn());
+                }
+
+                lastIsbn = edition.getIsbn();
+            }
+        } while (page.size() == REINDEX_PAGE_SIZE);
+
+        // Indexed, but no longer in the database
+        indexedVersions.keySet().forEach(this::reload);
+        refresh();
+        commitWithWatermark();
+    }
+
+    /**
+     * @return the watermark stored by the last commit, or an empty string when there is none
+     */
+    private String readCommittedWatermark() throws IOException {
+        if (!DirectoryReader.indexExists(directory)) {
+            return "";
+        }
+
+        return SegmentInfos.readLatestCommit(directory).getUserData().getOrDefault(WATERMARK, "");
+    }
+
+    /**
+     * Counts the editions of the index and sums their versions.
+     */
+    private static String readWatermark(DirectoryReader reader) throws IOException {
+        long versions = 0;
+
+        for (LeafReaderContext leaf : reader.leaves()) {
+            NumericDocValues values = DocValues.getNumeric(leaf.reader(), VERSION);
+            Bits liveDocs = leaf.reader().getLiveDocs();
+
+            for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+                if (liveDocs == null || liveDocs.get(doc)) {
+                    versions += values.longValue();
+                }
+            }
+        }
+
+        return reader.numDocs() + ":" + versions;
+    }
+
+    private static Map<String, Long> readIndexedVersions(DirectoryReader reader) throws IOException {
+        Map<String, Long> versions = new HashMap<>(reader.numDocs());
+
+        for (LeafReaderContext leaf : reader.leaves()) {
+            SortedDocValues isbns = DocValues.getSorted(leaf.reader(), ISBN);
+            NumericDocValues values = DocValues.getNumeric(leaf.reader(), VERSION);
+            Bits liveDocs = leaf.reader().getLiveDocs();
+
+            for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+                if ((liveDocs == null || liveDocs.get(doc)) && isbns.advanceExact(doc)) {
+                    versions.put(isbns.lookupOrd(isbns.ordValue()).utf8ToString(), values.longValue());
+                }
+            }
+        }
+
+        return versions;
+    }
+
+    private static String toWatermark(BookEditionRepository.EditionsWatermark watermark) {
+        return watermark.getEditions() + ":" + watermark.getVersions();
+    }
+
+    /**
+     * Requires every analyzed word of {@code text} in the title or the author name, the last one as a prefix.
+     *
+     * @return the query, or {@code null} when {@code text} holds no searchable word
+     */
+    private Query toQuery(String text) {
+        List<String> words = new ArrayList<>();
+
+        try (TokenStream tokens = analyzer.tokenStream(TITLE, text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+
+            while (tokens.incrementToken()) {
+                words.add(term.toString());
+            }
+
+            tokens.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (words.isEmpty()) {
+            return null;
+        }
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+
+        for (int word = 0; word < words.size(); word++) {
+            query.add(toWordQuery(words.get(word), word == words.size() - 1), BooleanClause.Occur.MUST);
+        }
+
+        return query.build();
+    }
+
+    private Query toWordQuery(String word, boolean prefix) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder()
+                .add(new BoostQuery(new TermQuery(new Term(TITLE, word)), TITLE_BOOST), BooleanClause.Occur.SHOULD)
+                .add(new TermQuery(new Term(AUTHOR_NAME, word)), BooleanClause.Occur.SHOULD);
+
+        if (prefix) {
+            String start = word.substring(0, Math.min(word.length(), MAX_PREFIX_LENGTH));
+            query.add(new TermQuery(new Term(TITLE_PREFIXES, start)), BooleanClause.Occur.SHOULD)
+                    .add(new TermQuery(new Term(AUTHOR_NAME_PREFIXES, start)), BooleanClause.Occur.SHOULD);
+        }
+
+        return query.build();
+    }
+
+    /**
+     * Rebuilds the sort values of the last match of the previous page. Its document id is unknown, so the
+     * highest one is used: ISBNs are unique, hence only that match itself sorts equal and must be skipped.
+     */
+    private FieldDoc toFieldDoc(String after, int maxDoc) {
+        if (after == null) {
+            return null;
+        }
+
+        int separator = after.indexOf(':');
+
+        try {
+            float score = Float.parseFloat(after.substring(0, separator));
+            return new FieldDoc(maxDoc - 1, score, new Object[]{score, new BytesRef(after.substring(separator + 1))});
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Indexes every word together with its first letters, so that matching a partially typed word is a single
+     * term lookup instead of the expansion of a prefix over all the words of the index.
+     */
+    private static final class PrefixAnalyzer extends Analyzer {
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            Tokenizer tokenizer = new StandardTokenizer();
+            TokenStream prefixes = new EdgeNGramTokenFilter(new LowerCaseFilter(tokenizer), 1, MAX_PREFIX_LENGTH, true);
+            return new TokenStreamComponents(tokenizer, prefixes);
+        }
+    }
+}
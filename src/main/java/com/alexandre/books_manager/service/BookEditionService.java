@@ -2,33 +2,89 @@ package com.alexandre.books_manager.service;
 
 import com.alexandre.books_manager.exception.BadRequestException;
 import com.alexandre.books_manager.exception.NotFoundException;
+import com.alexandre.books_manager.exception.PreconditionFailedException;
 import com.alexandre.books_manager.model.BookEdition;
 import com.alexandre.books_manager.repository.BookEditionRepository;
+import com.alexandre.books_manager.repository.BookRepository;
+import com.alexandre.books_manager.repository.DefectEditionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
 
 @Service
 public class BookEditionService implements GenericService<BookEdition> {
+    private static final int EDITION_LOCK_STRIPES = 64;
+
+    private final StripedLocks editionLocks = new StripedLocks(EDITION_LOCK_STRIPES);
     private BookEditionRepository bookEditionRepository;
+    private BookRepository bookRepository;
+    private DefectEditionRepository defectEditionRepository;
+    private ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public void setBookEditionRepository(BookEditionRepository bookEditionRepository) {
         this.bookEditionRepository = bookEditionRepository;
     }
 
+    @Autowired
+    public void setBookRepository(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    @Autowired
+    public void setDefectEditionRepository(DefectEditionRepository defectEditionRepository) {
+        this.defectEditionRepository = defectEditionRepository;
+    }
+
+    @Autowired
+    public void setEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
     @Transactional(readOnly = true)
     public Optional<BookEdition> findByIsbn(String isbn) {
         return bookEditionRepository.findByIsbn(isbn);
     }
 
+    @Transactional(readOnly = true)
+    public Optional<Long> findVersionByIsbn(String isbn) {
+        return bookEditionRepository.findVersionByIsbn(isbn);
+    }
+
     @Transactional(readOnly = true)
     public Iterable<BookEdition> findAll() {
         return bookEditionRepository.findAll();
     }
 
+    /**
+     * Retrieves up to {@code limit} book editions ordered by ISBN, starting right after {@code afterIsbn}.
+     *
+     * @param afterIsbn the ISBN of the last edition of the previous page, or {@code null} for the first page
+     * @param limit     the maximum number of editions to return
+     * @return the editions of the requested page
+     */
+    @Transactional(readOnly = true)
+    public List<BookEdition> findPage(String afterIsbn, int limit) {
+        if (afterIsbn == null) {
+            return bookEditionRepository.findAllByOrderByIsbnAsc(Limit.of(limit));
+        }
+
+        return bookEditionRepository.findByIsbnGreaterThanOrderByIsbnAsc(afterIsbn, Limit.of(limit));
+    }
+
     @Transactional
     public BookEdition save(BookEdition bookEdition) {
         Optional<BookEdition> foundBookEdition = bookEditionRepository.findByIsbn(bookEdition.getIsbn());
@@ -37,43 +93,216 @@ public class BookEditionService implements GenericService<BookEdition> {
             throw new BadRequestException("Book Edition already exists");
         }
 
-        return bookEditionRepository.save(bookEdition);
+        BookEdition savedBookEdition = bookEditionRepository.save(bookEdition);
+        eventPublisher.publishEvent(new BookEditionChangedEvent(savedBookEdition.getIsbn()));
+        return savedBookEdition;
     }
 
-    @Transactional
-    public BookEdition update(BookEdition bookEdition) {
-        Optional<BookEdition> foundBookEdition = bookEditionRepository.findByIsbn(bookEdition.getIsbn());
+    /**
+     * Returns the edition with the ISBN of {@code bookEdition}, creating it from {@code bookEdition} first
+     * when it does not exist yet. Safe to call concurrently for the same ISBN:
+     * <ul>
+     *     <li>threads of this instance creating the same ISBN are serialized on a lock stripe, so only the
+     *     first one inserts and the others find its row;</li>
+     *     <li>when another instance wins the race, the duplicate key error of our insert is swallowed and
+     *     its row is read back.</li>
+     * </ul>
+     *
+     * <p>Deliberately not transactional: every statement commits on its own, so a lost race neither marks a
+     * surrounding transaction as rollback-only nor keeps a connection pinned while waiting on the lock. It
+     * must not be called from within a transaction either.</p>
+     *
+     * @param bookEdition the edition to create when missing
+     * @return the stored edition
+     */
+    public BookEdition findOrCreate(BookEdition bookEdition) {
+        return findOrCreate(bookEdition, new HashSet<>());
+    }
 
-        if (foundBookEdition.isEmpty()) {
-            throw new NotFoundException("Book Edition not found");
+    /**
+     * Same as {@link #findOrCreate(BookEdition)}, also telling whether this call created the edition, so that
+     * a caller whose write then fails can {@link #deleteUnused(Collection) delete it again}.
+     *
+     * @param bookEdition  the edition to create when missing
+     * @param createdIsbns receives the ISBN of the edition when this call inserted it
+     * @return the stored edition
+     */
+    public BookEdition findOrCreate(BookEdition bookEdition, Set<String> createdIsbns) {
+        String isbn = bookEdition.getIsbn();
+        Optional<BookEdition> foundBookEdition = bookEditionRepository.findByIsbn(isbn);
+
+        if (foundBookEdition.isPresent()) {
+            return foundBookEdition.get();
         }
 
-        BookEdition updatedBookEdition = foundBookEdition.get();
+        Lock lock = editionLocks.get(isbn);
+        lock.lock();
 
-        if (bookEdition.getAuthorName() != null) {
-            updatedBookEdition.setAuthorName(bookEdition.getAuthorName());
+        try {
+            foundBookEdition = bookEditionRepository.findByIsbn(isbn);
+
+            if (foundBookEdition.isPresent()) {
+                return foundBookEdition.get();
+            }
+
+            bookEditionRepository.insert(isbn, bookEdition.getTitle(), bookEdition.getAuthorName(), bookEdition.getNumber());
+            createdIsbns.add(isbn);
+            eventPublisher.publishEvent(new BookEditionChangedEvent(isbn));
+        } catch (DuplicateKeyException e) {
+            // Created by another instance between our read and our insert; any other violation, such as a
+            // missing title, is the caller's and propagates
+        } finally {
+            lock.unlock();
         }
 
-        if (bookEdition.getNumber() != null) {
-            updatedBookEdition.setNumber(bookEdition.getNumber());
+        return bookEditionRepository.findByIsbn(isbn)
+                .orElseThrow(() -> new IllegalStateException("Book Edition " + isbn + " vanished right after being created"));
+    }
+
+    /**
+     * Same as {@link #findOrCreate(BookEdition)} for many editions, with a single query for the ones that
+     * already exist.
+     *
+     * @param bookEditions the editions to create when missing, with distinct ISBNs
+     * @return the stored editions keyed by ISBN
+     */
+    public Map<String, BookEdition> findOrCreateAll(Collection<BookEdition> bookEditions) {
+        return findOrCreateAll(bookEditions, new HashSet<>(), null);
+    }
+
+    /**
+     * Same as {@link #findOrCreateAll(Collection)}, also telling which editions this call created, and which
+     * ones it could not create.
+     *
+     * @param bookEditions the editions to create when missing, with distinct ISBNs
+     * @param createdIsbns receives the ISBNs of the editions this call inserted
+     * @param invalidIsbns receives the ISBNs of the missing editions the database rejected, e.g. with a title
+     *                     too long for its column, which are left out of the result; {@code null} to let the
+     *                     rejection propagate instead
+     * @return the stored editions keyed by ISBN
+     */
+    public Map<String, BookEdition> findOrCreateAll(Collection<BookEdition> bookEditions, Set<String> createdIsbns,
+                                                    Set<String> invalidIsbns) {
+        Map<String, BookEdition> editions = new HashMap<>();
+        List<String> isbns = bookEditions.stream()
+                .map(BookEdition::getIsbn)
+                .toList();
+
+        bookEditionRepository.findAllById(isbns).forEach(edition -> editions.put(edition.getIsbn(), edition));
+
+        for (BookEdition bookEdition : bookEditions) {
+            if (editions.containsKey(bookEdition.getIsbn())) {
+                continue;
+            }
+
+            try {
+                editions.put(bookEdition.getIsbn(), findOrCreate(bookEdition, createdIsbns));
+            } catch (DataIntegrityViolationException e) {
+                if (invalidIsbns == null) {
+                    throw e;
+                }
+
+                invalidIsbns.add(bookEdition.getIsbn());
+            }
+        }
+
+        return editions;
+    }
+
+    @Transactional
+    public BookEdition update(BookEdition bookEdition) {
+        return update(bookEdition, null);
+    }
+
+    /**
+     * Applies the non-null fields of {@code bookEdition} to the stored edition with the same ISBN, then reads
+     * the edition back.
+     *
+     * @param bookEdition     the ISBN of the edition to update and the new values
+     * @param expectedVersion the version the client based its changes on, or {@code null} to update unconditionally
+     * @return the updated edition
+     * @throws PreconditionFailedException when the stored edition is not at {@code expectedVersion}
+     * @see #patch(BookEdition, Long)
+     */
+    @Transactional
+    public BookEdition update(BookEdition bookEdition, Long expectedVersion) {
+        patch(bookEdition, expectedVersion);
+
+        return bookEditionRepository.findUncachedByIsbn(bookEdition.getIsbn())
+                .orElseThrow(() -> new NotFoundException("Book Edition not found"));
+    }
+
+    /**
+     * Applies the non-null fields of {@code bookEdition} to the stored edition with the same ISBN using a single
+     * {@code UPDATE ... WHERE isbn = ? AND version = ?}, without loading the edition. The edition is only read
+     * when nothing was updated, to tell a missing edition from a stale {@code expectedVersion}.
+     *
+     * @param bookEdition     the ISBN of the edition to update and the new values
+     * @param expectedVersion the version the client based its changes on, or {@code null} to update unconditionally
+     * @return the version of the edition after the update when it is known without reading it, otherwise {@code null}
+     * @throws NotFoundException           when the edition does not exist
+     * @throws PreconditionFailedException when the stored edition is not at {@code expectedVersion}
+     */
+    @Transactional
+    public Long patch(BookEdition bookEdition, Long expectedVersion) {
+        String isbn = bookEdition.getIsbn();
+        boolean hasChanges = bookEdition.getTitle() != null
+                || bookEdition.getAuthorName() != null
+                || bookEdition.getNumber() != null;
+
+        if (hasChanges && bookEditionRepository.updateNonNullFields(isbn, bookEdition.getTitle(),
+                bookEdition.getAuthorName(), bookEdition.getNumber(), expectedVersion) > 0) {
+            eventPublisher.publishEvent(new BookEditionChangedEvent(isbn));
+            return expectedVersion != null ? expectedVersion + 1 : null;
         }
 
-        if (bookEdition.getTitle() != null) {
-            updatedBookEdition.setTitle(bookEdition.getTitle());
+        Long version = bookEditionRepository.findVersionByIsbn(isbn)
+                .orElseThrow(() -> new NotFoundException("Book Edition not found"));
+
+        if (expectedVersion != null && !expectedVersion.equals(version)) {
+            throw new PreconditionFailedException("Book Edition has been modified");
         }
 
-        return bookEditionRepository.save(updatedBookEdition);
+        return version;
     }
 
+    /**
+     * Deletes the editions among {@code isbns} that have neither books nor defects, to undo the editions
+     * {@link #findOrCreate(BookEdition, Set)} created for a write that then failed. An edition another request
+     * has added a book to in the meantime is kept.
+     *
+     * <p>A bulk delete evicts the whole edition region of the second-level cache; it only runs after a failed
+     * write that created an edition.</p>
+     *
+     * @param isbns the ISBNs of the editions to delete when unused
+     */
+    @Transactional
+    public void deleteUnused(Collection<String> isbns) {
+        if (isbns.isEmpty()) {
+            return;
+        }
 
+        if (bookEditionRepository.deleteUnusedByIsbnIn(isbns) > 0) {
+            isbns.forEach(isbn -> eventPublisher.publishEvent(new BookEditionChangedEvent(isbn)));
+        }
+    }
+
+    /**
+     * Deletes an edition together with its books and defects using bulk statements, so the cost does not
+     * depend on how many books the edition has: nothing is loaded into the persistence context. If the
+     * edition does not exist the transaction rolls back and nothing is deleted.
+     *
+     * @param isbn the ISBN of the edition to delete
+     */
     @Transactional
     public void deleteByIsbn(String isbn) {
-        Optional<BookEdition> foundBookEdition = bookEditionRepository.findByIsbn(isbn);
+        defectEditionRepository.deleteByEditionIsbn(isbn);
+        bookRepository.deleteByEditionIsbn(isbn);
 
-        if (foundBookEdition.isEmpty()) {
+        if (bookEditionRepository.deleteByIsbn(isbn) == 0) {
             throw new NotFoundException("Book Edition not found");
         }
 
-        bookEditionRepository.deleteByIsbn(isbn);
+        eventPublisher.publishEvent(new BookEditionChangedEvent(isbn));
     }
 }
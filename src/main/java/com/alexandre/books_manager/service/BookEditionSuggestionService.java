@@ -0,0 +1,321 @@
+package com.alexandre.books_manager.service;
+
+import com.alexandre.books_manager.model.BookEdition;
+import com.alexandre.books_manager.repository.BookEditionRepository;
+import com.alexandre.books_manager.repository.BookRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Typeahead suggestions for edition titles and author names, served from memory.
+ *
+ * <p>Titles and author names are kept in two {@link PrefixIndex}es, loaded from the database on startup.
+ * A suggestion weighs as many books as its editions have, so the titles and authors with the most batches
+ * come first.</p>
+ *
+ * <p>The indexes follow the write paths through {@link BookEditionChangedEvent}s and {@link BooksChangedEvent}s.
+ * Once the change is committed, the listeners only queue the ISBNs of the changed editions, so that the request
+ * thread neither waits for a lock nor runs a query. Every {@code books-manager.suggestions.update-interval} a
+ * single updater reads the queued editions and counts their books, in one query per page of editions, and
+ * merges all the changes into a copy of each affected index, which it then publishes. Published indexes are
+ * never written again. As the counts are read rather than derived from the events, the updater always leaves
+ * the latest committed counts, whatever the order the events came in.</p>
+ *
+ * <p>Events only come from this instance. To catch up with the changes made through other instances, every
+ * {@code books-manager.suggestions.resync-interval} the number of editions and the sum of their versions, which
+ * any edition change changes, and the book changes counted by the other instances (see
+ * {@link InstanceChangeService}) are compared with what the indexes were built from, and the indexes are
+ * loaded again when they differ. Neither read scans the books.</p>
+ */
+@Service
+public class BookEditionSuggestionService {
+    public static final int MAX_SUGGESTIONS = PrefixIndex.MAX_LIMIT;
+
+    private static final int LOAD_PAGE_SIZE = 10_000;
+    private static final int COUNT_PAGE_SIZE = 1_000;
+
+    private BookEditionRepository bookEditionRepository;
+    private BookRepository bookRepository;
+    private InstanceChangeService instanceChangeService;
+
+    // Writers are serialized; readers only go through the volatile indexes
+    private final Lock writeLock = new ReentrantLock();
+    // ISBNs queued by the listeners for the updater
+    private final Set<String> changedEditions = ConcurrentHashMap.newKeySet();
+    private final Set<String> changedBooks = ConcurrentHashMap.newKeySet();
+    private final Map<String, IndexedEdition> editions = new HashMap<>();
+    private volatile PrefixIndex titles = PrefixIndex.EMPTY;
+    private volatile PrefixIndex authorNames = PrefixIndex.EMPTY;
+    // The book changes of the other instances read by the last load, guarded by the write lock
+    private long loadedBookChangesOfOthers;
+
+    /**
+     * What an edition contributes to the indexes, and the version it was read at.
+     */
+    private record IndexedEdition(String title, String authorName, long books, long version) {}
+
+    /**
+     * Figures that any edition change, and any book created or deleted through another instance, change.
+     */
+    private record Watermark(long editions, long versions, long bookChangesOfOthers) {}
+
+    @Autowired
+    public void setBookEditionRepository(BookEditionRepository bookEditionRepository) {
+        this.bookEditionRepository = bookEditionRepository;
+    }
+
+    @Autowired
+    public void setBookRepository(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    @Autowired
+    public void setInstanceChangeService(InstanceChangeService instanceChangeService) {
+        this.instanceChangeService = instanceChangeService;
+    }
+
+    @PostConstruct
+    void load() {
+        writeLock.lock();
+
+        try {
+            // Read first, so that a change made while loading triggers one more load rather than none
+            loadedBookChangesOfOthers = instanceChangeService.changesOfOtherInstances().getBookChanges();
+            editions.clear();
+            SortedMap<String, PrefixIndex.Change> titleChanges = new TreeMap<>();
+            SortedMap<String, PrefixIndex.Change> authorNameChanges = new TreeMap<>();
+            String lastIsbn = "";
+            List<BookEditionRepository.EditionSummary> page;
+
+            do {
+                page = bookEditionRepository.findSummariesByIsbnGreaterThan(lastIsbn, Limit.of(LOAD_PAGE_SIZE));
+
+                for (BookEditionRepository.EditionSummary summary : page) {
+                    IndexedEdition edition = new IndexedEdition(summary.getTitle(), summary.getAuthorName(),
+                            summary.getBooks(), summary.getVersion());
+                    editions.put(summary.getIsbn(), edition);
+                    addChange(titleChanges, edition.title(), edition.books(), 1);
+                    addChange(authorNameChanges, edition.authorName(), edition.books(), 1);
+                    lastIsbn = summary.getIsbn();
+                }
+            } while (page.size() == LOAD_PAGE_SIZE);
+
+            titles = PrefixIndex.EMPTY.merge(titleChanges);
+            authorNames = PrefixIndex.EMPTY.merge(authorNameChanges);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Loads the indexes again when the catalog no longer matches them, e.g. after changes made through another
+     * instance. The queued changes are applied first; a change committed but not queued yet still triggers a
+     * reload.
+     */
+    @Scheduled(fixedDelayString = "${books-manager.suggestions.resync-interval:1m}",
+            initialDelayString = "${books-manager.suggestions.resync-interval:1m}")
+    void resync() {
+        writeLock.lock();
+
+        try {
+            applyChanges();
+            BookEditionRepository.EditionsWatermark catalog = bookEditionRepository.findWatermark();
+            Watermark expected = new Watermark(catalog.getEditions(), catalog.getVersions(),
+                    instanceChangeService.changesOfOtherInstances().getBookChanges());
+
+            if (!expected.equals(indexedWatermark())) {
+                load();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Suggests the titles starting with {@code prefix}, ignoring case and accents, the titles with the most
+     * books first.
+     *
+     * @param prefix what has been typed so far
+     * @param limit  the maximum number of titles, at most {@link #MAX_SUGGESTIONS}
+     */
+    public List<String> suggestTitles(String prefix, int limit) {
+        return suggest(titles, prefix, limit);
+    }
+
+    /**
+     * Suggests the author names starting with {@code prefix}, ignoring case and accents, the authors with the
+     * most books first.
+     *
+     * @param prefix what has been typed so far
+     * @param limit  the maximum number of author names, at most {@link #MAX_SUGGESTIONS}
+     */
+    public List<String> suggestAuthorNames(String prefix, int limit) {
+        return suggest(authorNames, prefix, limit);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookEditionChanged(BookEditionChangedEvent event) {
+        changedEditions.add(event.isbn());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksChanged(BooksChangedEvent event) {
+        changedBooks.addAll(event.isbns());
+    }
+
+    /**
+     * Reads the editions queued since the last run and recounts their books, then publishes the indexes with
+     * all these changes merged at once.
+     */
+    @Scheduled(fixedDelayString = "${books-manager.suggestions.update-interval:200ms}")
+    void applyChanges() {
+        writeLock.lock();
+
+        try {
+            // Taken with the write lock held, so a caller finding the queue empty waits for the run applying it
+            List<String> editionIsbns = drain(changedEditions);
+            List<String> bookIsbns = drain(changedBooks);
+
+            if (editionIsbns.isEmpty() && bookIsbns.isEmpty()) {
+                return;
+            }
+
+            boolean booksChanged = !bookIsbns.isEmpty();
+            bookIsbns.removeAll(editionIsbns);
+
+            List<String> isbns = new ArrayList<>(editionIsbns);
+            isbns.addAll(bookIsbns);
+            Map<String, Long> books = countBooks(isbns);
+            SortedMap<String, PrefixIndex.Change> titleChanges = new TreeMap<>();
+            SortedMap<String, PrefixIndex.Change> authorNameChanges = new TreeMap<>();
+
+            for (String isbn : editionIsbns) {
+                Optional<BookEdition> edition = bookEditionRepository.findUncachedByIsbn(isbn);
+                IndexedEdition indexedEdition = edition
+                        .map(found -> new IndexedEdition(found.getTitle(), found.getAuthorName(), books.get(isbn),
+                                found.getVersion()))
+                        .orElse(null);
+                replace(isbn, indexedEdition, titleChanges, authorNameChanges);
+            }
+
+            for (String isbn : bookIsbns) {
+                IndexedEdition edition = editions.get(isbn);
+
+                // Editions not indexed yet are counted when their own change is applied
+                if (edition != null) {
+                    replace(isbn, new IndexedEdition(edition.title(), edition.authorName(), books.get(isbn),
+                            edition.version()), titleChanges, authorNameChanges);
+                }
+            }
+
+            if (!titleChanges.isEmpty()) {
+                titles = titles.merge(titleChanges);
+            }
+
+            if (!authorNameChanges.isEmpty()) {
+                authorNames = authorNames.merge(authorNameChanges);
+            }
+
+            if (booksChanged) {
+                instanceChangeService.countBookChanges();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static List<String> drain(Set<String> queue) {
+        List<String> isbns = new ArrayList<>();
+
+        for (Iterator<String> iterator = queue.iterator(); iterator.hasNext(); ) {
+            isbns.add(iterator.next());
+            iterator.remove();
+        }
+
+        return isbns;
+    }
+
+    /**
+     * @return the number of books of each edition, 0 for the editions without books or that do not exist
+     */
+    private Map<String, Long> countBooks(List<String> isbns) {
+        Map<String, Long> books = new HashMap<>();
+
+        for (int from = 0; from < isbns.size(); from += COUNT_PAGE_SIZE) {
+            List<String> page = isbns.subList(from, Math.min(from + COUNT_PAGE_SIZE, isbns.size()));
+            page.forEach(isbn -> books.put(isbn, 0L));
+            bookRepository.countByEditionIsbnIn(page).forEach(count -> books.put(count.getIsbn(), count.getBooks()));
+        }
+
+        return books;
+    }
+
+    /**
+     * Must be called with the write lock held.
+     */
+    private Watermark indexedWatermark() {
+        long versions = 0;
+
+        for (IndexedEdition edition : editions.values()) {
+            versions += edition.version();
+        }
+
+        return new Watermark(editions.size(), versions, loadedBookChangesOfOthers);
+    }
+
+    /**
+     * Replaces what an edition contributes to the indexes, recording the changes to merge into them. Must be
+     * called with the write lock held.
+     *
+     * @param edition the new contribution, or {@code null} when the edition was deleted
+     */
+    private void replace(String isbn, IndexedEdition edition, SortedMap<String, PrefixIndex.Change> titleChanges,
+                         SortedMap<String, PrefixIndex.Change> authorNameChanges) {
+        IndexedEdition previous = edition != null ? editions.put(isbn, edition) : editions.remove(isbn);
+
+        if (previous != null) {
+            addChange(titleChanges, previous.title(), -previous.books(), -1);
+            addChange(authorNameChanges, previous.authorName(), -previous.books(), -1);
+        }
+
+        if (edition != null) {
+            addChange(titleChanges, edition.title(), edition.books(), 1);
+            addChange(authorNameChanges, edition.authorName(), edition.books(), 1);
+        }
+    }
+
+    private static void addChange(SortedMap<String, PrefixIndex.Change> changes, String text, long weight, int references) {
+        changes.merge(PrefixIndex.toKey(text), new PrefixIndex.Change(text, weight, references),
+                (change, other) -> new PrefixIndex.Change(change.text(), change.weight() + other.weight(),
+                        change.references() + other.references()));
+    }
+
+    /**
+     * Allocates the returned list, at most {@code limit} entries, which goes into the response, and the
+     * normalized prefix when the typed one is not a key already: the search in the index itself does not
+     * allocate.
+     */
+    private static List<String> suggest(PrefixIndex index, String prefix, int limit) {
+        String[] suggestions = new String[limit];
+        int count = index.top(PrefixIndex.toKey(prefix), suggestions, limit);
+        return Arrays.asList(suggestions).subList(0, count);
+    }
+}
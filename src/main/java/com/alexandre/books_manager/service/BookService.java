@@ -2,20 +2,32 @@ package com.alexandre.books_manager.service;
 
 import com.alexandre.books_manager.exception.BadRequestException;
 import com.alexandre.books_manager.exception.NotFoundException;
+import com.alexandre.books_manager.exception.PreconditionFailedException;
 import com.alexandre.books_manager.model.Book;
 import com.alexandre.books_manager.model.BookEdition;
 import com.alexandre.books_manager.repository.BookRepository;
-import com.alexandre.books_manager.repository.BookEditionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class BookService implements GenericService<Book> {
     private BookRepository bookRepository;
-    private BookEditionRepository bookEditionRepository;
+    private BookEditionService bookEditionService;
+    private ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public void setBookBatchRepository(BookRepository bookRepository) {
@@ -23,8 +35,13 @@ public class BookService implements GenericService<Book> {
     }
 
     @Autowired
-    public void setBookEditionRepository(BookEditionRepository bookEditionRepository) {
-        this.bookEditionRepository = bookEditionRepository;
+    public void setBookEditionService(BookEditionService bookEditionService) {
+        this.bookEditionService = bookEditionService;
+    }
+
+    @Autowired
+    public void setEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional(readOnly = true)
@@ -37,42 +54,204 @@ public class BookService implements GenericService<Book> {
         return bookRepository.findByBatchNumberAndEditionIsbn(batchNumber, editionIsbn);
     }
 
+    @Transactional(readOnly = true)
+    public Optional<BookRepository.BookVersion> findVersion(String batchNumber, String editionIsbn) {
+        return bookRepository.findVersionByBatchNumberAndEditionIsbn(batchNumber, editionIsbn);
+    }
+
     @Transactional
     public Book update(Book book) {
-        BookEdition edition = book.getEdition();
-        Optional<Book> existingBook = bookRepository.findByBatchNumberAndEditionIsbn(book.getBatchNumber(), edition.getIsbn());
+        return update(book, null, null);
+    }
 
-        if (existingBook.isEmpty()) {
-            throw new NotFoundException("Book not found");
-        }
+    /**
+     * Applies the non-null fields of {@code book} to the stored book with the same batch number and edition,
+     * then reads the book back.
+     *
+     * @param book                   the keys of the book to update and the new values
+     * @param expectedVersion        the expected version of the book, or {@code null} to update unconditionally
+     * @param expectedEditionVersion the expected version of its edition, or {@code null}
+     * @return the updated book
+     * @throws PreconditionFailedException when the book or its edition is at another version
+     * @see #patch(Book, Long, Long)
+     */
+    @Transactional
+    public Book update(Book book, Long expectedVersion, Long expectedEditionVersion) {
+        patch(book, expectedVersion, expectedEditionVersion);
 
-        Book updatedBook = existingBook.get();
+        return bookRepository.findByBatchNumberAndEditionIsbn(book.getBatchNumber(), book.getEdition().getIsbn())
+                .orElseThrow(() -> new NotFoundException("Book not found"));
+    }
+
+    /**
+     * Applies the non-null fields of {@code book} to the stored book with the same batch number and edition
+     * using a single {@code UPDATE}, without loading the book. When expected versions are given, the update
+     * only happens if the book and its edition are still at those versions, i.e. if the representation the
+     * client based its changes on is still current. The versions are only read when nothing was updated, to
+     * tell a missing book from a stale expectation.
+     *
+     * @param book                   the keys of the book to update and the new values
+     * @param expectedVersion        the expected version of the book, or {@code null} to update unconditionally
+     * @param expectedEditionVersion the expected version of its edition, or {@code null}
+     * @return the version of the book after the update when it is known without reading it, otherwise {@code null}
+     * @throws NotFoundException           when the book does not exist
+     * @throws PreconditionFailedException when the book or its edition is at another version
+     */
+    @Transactional
+    public Long patch(Book book, Long expectedVersion, Long expectedEditionVersion) {
+        String batchNumber = book.getBatchNumber();
+        String isbn = book.getEdition().getIsbn();
+        boolean hasChanges = book.getPublisher() != null || book.getPublishedYear() != null;
 
-        if (book.getPublishedYear() != null) {
-            updatedBook.setPublishedYear(book.getPublishedYear());
+        if (hasChanges && bookRepository.updateNonNullFields(batchNumber, isbn, book.getPublisher(),
+                book.getPublishedYear(), expectedVersion, expectedEditionVersion) > 0) {
+            return expectedVersion != null ? expectedVersion + 1 : null;
         }
 
-        if(book.getPublisher() != null) {
-            updatedBook.setPublisher(book.getPublisher());
+        BookRepository.BookVersion version = bookRepository.findVersionByBatchNumberAndEditionIsbn(batchNumber, isbn)
+                .orElseThrow(() -> new NotFoundException("Book not found"));
+
+        if ((expectedVersion != null && !expectedVersion.equals(version.getVersion()))
+                || (expectedEditionVersion != null && !expectedEditionVersion.equals(version.getEditionVersion()))) {
+            throw new PreconditionFailedException("Book has been modified");
         }
 
-        return bookRepository.save(updatedBook);
+        return version.getVersion();
     }
 
-    @Transactional
+    /**
+     * Inserts {@code book}, creating its edition first when it does not exist yet. The edition is resolved
+     * through {@link BookEditionService#findOrCreate(BookEdition, Set)} outside of any transaction, so
+     * concurrent first writes for the same ISBN do not fail. When the book cannot be inserted, e.g. because
+     * its batch number already exists, the edition is deleted again if this call created it and no other book
+     * uses it yet, as if both had been written in one transaction.
+     */
     public Book save(Book book) {
-        BookEdition edition = book.getEdition();
+        Set<String> createdIsbns = new HashSet<>();
+        book.setEdition(bookEditionService.findOrCreate(book.getEdition(), createdIsbns));
+        Book savedBook;
+
+        try {
+            savedBook = bookRepository.save(book);
+        } catch (RuntimeException e) {
+            deleteCreatedEditions(createdIsbns, e);
+            throw e;
+        }
 
-        Optional<BookEdition> existingEdition = bookEditionRepository.findByIsbn(edition.getIsbn());
+        eventPublisher.publishEvent(new BooksChangedEvent(Set.of(savedBook.getEdition().getIsbn())));
+        return savedBook;
+    }
+
+    /**
+     * Inserts many books at once. Every referenced edition is resolved with one query and the missing ones
+     * are created, then the books are inserted in JDBC batches within one transaction. A book is skipped
+     * when the same batch number already exists for its edition, either in the database or earlier in
+     * {@code books}.
+     *
+     * <p>The keys are looked up before the insert transaction, so another request may insert one of them in
+     * between. The batch then fails on the duplicate key and rolls back, and the books are inserted again one
+     * by one, skipping the duplicates: a concurrent insert still shows up as one skipped book, not as a failed
+     * batch. Those inserts commit one at a time, so a book failing for another reason leaves the books before
+     * it inserted. When the insert fails, the editions this call created are deleted again unless a book uses
+     * them, as in {@link #save(Book)}.</p>
+     *
+     * <p>The inserted books get their id assigned; the skipped ones are left without one.</p>
+     *
+     * @param books the books to insert, each with at least the ISBN of its edition
+     * @return the books that were inserted
+     */
+    public List<Book> saveAll(List<Book> books) {
+        return saveAll(books, new HashSet<>());
+    }
 
-        if (existingEdition.isPresent()) {
-            book.setEdition(existingEdition.get());
-        } else {
-            BookEdition savedEdition = bookEditionRepository.save(edition);
-            book.setEdition(savedEdition);
+    /**
+     * Same as {@link #saveAll(List)}, also skipping the books whose edition is missing and cannot be created,
+     * e.g. because its title does not fit its column, instead of failing the whole batch.
+     *
+     * @param books        the books to insert, each with at least the ISBN of its edition
+     * @param invalidIsbns receives the ISBNs of the editions that could not be created
+     * @return the books that were inserted
+     */
+    public List<Book> saveAll(List<Book> books, Set<String> invalidIsbns) {
+        Map<String, BookEdition> requestedEditions = new LinkedHashMap<>();
+        Set<String> batchNumbers = new HashSet<>();
+
+        for (Book book : books) {
+            requestedEditions.putIfAbsent(book.getEdition().getIsbn(), book.getEdition());
+            batchNumbers.add(book.getBatchNumber());
         }
 
-        return bookRepository.save(book);
+        Set<String> isbns = requestedEditions.keySet();
+        Set<String> createdIsbns = new HashSet<>();
+        Map<String, BookEdition> editions = bookEditionService.findOrCreateAll(requestedEditions.values(), createdIsbns,
+                invalidIsbns);
+
+        Set<List<String>> existingKeys = new HashSet<>();
+        bookRepository.findKeysByEditionIsbnInAndBatchNumberIn(isbns, batchNumbers)
+                .forEach(key -> existingKeys.add(List.of(key.getIsbn(), key.getBatchNumber())));
+
+        List<Book> newBooks = new ArrayList<>();
+
+        for (Book book : books) {
+            String isbn = book.getEdition().getIsbn();
+
+            if (invalidIsbns.contains(isbn) || !existingKeys.add(List.of(isbn, book.getBatchNumber()))) {
+                continue;
+            }
+
+            book.setEdition(editions.get(isbn));
+            newBooks.add(book);
+        }
+
+        List<Book> insertedBooks;
+
+        try {
+            insertedBooks = insertAll(newBooks);
+        } catch (RuntimeException e) {
+            deleteCreatedEditions(createdIsbns, e);
+            throw e;
+        }
+
+        if (!insertedBooks.isEmpty()) {
+            Set<String> changedIsbns = new HashSet<>();
+            insertedBooks.forEach(book -> changedIsbns.add(book.getEdition().getIsbn()));
+            eventPublisher.publishEvent(new BooksChangedEvent(changedIsbns));
+        }
+
+        return insertedBooks;
+    }
+
+    private List<Book> insertAll(List<Book> books) {
+        try {
+            bookRepository.saveAll(books);
+            return books;
+        } catch (DuplicateKeyException e) {
+            // Retried one by one below
+        }
+
+        // A book with one of the keys was inserted since they were looked up, and the whole batch rolled back
+        List<Book> insertedBooks = new ArrayList<>();
+
+        for (Book book : books) {
+            try {
+                book.setId(null);
+                book.setVersion(null);
+                insertedBooks.add(bookRepository.save(book));
+            } catch (DuplicateKeyException e) {
+                book.setId(null);
+                book.setVersion(null);
+            }
+        }
+
+        return insertedBooks;
+    }
+
+    private void deleteCreatedEditions(Set<String> createdIsbns, RuntimeException failure) {
+        try {
+            bookEditionService.deleteUnused(createdIsbns);
+        } catch (RuntimeException e) {
+            failure.addSuppressed(e);
+        }
     }
 
     @Transactional(readOnly = true)
@@ -80,14 +259,42 @@ public class BookService implements GenericService<Book> {
         return bookRepository.findAll();
     }
 
+    /**
+     * Retrieves up to {@code limit} books ordered by id, starting right after {@code afterId}.
+     *
+     * @param afterId the id of the last book of the previous page, or {@code null} for the first page
+     * @param limit   the maximum number of books to return
+     * @return the books of the requested page
+     */
+    @Transactional(readOnly = true)
+    public List<Book> findPage(Long afterId, int limit) {
+        if (afterId == null) {
+            return bookRepository.findAllByOrderByIdAsc(Limit.of(limit));
+        }
+
+        return bookRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+    }
+
+    /**
+     * Hands every book, ordered by id, to {@code consumer} while reading them through a forward-only cursor
+     * (see {@link BookRepository#streamAllWithEditions()}). Memory use does not grow with the size of the table.
+     *
+     * @param consumer receives each book with its edition loaded
+     */
+    public void streamAll(Consumer<Book> consumer) {
+        try (Stream<Book> books = bookRepository.streamAllWithEditions()) {
+            books.forEach(consumer);
+        }
+    }
+
     @Transactional
     public void delete(String batchNumber, String editionIsbn) {
-        Optional<Book> existingBook = bookRepository.findByBatchNumberAndEditionIsbn(batchNumber, editionIsbn);
+        int deleted = bookRepository.deleteByBatchNumberAndEditionIsbn(batchNumber, editionIsbn);
 
-        if (existingBook.isEmpty()) {
+        if (deleted == 0) {
             throw new NotFoundException("Book not found");
         }
 
-        bookRepository.deleteByBatchNumberAndEditionIsbn(batchNumber, editionIsbn);
+        eventPublisher.publishEvent(new BooksChangedEvent(Set.of(editionIsbn)));
     }
 }
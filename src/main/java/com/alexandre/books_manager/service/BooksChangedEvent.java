@@ -0,0 +1,11 @@
+package com.alexandre.books_manager.service;
+
+import java.util.Set;
+
+/**
+ * Published by {@link BookService} when books are created or deleted, so that listeners can follow how many
+ * books each edition has.
+ *
+ * @param isbns the ISBNs of the editions whose books changed
+ */
+public record BooksChangedEvent(Set<String> isbns) {}
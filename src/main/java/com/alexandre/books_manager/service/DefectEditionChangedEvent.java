@@ -0,0 +1,9 @@
+package com.alexandre.books_manager.service;
+
+/**
+ * Published by {@link DefectEditionService} when a defect is saved. It only carries the ISBN of the defective
+ * edition: listeners read the committed defects of that edition themselves.
+ *
+ * @param isbn the ISBN of the edition whose defects changed
+ */
+public record DefectEditionChangedEvent(String isbn) {}
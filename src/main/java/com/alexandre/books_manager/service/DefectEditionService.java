@@ -2,20 +2,32 @@ package com.alexandre.books_manager.service;
 
 import com.alexandre.books_manager.exception.BadRequestException;
 import com.alexandre.books_manager.exception.NotFoundException;
-import com.alexandre.books_manager.model.Book;
 import com.alexandre.books_manager.model.DefectEdition;
 import com.alexandre.books_manager.repository.BookRepository;
 import com.alexandre.books_manager.repository.DefectEditionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class DefectEditionService implements GenericService<DefectEdition> {
+    /**
+     * Maximum number of batch numbers bound to a single {@code IN} list when checking that the affected
+     * batches exist. Keeps statements well below driver and server limits for very large recalls.
+     */
+    static final int BATCH_LOOKUP_CHUNK_SIZE = 1000;
+
     private BookRepository bookRepository;
     private DefectEditionRepository defectEditionRepository;
+    private ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public void setDefectBookRepository(DefectEditionRepository defectEditionRepository) {
@@ -27,6 +39,11 @@ public class DefectEditionService implements GenericService<DefectEdition> {
         this.bookRepository = bookRepository;
     }
 
+    @Autowired
+    public void setEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
     @Transactional(readOnly = true)
     public Optional<DefectEdition> findById(String id) {
         return defectEditionRepository.findById(id);
@@ -35,21 +52,33 @@ public class DefectEditionService implements GenericService<DefectEdition> {
     @Transactional
     public DefectEdition save(DefectEdition defectEdition) {
         String currentEditionISBN = defectEdition.getEdition().getIsbn();
+        List<String> missingBatches = findMissingBatches(currentEditionISBN, defectEdition.getAffectedBatches());
 
-        defectEdition.getAffectedBatches().forEach(affectedBatch -> {
-            Optional<Book> foundBook = bookRepository
-                    .findByBatchNumberAndEditionIsbn(affectedBatch, currentEditionISBN);
-
-            if (foundBook.isEmpty()) {
-                throw new NotFoundException("No book found with batch number: " + affectedBatch + ", and ISBN: " + currentEditionISBN);
-            }
-        });
+        if (!missingBatches.isEmpty()) {
+            throw new NotFoundException("No books found with ISBN: " + currentEditionISBN
+                    + ", and batch numbers: " + String.join(", ", missingBatches));
+        }
 
-        return defectEditionRepository.save(defectEdition);
+        DefectEdition savedDefectEdition = defectEditionRepository.save(defectEdition);
+        eventPublisher.publishEvent(new DefectEditionChangedEvent(currentEditionISBN));
+        return savedDefectEdition;
     }
 
     @Transactional(readOnly = true)
     public Iterable<DefectEdition> findAll() {
         return defectEditionRepository.findAll();
     }
+
+    private List<String> findMissingBatches(String isbn, Collection<String> affectedBatches) {
+        Set<String> missingBatches = new LinkedHashSet<>(affectedBatches);
+        List<String> batchNumbers = new ArrayList<>(missingBatches);
+
+        for (int from = 0; from < batchNumbers.size(); from += BATCH_LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = batchNumbers.subList(from, Math.min(from + BATCH_LOOKUP_CHUNK_SIZE, batchNumbers.size()));
+            bookRepository.findBatchNumbersByEditionIsbnAndBatchNumberIn(isbn, chunk)
+                    .forEach(missingBatches::remove);
+        }
+
+        return new ArrayList<>(missingBatches);
+    }
 }
@@ -0,0 +1,51 @@
+package com.alexandre.books_manager.service;
+
+import com.alexandre.books_manager.model.InstanceChanges;
+import com.alexandre.books_manager.repository.InstanceChangesRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/**
+ * Tells the in-memory indexes whether books or defects were changed through other instances sharing the
+ * database, without reading the catalog.
+ *
+ * <p>On startup the instance registers a row of its own in {@code instance_changes}, and the indexes count
+ * every change they apply from the events of this instance into it, once the change is committed. The sums of
+ * the other rows only grow, and grow with any book or defect created, updated or deleted elsewhere, so an
+ * index compares them with the sums it last read to decide whether to catch up. A change is counted right
+ * after it is committed: when an instance stops in between, the others only catch up with it at the next
+ * change it counted.</p>
+ */
+@Service
+public class InstanceChangeService {
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private InstanceChangesRepository instanceChangesRepository;
+
+    @Autowired
+    public void setInstanceChangesRepository(InstanceChangesRepository instanceChangesRepository) {
+        this.instanceChangesRepository = instanceChangesRepository;
+    }
+
+    @PostConstruct
+    void register() {
+        InstanceChanges instanceChanges = new InstanceChanges();
+        instanceChanges.setInstanceId(instanceId);
+        instanceChangesRepository.save(instanceChanges);
+    }
+
+    public void countBookChanges() {
+        instanceChangesRepository.incrementBookChanges(instanceId);
+    }
+
+    public void countDefectChanges() {
+        instanceChangesRepository.incrementDefectChanges(instanceId);
+    }
+
+    public InstanceChangesRepository.ChangeCounts changesOfOtherInstances() {
+        return instanceChangesRepository.sumChangesOfOtherInstances(instanceId);
+    }
+}
@@ -0,0 +1,356 @@
+package com.alexandre.books_manager.service;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Suggestions sorted by normalized key, answering "the heaviest suggestions starting with a prefix" into an
+ * array of the caller. The keys starting with a prefix form a contiguous range of the sorted array, found by
+ * binary search, and a segment tree over the weights gives the heaviest suggestion of any range in O(log n). The
+ * top {@code k} are then taken by splitting the range around each suggestion taken, in O(k log n). Neither the
+ * search nor normalizing a typed prefix allocates, unless all the pooled scratch buffers are taken at once.
+ *
+ * <p>An index is immutable: adding or removing suggestions and changing their weights all build a new index
+ * with {@link #merge}, so an index can be published to concurrent lookups through a volatile field.</p>
+ */
+final class PrefixIndex {
+    static final int MAX_LIMIT = 20;
+    static final PrefixIndex EMPTY = new PrefixIndex(new String[0], new String[0], new long[0], new int[0]);
+
+    private static final int CANDIDATES_LENGTH = 3 * (MAX_LIMIT + 1);
+    private static final int MAX_POOLED_KEY_LENGTH = 256;
+    // Scratch buffers for top() and toKey(), reused across calls. A thread-local would allocate one per virtual
+    // thread, that is one per request; a thread finding its slot taken allocates one instead of waiting.
+    private static final AtomicReferenceArray<int[]> CANDIDATES = new AtomicReferenceArray<>(64);
+    private static final AtomicReferenceArray<StringBuilder> KEYS = new AtomicReferenceArray<>(64);
+
+    private final String[] keys;
+    private final String[] texts;
+    private final long[] weights;
+    private final int[] references;
+    // tree[n + i] = i, and every other node holds the heavier position of its two children
+    private final int[] tree;
+
+    /**
+     * The change of one suggestion in a {@link #merge}.
+     *
+     * @param text       the text to suggest, used when the suggestion is new
+     * @param weight     what to add to its weight
+     * @param references what to add to the number of entries it is suggested for; it is removed at 0
+     */
+    record Change(String text, long weight, int references) {}
+
+    private PrefixIndex(String[] keys, String[] texts, long[] weights, int[] references) {
+        this.keys = keys;
+        this.texts = texts;
+        this.weights = weights;
+        this.references = references;
+        this.tree = new int[2 * keys.length];
+
+        for (int position = 0; position < keys.length; position++) {
+            tree[keys.length + position] = position;
+        }
+
+        for (int node = keys.length - 1; node > 0; node--) {
+            tree[node] = heavier(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Normalizes a text into the key it is sorted and looked up by: lower case, without accents and with
+     * single spaces between words. A text that already is a key, as typed prefixes mostly are, is returned as
+     * is. Any other text is normalized into a pooled buffer, and only a text that is not ASCII is decomposed
+     * with the {@link Normalizer} first, to strip its accents.
+     */
+    static String toKey(String text) {
+        if (isAsciiKey(text)) {
+            return text;
+        }
+
+        String decomposed = isAscii(text) ? text : Normalizer.normalize(text, Normalizer.Form.NFD);
+        int slot = scratchSlot();
+        StringBuilder key = KEYS.getAndSet(slot, null);
+
+        if (key == null) {
+            key = new StringBuilder(MAX_POOLED_KEY_LENGTH);
+        }
+
+        boolean spaceBefore = false;
+
+        for (int index = 0; index < decomposed.length(); ) {
+            int codePoint = decomposed.codePointAt(index);
+            index += Character.charCount(codePoint);
+
+            if (Character.isWhitespace(codePoint)) {
+                spaceBefore = !key.isEmpty();
+            } else if (!isMark(codePoint)) {
+                if (spaceBefore) {
+                    key.append(' ');
+                    spaceBefore = false;
+                }
+
+                key.appendCodePoint(Character.toLowerCase(codePoint));
+            }
+        }
+
+        String normalized = key.toString();
+
+        if (key.capacity() <= MAX_POOLED_KEY_LENGTH) {
+            key.setLength(0);
+            KEYS.set(slot, key);
+        }
+
+        return normalized;
+    }
+
+    /**
+     * @return whether {@link #toKey} would return the text unchanged: lower case ASCII, with single spaces
+     * between words only
+     */
+    private static boolean isAsciiKey(String text) {
+        for (int index = 0; index < text.length(); index++) {
+            char character = text.charAt(index);
+
+            if (character == ' ') {
+                if (index == 0 || index == text.length() - 1 || text.charAt(index - 1) == ' ') {
+                    return false;
+                }
+            } else if (character >= 0x80 || (character >= 'A' && character <= 'Z')
+                    || Character.isWhitespace(character)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int index = 0; index < text.length(); index++) {
+            if (text.charAt(index) >= 0x80) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isMark(int codePoint) {
+        int type = Character.getType(codePoint);
+        return type == Character.NON_SPACING_MARK || type == Character.ENCLOSING_MARK
+                || type == Character.COMBINING_SPACING_MARK;
+    }
+
+    private static int scratchSlot() {
+        return (int) (Thread.currentThread().threadId() & (CANDIDATES.length() - 1));
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    /**
+     * @return the position of the suggestion with this key, or a negative value when there is none
+     */
+    int positionOf(String key) {
+        return Arrays.binarySearch(keys, key);
+    }
+
+    long weightAt(int position) {
+        return weights[position];
+    }
+
+    /**
+     * Writes the texts of the heaviest suggestions whose key starts with {@code prefix} into {@code into},
+     * heaviest first and in key order among equal weights.
+     *
+     * @param prefix a key prefix, as returned by {@link #toKey}
+     * @param into   where to write the suggestions
+     * @param limit  the maximum number of suggestions, at most {@link #MAX_LIMIT} and the length of {@code into}
+     * @return the number of suggestions written
+     */
+    int top(String prefix, String[] into, int limit) {
+        if (limit > MAX_LIMIT || limit > into.length) {
+            throw new IllegalArgumentException("Cannot suggest more than " + Math.min(MAX_LIMIT, into.length) + " texts");
+        }
+
+        int from = firstPositionNotBefore(prefix, false);
+        int to = firstPositionNotBefore(prefix, true);
+
+        if (from == to) {
+            return 0;
+        }
+
+        // Ranges still to pick from, as (from, to, heaviest position) triples
+        int slot = scratchSlot();
+        int[] candidates = CANDIDATES.getAndSet(slot, null);
+
+        if (candidates == null) {
+            candidates = new int[CANDIDATES_LENGTH];
+        }
+
+        int size = addCandidate(candidates, 0, from, to);
+        int count = 0;
+
+        while (count < limit && size > 0) {
+            int picked = 0;
+
+            for (int candidate = 1; candidate < size; candidate++) {
+                if (heavier(candidates[3 * picked + 2], candidates[3 * candidate + 2]) != candidates[3 * picked + 2]) {
+                    picked = candidate;
+                }
+            }
+
+            int pickedFrom = candidates[3 * picked];
+            int pickedTo = candidates[3 * picked + 1];
+            int position = candidates[3 * picked + 2];
+            into[count++] = texts[position];
+
+            size--;
+            System.arraycopy(candidates, 3 * size, candidates, 3 * picked, 3);
+            size = addCandidate(candidates, size, pickedFrom, position);
+            size = addCandidate(candidates, size, position + 1, pickedTo);
+        }
+
+        CANDIDATES.set(slot, candidates);
+        return count;
+    }
+
+    /**
+     * Builds the index holding these suggestions with the given changes applied. The suggestions between two
+     * changed keys are copied in bulk, so merging a few changes costs little more than copying the arrays.
+     *
+     * @param changes the changes keyed by {@link #toKey key}
+     */
+    PrefixIndex merge(SortedMap<String, Change> changes) {
+        int capacity = keys.length + changes.size();
+        String[] mergedKeys = new String[capacity];
+        String[] mergedTexts = new String[capacity];
+        long[] mergedWeights = new long[capacity];
+        int[] mergedReferences = new int[capacity];
+        int size = 0;
+        int position = 0;
+
+        for (Map.Entry<String, Change> change : changes.entrySet()) {
+            int found = Arrays.binarySearch(keys, position, keys.length, change.getKey());
+            int unchangedTo = found >= 0 ? found : -found - 1;
+            int unchanged = unchangedTo - position;
+
+            System.arraycopy(keys, position, mergedKeys, size, unchanged);
+            System.arraycopy(texts, position, mergedTexts, size, unchanged);
+            System.arraycopy(weights, position, mergedWeights, size, unchanged);
+            System.arraycopy(references, position, mergedReferences, size, unchanged);
+            size += unchanged;
+            position = unchangedTo;
+
+            String text = found >= 0 ? texts[found] : change.getValue().text();
+            long weight = (found >= 0 ? weights[found] : 0) + change.getValue().weight();
+            int referenceCount = (found >= 0 ? references[found] : 0) + change.getValue().references();
+
+            if (found >= 0) {
+                position++;
+            }
+
+            if (referenceCount > 0) {
+                mergedKeys[size] = change.getKey();
+                mergedTexts[size] = text;
+                mergedWeights[size] = weight;
+                mergedReferences[size++] = referenceCount;
+            }
+        }
+
+        int unchanged = keys.length - position;
+        System.arraycopy(keys, position, mergedKeys, size, unchanged);
+        System.arraycopy(texts, position, mergedTexts, size, unchanged);
+        System.arraycopy(weights, position, mergedWeights, size, unchanged);
+        System.arraycopy(references, position, mergedReferences, size, unchanged);
+        size += unchanged;
+
+        return new PrefixIndex(Arrays.copyOf(mergedKeys, size), Arrays.copyOf(mergedTexts, size),
+                Arrays.copyOf(mergedWeights, size), Arrays.copyOf(mergedReferences, size));
+    }
+
+    private int addCandidate(int[] candidates, int size, int from, int to) {
+        if (from >= to) {
+            return size;
+        }
+
+        candidates[3 * size] = from;
+        candidates[3 * size + 1] = to;
+        candidates[3 * size + 2] = heaviest(from, to);
+        return size + 1;
+    }
+
+    /**
+     * @return the heaviest position in {@code [from, to)}
+     */
+    private int heaviest(int from, int to) {
+        int heaviest = -1;
+
+        for (from += keys.length, to += keys.length; from < to; from /= 2, to /= 2) {
+            if ((from & 1) == 1) {
+                heaviest = heavier(heaviest, tree[from++]);
+            }
+
+            if ((to & 1) == 1) {
+                heaviest = heavier(heaviest, tree[--to]);
+            }
+        }
+
+        return heaviest;
+    }
+
+    private int heavier(int position, int other) {
+        if (position < 0 || other < 0) {
+            return Math.max(position, other);
+        }
+
+        if (weights[position] != weights[other]) {
+            return weights[position] > weights[other] ? position : other;
+        }
+
+        return Math.min(position, other);
+    }
+
+    /**
+     * Binary searches the first key that does not sort before {@code prefix}, or, with {@code pastPrefix},
+     * the first key that sorts after every key starting with {@code prefix}.
+     */
+    private int firstPositionNotBefore(String prefix, boolean pastPrefix) {
+        int low = 0;
+        int high = keys.length;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int order = comparePrefix(keys[middle], prefix);
+
+            if (order < 0 || (pastPrefix && order == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Compares the first {@code prefix.length()} characters of {@code key} with {@code prefix}, so that every
+     * key starting with {@code prefix} compares equal.
+     */
+    private static int comparePrefix(String key, String prefix) {
+        int length = Math.min(key.length(), prefix.length());
+
+        for (int index = 0; index < length; index++) {
+            int order = Character.compare(key.charAt(index), prefix.charAt(index));
+
+            if (order != 0) {
+                return order;
+            }
+        }
+
+        return key.length() >= prefix.length() ? 0 : -1;
+    }
+}
@@ -0,0 +1,146 @@
+package com.alexandre.books_manager.service;
+
+import com.alexandre.books_manager.repository.DefectEditionRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Answers "is this batch affected by a defect?" from memory, for scanners checking books one by one.
+ *
+ * <p>The affected batches of every defect are loaded on startup into a map from ISBN to batch numbers, so a
+ * check is two hash lookups and never reaches the database. Most scanned editions have no defect at all and
+ * are answered by the first lookup. The batches of an edition are read again once a
+ * {@link DefectEditionChangedEvent} is committed, and dropped once the edition itself is deleted.</p>
+ *
+ * <p>Events only come from this instance. So that a recall recorded through another instance is not answered
+ * as unaffected for long, every {@code books-manager.recall.resync-interval} the defect changes counted by the
+ * other instances (see {@link InstanceChangeService}) are read. Only when they changed are the affected batches
+ * read again, and the editions whose batches differ from memory reloaded.</p>
+ */
+@Service
+public class RecallCheckService {
+    private static final int RELOAD_LOCK_STRIPES = 64;
+
+    private DefectEditionRepository defectEditionRepository;
+    private InstanceChangeService instanceChangeService;
+
+    private final Map<String, Set<String>> affectedBatchesByIsbn = new ConcurrentHashMap<>();
+    // Serializes the reloads of an edition, so the last one to run always reads the latest committed batches
+    private final StripedLocks reloadLocks = new StripedLocks(RELOAD_LOCK_STRIPES);
+    // The defect changes of the other instances the map was last caught up with; only written by load and resync
+    private volatile long syncedDefectChangesOfOthers;
+
+    @Autowired
+    public void setDefectEditionRepository(DefectEditionRepository defectEditionRepository) {
+        this.defectEditionRepository = defectEditionRepository;
+    }
+
+    @Autowired
+    public void setInstanceChangeService(InstanceChangeService instanceChangeService) {
+        this.instanceChangeService = instanceChangeService;
+    }
+
+    @PostConstruct
+    void load() {
+        // Read first, so that a change made while loading triggers a resync rather than none
+        syncedDefectChangesOfOthers = instanceChangeService.changesOfOtherInstances().getDefectChanges();
+        readAllAffectedBatches().forEach((isbn, batchNumbers) -> affectedBatchesByIsbn.put(isbn, Set.copyOf(batchNumbers)));
+    }
+
+    /**
+     * Catches up with the defects changed through other instances. The editions that differ are read again
+     * one by one under their lock, so a snapshot older than a concurrent reload never overwrites it.
+     */
+    @Scheduled(fixedDelayString = "${books-manager.recall.resync-interval:30s}",
+            initialDelayString = "${books-manager.recall.resync-interval:30s}")
+    void resync() {
+        long defectChangesOfOthers = instanceChangeService.changesOfOtherInstances().getDefectChanges();
+
+        if (defectChangesOfOthers == syncedDefectChangesOfOthers) {
+            return;
+        }
+
+        Map<String, Set<String>> affectedBatches = readAllAffectedBatches();
+        Set<String> changedIsbns = new HashSet<>();
+
+        affectedBatches.forEach((isbn, batchNumbers) -> {
+            if (!batchNumbers.equals(affectedBatchesByIsbn.get(isbn))) {
+                changedIsbns.add(isbn);
+            }
+        });
+
+        for (String isbn : affectedBatchesByIsbn.keySet()) {
+            if (!affectedBatches.containsKey(isbn)) {
+                changedIsbns.add(isbn);
+            }
+        }
+
+        changedIsbns.forEach(this::reload);
+        syncedDefectChangesOfOthers = defectChangesOfOthers;
+    }
+
+    /**
+     * @return whether a defect of the edition {@code isbn} lists the batch {@code batchNumber}
+     */
+    public boolean isAffected(String batchNumber, String isbn) {
+        Set<String> affectedBatches = affectedBatchesByIsbn.get(isbn);
+        return affectedBatches != null && affectedBatches.contains(batchNumber);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDefectEditionChanged(DefectEditionChangedEvent event) {
+        reload(event.isbn());
+        instanceChangeService.countDefectChanges();
+    }
+
+    /**
+     * Deleting an edition deletes its defects. Other edition changes leave them as they are, so only the
+     * editions with affected batches are read again.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookEditionChanged(BookEditionChangedEvent event) {
+        if (affectedBatchesByIsbn.containsKey(event.isbn())) {
+            reload(event.isbn());
+            instanceChangeService.countDefectChanges();
+        }
+    }
+
+    private Map<String, Set<String>> readAllAffectedBatches() {
+        Map<String, Set<String>> affectedBatches = new HashMap<>();
+
+        for (DefectEditionRepository.AffectedBatch affectedBatch : defectEditionRepository.findAllAffectedBatches()) {
+            affectedBatches.computeIfAbsent(affectedBatch.getIsbn(), isbn -> new HashSet<>())
+                    .add(affectedBatch.getBatchNumber());
+        }
+
+        return affectedBatches;
+    }
+
+    private void reload(String isbn) {
+        Lock lock = reloadLocks.get(isbn);
+        lock.lock();
+
+        try {
+            List<String> batchNumbers = defectEditionRepository.findAffectedBatchNumbersByEditionIsbn(isbn);
+
+            if (batchNumbers.isEmpty()) {
+                affectedBatchesByIsbn.remove(isbn);
+            } else {
+                affectedBatchesByIsbn.put(isbn, Set.copyOf(batchNumbers));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.alexandre.books_manager.service;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared by keys hashing to the same stripe. Threads working on the same key always
+ * get the same lock, while unrelated keys rarely contend and memory use does not grow with the key space.
+ */
+final class StripedLocks {
+    private final Lock[] locks;
+
+    StripedLocks(int stripes) {
+        locks = new Lock[stripes];
+
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            locks[stripe] = new ReentrantLock();
+        }
+    }
+
+    Lock get(Object key) {
+        int hash = key.hashCode();
+        return locks[Math.floorMod(hash ^ (hash >>> 16), locks.length)];
+    }
+}
@@ -0,0 +1,53 @@
+-- The schema as Hibernate created it with ddl-auto=update, once the upgrade scripts 001 and 002 have run,
+-- with the same constraint names. Databases created before the migrations already have it: Flyway records
+-- them at this version the first time it runs (baseline-on-migrate) and only applies the later scripts.
+
+CREATE TABLE book_editions (
+    number INTEGER,
+    version BIGINT DEFAULT 0 NOT NULL,
+    author_name VARCHAR(255) NOT NULL,
+    isbn VARCHAR(255) NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    PRIMARY KEY (isbn)
+) ENGINE = InnoDB;
+
+CREATE TABLE books (
+    published_year INTEGER,
+    id BIGINT NOT NULL,
+    version BIGINT DEFAULT 0 NOT NULL,
+    batch_number VARCHAR(255) NOT NULL,
+    edition_isbn VARCHAR(255) NOT NULL,
+    publisher VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE defect_editions (
+    id BIGINT NOT NULL,
+    defect_code VARCHAR(255) NOT NULL,
+    edition_isbn VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE affected_batches (
+    defect_id BIGINT NOT NULL,
+    batch_number VARCHAR(255) NOT NULL,
+    PRIMARY KEY (defect_id, batch_number)
+) ENGINE = InnoDB;
+
+-- Id sequences, emulated with tables on MySQL; next_val is the first id of the next block (pooled-lo)
+CREATE TABLE books_seq (next_val BIGINT) ENGINE = InnoDB;
+INSERT INTO books_seq VALUES (1);
+
+CREATE TABLE defect_editions_seq (next_val BIGINT) ENGINE = InnoDB;
+INSERT INTO defect_editions_seq VALUES (1);
+
+CREATE INDEX idx_affected_batches_batch_number ON affected_batches (batch_number);
+
+ALTER TABLE books ADD CONSTRAINT UK1ftqwci1mq4wri2uouiclkfou UNIQUE (batch_number, edition_isbn);
+ALTER TABLE defect_editions ADD CONSTRAINT UK9il63h1c383kyf5laamqyxrl7 UNIQUE (defect_code, edition_isbn);
+ALTER TABLE affected_batches ADD CONSTRAINT fk_affected_batches_defect
+    FOREIGN KEY (defect_id) REFERENCES defect_editions (id);
+ALTER TABLE books ADD CONSTRAINT FK3c38lg9w67xhfu26hluuwyoj4
+    FOREIGN KEY (edition_isbn) REFERENCES book_editions (isbn);
+ALTER TABLE defect_editions ADD CONSTRAINT FKepb8m23e0edfaly7cdw4iqgwi
+    FOREIGN KEY (edition_isbn) REFERENCES book_editions (isbn);
@@ -0,0 +1,11 @@
+-- Indexes for the lookups by edition. The unique key of books starts with batch_number, so it only serves
+-- the lookups of one book; the lookups of all the books of an edition (BookRepository.findByEditionIsbn,
+-- deleteByEditionIsbn, countByEditionIsbnIn, findKeysByEditionIsbnInAndBatchNumberIn and
+-- findBatchNumbersByEditionIsbnAndBatchNumberIn, the book counts of BookEditionRepository
+-- .findSummariesByIsbnGreaterThan) get an index starting with edition_isbn, which also covers batch_number.
+-- The defects of an edition (DefectEditionRepository.deleteByEditionIsbn and the affected batch lookups) get
+-- one too. MySQL drops the indexes it created implicitly for the foreign keys on edition_isbn, which these
+-- replace.
+
+CREATE INDEX idx_books_edition_isbn_batch_number ON books (edition_isbn, batch_number);
+CREATE INDEX idx_defect_editions_edition_isbn ON defect_editions (edition_isbn);
@@ -0,0 +1,10 @@
+-- One row per started instance, counting the book and defect changes made through it
+-- (InstanceChangeService). The in-memory indexes sum the rows of the other instances to find out when to catch
+-- up with them, instead of counting the books or reading every affected batch.
+
+CREATE TABLE instance_changes (
+    book_changes BIGINT NOT NULL,
+    defect_changes BIGINT NOT NULL,
+    instance_id VARCHAR(36) NOT NULL,
+    PRIMARY KEY (instance_id)
+) ENGINE = InnoDB;
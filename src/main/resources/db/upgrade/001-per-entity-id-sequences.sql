@@ -0,0 +1,15 @@
+-- Book and DefectEdition ids come from their own sequences (books_seq, defect_editions_seq) with the
+-- pooled-lo optimizer: each stored next_val is the first id of the next block handed out to an instance.
+--
+-- Run this once on MySQL with every instance stopped, before starting the release that introduces the
+-- explicit generators. It creates the sequence tables when the schema still relies on the shared
+-- hibernate_sequence table, and moves both sequences past the highest id in use. Running it again is safe.
+-- Old and new instances must not write at the same time: pooled and pooled-lo read next_val differently.
+
+CREATE TABLE IF NOT EXISTS books_seq (next_val BIGINT) ENGINE = InnoDB;
+DELETE FROM books_seq;
+INSERT INTO books_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM books;
+
+CREATE TABLE IF NOT EXISTS defect_editions_seq (next_val BIGINT) ENGINE = InnoDB;
+DELETE FROM defect_editions_seq;
+INSERT INTO defect_editions_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM defect_editions;
@@ -0,0 +1,24 @@
+-- affected_batches becomes a keyed set: the owning defect is referenced by defect_id (the old defect_code
+-- column already held the defect id), (defect_id, batch_number) is the primary key, and batch_number is
+-- indexed. Hibernate then inserts or deletes only the batches that changed instead of rewriting every row
+-- of the defect, and the defects affecting a batch are found with an index seek.
+--
+-- Run this once on MySQL with every instance stopped, before starting the release that introduces the
+-- affected batch set. Duplicate batches of a same defect are merged and null batch numbers are dropped.
+-- Running it again fails on the missing defect_code column without changing affected_batches.
+
+DROP TABLE IF EXISTS affected_batches_new;
+
+CREATE TABLE affected_batches_new (
+    defect_id BIGINT NOT NULL,
+    batch_number VARCHAR(255) NOT NULL,
+    PRIMARY KEY (defect_id, batch_number),
+    INDEX idx_affected_batches_batch_number (batch_number),
+    CONSTRAINT fk_affected_batches_defect FOREIGN KEY (defect_id) REFERENCES defect_editions (id)
+) ENGINE = InnoDB;
+
+INSERT IGNORE INTO affected_batches_new (defect_id, batch_number)
+SELECT defect_code, batch_number FROM affected_batches WHERE batch_number IS NOT NULL;
+
+RENAME TABLE affected_batches TO affected_batches_old, affected_batches_new TO affected_batches;
+DROP TABLE affected_batches_old;
@@ -1,15 +1,22 @@
 package com.alexandre.books_manager.controller;
 
 import com.alexandre.books_manager.converter.BookEditionConverter;
+import com.alexandre.books_manager.converter.CursorConverter;
+import com.alexandre.books_manager.converter.ETagConverter;
 import com.alexandre.books_manager.dto.BookEditionDTO;
 import com.alexandre.books_manager.dto.UpdateBookEditionDTO;
+import com.alexandre.books_manager.exception.PreconditionFailedException;
 import com.alexandre.books_manager.model.BookEdition;
+import com.alexandre.books_manager.service.BookEditionSearchService;
 import com.alexandre.books_manager.service.BookEditionService;
+import com.alexandre.books_manager.service.BookEditionSuggestionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -20,11 +27,14 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(BookEditionController.class)
+@Import({CursorConverter.class, ETagConverter.class})
 @ActiveProfiles("test")
 class BookEditionControllerTest {
 
@@ -34,6 +44,12 @@ class BookEditionControllerTest {
     @MockitoBean
     private BookEditionService bookEditionService;
 
+    @MockitoBean
+    private BookEditionSearchService bookEditionSearchService;
+
+    @MockitoBean
+    private BookEditionSuggestionService bookEditionSuggestionService;
+
     @MockitoBean
     private BookEditionConverter bookEditionConverter;
 
@@ -108,22 +124,120 @@ class BookEditionControllerTest {
     void shouldReturnAllBookEditions() throws Exception {
         // Given
         List<BookEdition> bookEditions = Arrays.asList(testBookEdition, secondBookEdition);
-        List<BookEditionDTO> bookEditionDTOs = Arrays.asList(testBookEditionDTO, secondBookEditionDTO);
 
-        when(bookEditionService.findAll()).thenReturn(bookEditions);
-        when(bookEditionConverter.toDtoList(bookEditions)).thenReturn(bookEditionDTOs);
+        when(bookEditionService.findPage(isNull(), eq(101))).thenReturn(bookEditions);
+        when(bookEditionConverter.toDto(testBookEdition)).thenReturn(testBookEditionDTO);
+        when(bookEditionConverter.toDto(secondBookEdition)).thenReturn(secondBookEditionDTO);
 
         // When & Then
         mockMvc.perform(get("/api/v1/book-editions"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$[0].isbn").value("978-3-16-148410-0"))
-                .andExpect(jsonPath("$[0].title").value("Test Book Title"))
-                .andExpect(jsonPath("$[1].isbn").value("978-3-16-148410-1"))
-                .andExpect(jsonPath("$[1].title").value("Second Book Title"));
-
-        verify(bookEditionService, times(1)).findAll();
-        verify(bookEditionConverter, times(1)).toDtoList(bookEditions);
+                .andExpect(jsonPath("$.items").isArray())
+                .andExpect(jsonPath("$.items[0].isbn").value("978-3-16-148410-0"))
+                .andExpect(jsonPath("$.items[0].title").value("Test Book Title"))
+                .andExpect(jsonPath("$.items[1].isbn").value("978-3-16-148410-1"))
+                .andExpect(jsonPath("$.items[1].title").value("Second Book Title"))
+                .andExpect(jsonPath("$.next").doesNotExist());
+
+        verify(bookEditionService, times(1)).findPage(null, 101);
+    }
+
+    @Test
+    void shouldReturnNextCursorWhenMoreBookEditionsExist() throws Exception {
+        // Given
+        List<BookEdition> bookEditions = Arrays.asList(testBookEdition, secondBookEdition);
+        String cursor = new CursorConverter().toCursor("978-3-16-148410-0");
+
+        when(bookEditionService.findPage(isNull(), eq(2))).thenReturn(bookEditions);
+        when(bookEditionService.findPage(eq("978-3-16-148410-0"), eq(2))).thenReturn(List.of(secondBookEdition));
+        when(bookEditionConverter.toDto(testBookEdition)).thenReturn(testBookEditionDTO);
+        when(bookEditionConverter.toDto(secondBookEdition)).thenReturn(secondBookEditionDTO);
+
+        // When & Then - first page holds one edition and points to the next one
+        mockMvc.perform(get("/api/v1/book-editions").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].isbn").value("978-3-16-148410-0"))
+                .andExpect(jsonPath("$.next").value(cursor));
+
+        // When & Then - last page has no next cursor
+        mockMvc.perform(get("/api/v1/book-editions").param("limit", "1").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].isbn").value("978-3-16-148410-1"))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenPageSizeIsOutOfBounds() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/v1/book-editions").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/book-editions").param("limit", "100000"))
+                .andExpect(status().isBadRequest());
+
+        verify(bookEditionService, never()).findPage(any(), anyInt());
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenCursorIsMalformed() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/v1/book-editions").param("cursor", "not a cursor!"))
+                .andExpect(status().isBadRequest());
+
+        verify(bookEditionService, never()).findPage(any(), anyInt());
+    }
+
+    @Test
+    void shouldSearchBookEditions() throws Exception {
+        // Given
+        List<BookEditionSearchService.Match> matches = List.of(
+                new BookEditionSearchService.Match(testBookEdition, "2.5:978-3-16-148410-0"),
+                new BookEditionSearchService.Match(secondBookEdition, "1.5:978-3-16-148410-1"));
+
+        when(bookEditionSearchService.search("test", null, 2)).thenReturn(matches);
+        when(bookEditionConverter.toDto(testBookEdition)).thenReturn(testBookEditionDTO);
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/book-editions/search").param("q", "test").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].isbn").value("978-3-16-148410-0"))
+                .andExpect(jsonPath("$.next").value(new CursorConverter().toCursor("2.5:978-3-16-148410-0")));
+
+        verify(bookEditionService, never()).findByIsbn(anyString());
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenSearchTextIsBlank() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/v1/book-editions/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+
+        verify(bookEditionSearchService, never()).search(any(), any(), anyInt());
+    }
+
+    @Test
+    void shouldSuggestTitlesAndAuthorNames() throws Exception {
+        // Given
+        when(bookEditionSuggestionService.suggestTitles("te", 5)).thenReturn(List.of("Test Book Title"));
+        when(bookEditionSuggestionService.suggestAuthorNames("te", 5)).thenReturn(List.of("Test Author", "Terry Pratchett"));
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/book-editions/suggestions").param("prefix", "te").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titles[0]").value("Test Book Title"))
+                .andExpect(jsonPath("$.authorNames[0]").value("Test Author"))
+                .andExpect(jsonPath("$.authorNames[1]").value("Terry Pratchett"));
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenTooManySuggestionsAreRequested() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/v1/book-editions/suggestions").param("prefix", "te").param("limit", "21"))
+                .andExpect(status().isBadRequest());
+
+        verify(bookEditionSuggestionService, never()).suggestTitles(any(), anyInt());
     }
 
     @Test
@@ -144,6 +258,131 @@ class BookEditionControllerTest {
         verify(bookEditionConverter, times(1)).toDto(testBookEdition);
     }
 
+    @Test
+    void shouldReturnETagOfBookEdition() throws Exception {
+        // Given
+        testBookEdition.setVersion(3L);
+        when(bookEditionService.findByIsbn("978-3-16-148410-0")).thenReturn(Optional.of(testBookEdition));
+        when(bookEditionConverter.toDto(testBookEdition)).thenReturn(testBookEditionDTO);
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/book-editions/978-3-16-148410-0"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""));
+
+        verify(bookEditionService, never()).findVersionByIsbn(anyString());
+    }
+
+    @Test
+    void shouldReturnNotModifiedWithoutLoadingBookEditionWhenETagMatches() throws Exception {
+        // Given
+        when(bookEditionService.findVersionByIsbn("978-3-16-148410-0")).thenReturn(Optional.of(3L));
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/book-editions/978-3-16-148410-0").header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(content().string(""));
+
+        verify(bookEditionService, never()).findByIsbn(anyString());
+    }
+
+    @Test
+    void shouldReturnBookEditionWhenETagIsStale() throws Exception {
+        // Given
+        testBookEdition.setVersion(4L);
+        when(bookEditionService.findVersionByIsbn("978-3-16-148410-0")).thenReturn(Optional.of(4L));
+        when(bookEditionService.findByIsbn("978-3-16-148410-0")).thenReturn(Optional.of(testBookEdition));
+        when(bookEditionConverter.toDto(testBookEdition)).thenReturn(testBookEditionDTO);
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/book-editions/978-3-16-148410-0").header("If-None-Match", "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.isbn").value("978-3-16-148410-0"));
+    }
+
+    @Test
+    void shouldUpdateBookEditionWhenIfMatchHoldsCurrentETag() throws Exception {
+        // Given
+        testBookEdition.setVersion(4L);
+        when(bookEditionConverter.toEntity(any(UpdateBookEditionDTO.class))).thenReturn(testBookEdition);
+        when(bookEditionService.update(testBookEdition, 3L)).thenReturn(testBookEdition);
+        when(bookEditionConverter.toDto(testBookEdition)).thenReturn(testBookEditionDTO);
+
+        // When & Then
+        mockMvc.perform(patch("/api/v1/book-editions")
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testUpdateBookEditionDTO)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+
+        verify(bookEditionService, times(1)).update(testBookEdition, 3L);
+    }
+
+    @Test
+    void shouldReturnPreconditionFailedWhenIfMatchIsStale() throws Exception {
+        // Given
+        when(bookEditionConverter.toEntity(any(UpdateBookEditionDTO.class))).thenReturn(testBookEdition);
+        when(bookEditionService.update(testBookEdition, 3L))
+                .thenThrow(new PreconditionFailedException("Book Edition has been modified"));
+
+        // When & Then
+        mockMvc.perform(patch("/api/v1/book-editions")
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testUpdateBookEditionDTO)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message").value("Book Edition has been modified"));
+    }
+
+    @Test
+    void shouldReturnNoContentWhenMinimalReturnIsPreferred() throws Exception {
+        // Given
+        when(bookEditionConverter.toEntity(any(UpdateBookEditionDTO.class))).thenReturn(testBookEdition);
+        when(bookEditionService.patch(testBookEdition, 3L)).thenReturn(4L);
+
+        // When & Then
+        mockMvc.perform(patch("/api/v1/book-editions")
+                        .header("If-Match", "\"3\"")
+                        .header("Prefer", "return=minimal")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testUpdateBookEditionDTO)))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("Preference-Applied", "return=minimal"))
+                .andExpect(header().string("ETag", "\"4\""));
+
+        verify(bookEditionService, never()).update(any(BookEdition.class), any());
+        verify(bookEditionConverter, never()).toDto(any(BookEdition.class));
+    }
+
+    @Test
+    void shouldReturnConflictWhenBookEditionIsModifiedConcurrently() throws Exception {
+        // Given
+        when(bookEditionConverter.toEntity(any(UpdateBookEditionDTO.class))).thenReturn(testBookEdition);
+        when(bookEditionService.update(testBookEdition))
+                .thenThrow(new OptimisticLockingFailureException("Row was updated or deleted by another transaction"));
+
+        // When & Then
+        mockMvc.perform(patch("/api/v1/book-editions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testUpdateBookEditionDTO)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void shouldReturnPreconditionFailedWhenIfMatchIsWeak() throws Exception {
+        // When & Then
+        mockMvc.perform(patch("/api/v1/book-editions")
+                        .header("If-Match", "W/\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testUpdateBookEditionDTO)))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(bookEditionService, never()).update(any(BookEdition.class), any());
+    }
+
     @Test
     void shouldReturnNotFoundWhenBookEditionDoesNotExist() throws Exception {
         // Given
@@ -283,17 +522,17 @@ class BookEditionControllerTest {
     @Test
     void shouldHandleEmptyBookEditionsList() throws Exception {
         // Given
-        when(bookEditionService.findAll()).thenReturn(Arrays.asList());
-        when(bookEditionConverter.toDtoList(any())).thenReturn(Arrays.asList());
+        when(bookEditionService.findPage(any(), anyInt())).thenReturn(Arrays.asList());
 
         // When & Then
         mockMvc.perform(get("/api/v1/book-editions"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$").isEmpty());
+                .andExpect(jsonPath("$.items").isArray())
+                .andExpect(jsonPath("$.items").isEmpty())
+                .andExpect(jsonPath("$.next").doesNotExist());
 
-        verify(bookEditionService, times(1)).findAll();
-        verify(bookEditionConverter, times(1)).toDtoList(any());
+        verify(bookEditionService, times(1)).findPage(any(), anyInt());
+        verify(bookEditionConverter, never()).toDto(any(BookEdition.class));
     }
 
     @Test
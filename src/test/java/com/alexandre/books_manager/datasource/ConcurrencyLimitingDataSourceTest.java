@@ -0,0 +1,65 @@
+package com.alexandre.books_manager.datasource;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConcurrencyLimitingDataSourceTest {
+    private final DataSource target = mock(DataSource.class);
+    private final ConcurrencyLimitingDataSource dataSource =
+            new ConcurrencyLimitingDataSource(target, 2, Duration.ofMillis(50));
+
+    @Test
+    void shouldGiveThePermitBackOnceWhenConnectionIsClosed() throws Exception {
+        // Given
+        Connection connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+
+        // When
+        Connection limited = dataSource.getConnection();
+        int availableWhileOpen = dataSource.availablePermits();
+        limited.close();
+        limited.close();
+
+        // Then
+        assertThat(availableWhileOpen).isEqualTo(1);
+        assertThat(dataSource.availablePermits()).isEqualTo(2);
+        assertThat(limited.isClosed()).isTrue();
+        verify(connection, times(1)).close();
+    }
+
+    @Test
+    void shouldTimeOutWhenEveryConnectionIsInUse() throws Exception {
+        // Given
+        when(target.getConnection()).thenReturn(mock(Connection.class), mock(Connection.class));
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        // When & Then
+        assertThatThrownBy(dataSource::getConnection)
+                .isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessage("Timed out waiting for one of the 2 database connections");
+        verify(target, times(2)).getConnection();
+    }
+
+    @Test
+    void shouldGiveThePermitBackWhenConnectionCannotBeOpened() throws Exception {
+        // Given
+        when(target.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        // When & Then
+        assertThatThrownBy(dataSource::getConnection).hasMessage("Connection refused");
+        assertThat(dataSource.availablePermits()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,74 @@
+package com.alexandre.books_manager.datasource;
+
+import com.alexandre.books_manager.model.Book;
+import com.alexandre.books_manager.model.BookEdition;
+import com.alexandre.books_manager.repository.BookRepository;
+import com.alexandre.books_manager.service.BookEditionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class JpaExceptionTranslationConfigurationTest {
+    private static final String ISBN = "978-0-00-000800-1";
+
+    @Autowired
+    private BookEditionService bookEditionService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @AfterEach
+    void tearDown() {
+        bookEditionService.deleteByIsbn(ISBN);
+    }
+
+    @Test
+    void shouldTranslateDuplicateKeysFromRepositories() {
+        // Given
+        BookEdition edition = bookEditionService.findOrCreate(edition());
+        bookRepository.save(book(edition, "TRANSLATE-1"));
+
+        // When & Then
+        assertThatThrownBy(() -> bookRepository.save(book(edition, "TRANSLATE-1")))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    void shouldTranslateOtherViolationsAsIntegrityViolations() {
+        // Given
+        BookEdition edition = bookEditionService.findOrCreate(edition());
+        Book book = book(edition, "TRANSLATE-1");
+        book.setPublisher("P".repeat(300));
+
+        // When & Then
+        assertThatThrownBy(() -> bookRepository.save(book))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .isNotInstanceOf(DuplicateKeyException.class);
+    }
+
+    private static BookEdition edition() {
+        BookEdition edition = new BookEdition();
+        edition.setIsbn(ISBN);
+        edition.setTitle("Translated Title");
+        edition.setAuthorName("Translated Author");
+        edition.setNumber(1);
+        return edition;
+    }
+
+    private static Book book(BookEdition edition, String batchNumber) {
+        Book book = new Book();
+        book.setBatchNumber(batchNumber);
+        book.setPublisher("Publisher");
+        book.setPublishedYear(2024);
+        book.setEdition(edition);
+        return book;
+    }
+}
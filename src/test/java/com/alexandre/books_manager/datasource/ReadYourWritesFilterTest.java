@@ -0,0 +1,75 @@
+package com.alexandre.books_manager.datasource;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadYourWritesFilterTest {
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(3));
+
+    @Test
+    void shouldKeepWritingClientOnPrimary() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/books");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        boolean sticky = filter(request, response);
+
+        // Then
+        assertThat(sticky).isTrue();
+        assertThat(response.getHeader(HttpHeaders.SET_COOKIE))
+                .startsWith(ReadYourWritesFilter.COOKIE_NAME + "=1")
+                .contains("Max-Age=3");
+        assertThat(ReadYourWrites.isStickingToPrimary()).isFalse();
+    }
+
+    @Test
+    void shouldReadFromPrimaryWhileCookieIsSent() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/books");
+        request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE_NAME, "1"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        boolean sticky = filter(request, response);
+
+        // Then
+        assertThat(sticky).isTrue();
+        assertThat(response.getHeader(HttpHeaders.SET_COOKIE)).isNull();
+    }
+
+    @Test
+    void shouldReadFromReplicasOtherwise() throws Exception {
+        // When
+        boolean sticky = filter(new MockHttpServletRequest("GET", "/api/v1/books"), new MockHttpServletResponse());
+
+        // Then
+        assertThat(sticky).isFalse();
+    }
+
+    /**
+     * @return whether the request was handled sticking to the primary
+     */
+    private boolean filter(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        AtomicBoolean sticky = new AtomicBoolean();
+        MockFilterChain chain = new MockFilterChain(new jakarta.servlet.http.HttpServlet() {
+            @Override
+            protected void service(jakarta.servlet.http.HttpServletRequest request,
+                                   jakarta.servlet.http.HttpServletResponse response) {
+                sticky.set(ReadYourWrites.isStickingToPrimary());
+            }
+        });
+
+        filter.doFilter(request, response, chain);
+        return sticky.get();
+    }
+}
@@ -0,0 +1,110 @@
+package com.alexandre.books_manager.datasource;
+
+import com.alexandre.books_manager.model.BookEdition;
+import com.alexandre.books_manager.service.BookEditionService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Both pools point to the same in-memory database, so the schema and data are "replicated" at once. Each pool
+ * tags its connections with a session variable, which tells which pool served a transaction.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1;INIT=SET @POOL = 'primary'",
+        "books-manager.datasource.replicas[0].url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1;INIT=SET @POOL = 'replica'",
+        "books-manager.datasource.replicas[0].username=sa",
+        "books-manager.datasource.replicas[0].password=password"
+})
+@ActiveProfiles("test")
+class ReplicaDataSourceConfigurationTest {
+    private static final String ISBN = "978-0-00-000800-1";
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BookEditionService bookEditionService;
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWrites.clear();
+
+        if (bookEditionService.findByIsbn(ISBN).isPresent()) {
+            bookEditionService.deleteByIsbn(ISBN);
+        }
+    }
+
+    @Test
+    void shouldReadFromReplicaInReadOnlyTransactions() {
+        // When & Then
+        assertThat(poolUsed(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void shouldUsePrimaryInReadWriteTransactions() {
+        // When & Then
+        assertThat(poolUsed(false)).isEqualTo("primary");
+    }
+
+    @Test
+    void shouldReadFromPrimaryRightAfterWriting() {
+        // Given
+        ReadYourWrites.stickToPrimary();
+
+        // When & Then
+        assertThat(poolUsed(true)).isEqualTo("primary");
+    }
+
+    @Test
+    void shouldOnlyCacheEditionsReadFromPrimary() {
+        // Given
+        BookEdition edition = new BookEdition();
+        edition.setIsbn(ISBN);
+        edition.setTitle("Replicated Title");
+        edition.setAuthorName("Replicated Author");
+        edition.setNumber(1);
+        bookEditionService.save(edition);
+        entityManagerFactory.getCache().evict(BookEdition.class, ISBN);
+
+        // When
+        loadEdition();
+
+        // Then
+        assertThat(entityManagerFactory.getCache().contains(BookEdition.class, ISBN)).isFalse();
+
+        // When
+        ReadYourWrites.stickToPrimary();
+        loadEdition();
+
+        // Then
+        assertThat(entityManagerFactory.getCache().contains(BookEdition.class, ISBN)).isTrue();
+    }
+
+    private void loadEdition() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.executeWithoutResult(status -> entityManager.find(BookEdition.class, ISBN));
+    }
+
+    private String poolUsed(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status ->
+                (String) entityManager.createNativeQuery("select @POOL").getSingleResult());
+    }
+}
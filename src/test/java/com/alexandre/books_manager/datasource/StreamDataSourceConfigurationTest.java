@@ -0,0 +1,88 @@
+package com.alexandre.books_manager.datasource;
+
+import com.alexandre.books_manager.model.Book;
+import com.alexandre.books_manager.model.BookEdition;
+import com.alexandre.books_manager.service.BookEditionService;
+import com.alexandre.books_manager.service.BookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The stream pool points to the same in-memory database as the application pool, and tags its connections with a
+ * session variable set by its own driver properties.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:stream;DB_CLOSE_DELAY=-1",
+        "books-manager.datasource.stream.enabled=true",
+        "books-manager.datasource.stream.properties.INIT=SET @POOL = 'stream'"
+})
+@ActiveProfiles("test")
+class StreamDataSourceConfigurationTest {
+    private static final String ISBN = "978-0-00-000700-1";
+
+    @Autowired
+    @Qualifier("streamDataSource")
+    private DataSource streamDataSource;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookEditionService bookEditionService;
+
+    @AfterEach
+    void tearDown() {
+        if (bookEditionService.findByIsbn(ISBN).isPresent()) {
+            bookEditionService.deleteByIsbn(ISBN);
+        }
+    }
+
+    @Test
+    void shouldApplyDriverPropertiesToTheStreamPoolOnly() {
+        // When & Then
+        assertThat(new JdbcTemplate(streamDataSource).queryForObject("select @POOL", String.class)).isEqualTo("stream");
+        assertThat(new JdbcTemplate(dataSource).queryForObject("select @POOL", String.class)).isNull();
+    }
+
+    @Test
+    void shouldStreamBooksFromTheStreamPool() {
+        // Given
+        BookEdition edition = new BookEdition();
+        edition.setIsbn(ISBN);
+        edition.setTitle("Streamed Title");
+        edition.setAuthorName("Streamed Author");
+        edition.setNumber(1);
+
+        for (int batch = 0; batch < 3; batch++) {
+            Book book = new Book();
+            book.setBatchNumber("STREAM-" + batch);
+            book.setPublisher("Publisher");
+            book.setPublishedYear(2024);
+            book.setEdition(edition);
+            bookService.save(book);
+        }
+
+        List<Book> books = new ArrayList<>();
+
+        // When
+        bookService.streamAll(books::add);
+
+        // Then
+        assertThat(books).extracting(Book::getBatchNumber).containsExactly("STREAM-0", "STREAM-1", "STREAM-2");
+        assertThat(books).allSatisfy(book -> assertThat(book.getEdition().getTitle()).isEqualTo("Streamed Title"));
+    }
+}
@@ -0,0 +1,53 @@
+package com.alexandre.books_manager.diagnostics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PinnedThreadMonitorTest {
+    private final PinnedThreadMonitor monitor = new PinnedThreadMonitor(Duration.ofMillis(10));
+
+    @BeforeEach
+    void setUp() {
+        monitor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.stop();
+    }
+
+    @Test
+    void shouldReportVirtualThreadsBlockingInsideSynchronizedBlocks() throws Exception {
+        // Given
+        Object lock = new Object();
+
+        // When
+        Thread.ofVirtual().start(() -> {
+            synchronized (lock) {
+                sleep(Duration.ofMillis(50));
+            }
+        }).join();
+
+        // Then
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+
+        while (monitor.getPinnedCount() == 0 && System.nanoTime() < deadline) {
+            sleep(Duration.ofMillis(50));
+        }
+
+        assertThat(monitor.getPinnedCount()).isEqualTo(1);
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.alexandre.books_manager.diagnostics;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlLogAppendersTest {
+    private final LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+    private final Logger logger = context.getLogger(SqlLoggingListener.class);
+
+    @BeforeEach
+    void setUp() {
+        // Put there by Spring Boot's logging system when an application starts
+        if (context.getObject(Environment.class.getName()) == null) {
+            context.putObject(Environment.class.getName(), new StandardEnvironment());
+        }
+    }
+
+    @Test
+    void shouldWriteSqlEventsToTheirOwnFileUntilClosed(@TempDir Path directory) throws Exception {
+        // Given
+        Path file = directory.resolve("sql.json");
+        SqlLogAppenders appenders = SqlLogAppenders.attach(
+                new SqlLogProperties(0, Duration.ofMillis(200), file.toString(), "logstash"));
+
+        // When
+        logger.atWarn().addKeyValue("sql", "select 1").log("Slow statement");
+        appenders.close();
+
+        // Then
+        assertThat(Files.readString(file)).contains("\"sql\":\"select 1\"");
+        assertThat(logger.getAppender(SqlLogAppenders.APPENDER_NAME)).isNull();
+        assertThat(logger.isAdditive()).isTrue();
+        assertThat(logger.getLevel()).isNull();
+    }
+}
@@ -0,0 +1,99 @@
+package com.alexandre.books_manager.diagnostics;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlLoggingListenerTest {
+    private final Logger logger = (Logger) LoggerFactory.getLogger(SqlLoggingListener.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+        logger.setLevel(Level.INFO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        logger.setLevel(null);
+    }
+
+    @Test
+    void shouldLogSlowStatementsWithTheirParameters() throws Exception {
+        // Given
+        SqlLoggingListener listener = new SqlLoggingListener(
+                new SqlLogProperties(0, Duration.ofMillis(100), "logs/sql.json", "logstash"));
+        QueryInfo query = new QueryInfo("select * from books where batch_number = ? and edition_isbn = ?");
+        query.getParametersList().add(List.of(
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setString", int.class, String.class),
+                        new Object[]{1, "BATCH-1"}),
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setNull", int.class, int.class),
+                        new Object[]{2, Types.VARCHAR})));
+
+        // When
+        listener.afterQuery(execution(150), List.of(query));
+        listener.afterQuery(execution(20), List.of(query));
+
+        // Then
+        assertThat(appender.list).hasSize(1);
+        ILoggingEvent event = appender.list.get(0);
+        assertThat(event.getLevel()).isEqualTo(Level.WARN);
+        assertThat(event.getMessage()).isEqualTo("Slow SQL statement");
+        assertThat(keyValues(event))
+                .containsEntry("sql", "select * from books where batch_number = ? and edition_isbn = ?")
+                .containsEntry("duration_ms", 150L)
+                .containsEntry("success", true)
+                .containsEntry("parameters", List.of(Arrays.asList("BATCH-1", null)));
+    }
+
+    @Test
+    void shouldLogSampledStatementsWithoutTheirParameters() {
+        // Given
+        SqlLoggingListener listener = new SqlLoggingListener(
+                new SqlLogProperties(1, Duration.ofMillis(100), "logs/sql.json", "logstash"));
+
+        // When
+        listener.afterQuery(execution(5), List.of(new QueryInfo("select count(*) from books")));
+
+        // Then
+        assertThat(appender.list).hasSize(1);
+        assertThat(appender.list.get(0).getLevel()).isEqualTo(Level.INFO);
+        assertThat(keyValues(appender.list.get(0)))
+                .containsEntry("sql", "select count(*) from books")
+                .doesNotContainKey("parameters");
+    }
+
+    private static ExecutionInfo execution(long elapsedMillis) {
+        ExecutionInfo execution = new ExecutionInfo();
+        execution.setElapsedTime(elapsedMillis);
+        execution.setSuccess(true);
+        execution.setConnectionId("1");
+        return execution;
+    }
+
+    private static Map<String, Object> keyValues(ILoggingEvent event) {
+        return event.getKeyValuePairs().stream()
+                .collect(Collectors.toMap(pair -> pair.key, pair -> pair.value));
+    }
+}
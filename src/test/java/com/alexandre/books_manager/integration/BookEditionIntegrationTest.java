@@ -1,6 +1,7 @@
 package com.alexandre.books_manager.integration;
 
 import com.alexandre.books_manager.dto.BookEditionDTO;
+import com.alexandre.books_manager.dto.CursorPageDTO;
 import com.alexandre.books_manager.dto.UpdateBookEditionDTO;
 import com.alexandre.books_manager.model.BookEdition;
 import com.alexandre.books_manager.repository.BookEditionRepository;
@@ -11,6 +12,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
@@ -101,24 +103,69 @@ class BookEditionIntegrationTest {
         restTemplate.postForEntity(baseUrl, bookEditionDTO2, BookEditionDTO.class);
 
         // When
-        ResponseEntity<BookEditionDTO[]> response = restTemplate.getForEntity(baseUrl, BookEditionDTO[].class);
+        ResponseEntity<CursorPageDTO<BookEditionDTO>> response = restTemplate.exchange(
+                baseUrl,
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<CursorPageDTO<BookEditionDTO>>() {}
+        );
 
         // Then
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isNotNull();
-        assertThat(response.getBody()).hasSize(2);
+        assertThat(response.getBody().items()).hasSize(2);
+        assertThat(response.getBody().next()).isNull();
         
         // Verify first book edition
-        assertThat(response.getBody()[0].isbn()).isEqualTo("978-3-16-148410-0");
-        assertThat(response.getBody()[0].title()).isEqualTo("First Book Title");
-        assertThat(response.getBody()[0].authorName()).isEqualTo("First Author");
-        assertThat(response.getBody()[0].number()).isEqualTo(1);
+        assertThat(response.getBody().items().get(0).isbn()).isEqualTo("978-3-16-148410-0");
+        assertThat(response.getBody().items().get(0).title()).isEqualTo("First Book Title");
+        assertThat(response.getBody().items().get(0).authorName()).isEqualTo("First Author");
+        assertThat(response.getBody().items().get(0).number()).isEqualTo(1);
         
         // Verify second book edition
-        assertThat(response.getBody()[1].isbn()).isEqualTo("978-3-16-148410-1");
-        assertThat(response.getBody()[1].title()).isEqualTo("Second Book Title");
-        assertThat(response.getBody()[1].authorName()).isEqualTo("Second Author");
-        assertThat(response.getBody()[1].number()).isEqualTo(2);
+        assertThat(response.getBody().items().get(1).isbn()).isEqualTo("978-3-16-148410-1");
+        assertThat(response.getBody().items().get(1).title()).isEqualTo("Second Book Title");
+        assertThat(response.getBody().items().get(1).authorName()).isEqualTo("Second Author");
+        assertThat(response.getBody().items().get(1).number()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldPageThroughBookEditionsWithCursor() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            restTemplate.postForEntity(baseUrl,
+                    new BookEditionDTO("000-0-00-00000" + i, "Title " + i, "Author " + i, 1),
+                    BookEditionDTO.class);
+        }
+
+        // When
+        CursorPageDTO<BookEditionDTO> firstPage = fetchPage(baseUrl + "?limit=2");
+        CursorPageDTO<BookEditionDTO> secondPage = fetchPage(baseUrl + "?limit=2&cursor=" + firstPage.next());
+        CursorPageDTO<BookEditionDTO> thirdPage = fetchPage(baseUrl + "?limit=2&cursor=" + secondPage.next());
+
+        // Then
+        assertThat(firstPage.items()).extracting(BookEditionDTO::isbn)
+                .containsExactly("000-0-00-000000", "000-0-00-000001");
+        assertThat(secondPage.items()).extracting(BookEditionDTO::isbn)
+                .containsExactly("000-0-00-000002", "000-0-00-000003");
+        assertThat(thirdPage.items()).extracting(BookEditionDTO::isbn)
+                .startsWith("000-0-00-000004");
+
+        for (int i = 0; i < 5; i++) {
+            restTemplate.delete(baseUrl + "/000-0-00-00000" + i);
+        }
+    }
+
+    private CursorPageDTO<BookEditionDTO> fetchPage(String url) {
+        ResponseEntity<CursorPageDTO<BookEditionDTO>> response = restTemplate.exchange(
+                url,
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<CursorPageDTO<BookEditionDTO>>() {}
+        );
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return response.getBody();
     }
 
     @Test
@@ -0,0 +1,371 @@
+package com.alexandre.books_manager.integration;
+
+import com.alexandre.books_manager.dto.BookBatchResultDTO;
+import com.alexandre.books_manager.dto.BookDTO;
+import com.alexandre.books_manager.dto.BookEditionDTO;
+import com.alexandre.books_manager.dto.CursorPageDTO;
+import com.alexandre.books_manager.dto.DefectEditionCreateDTO;
+import com.alexandre.books_manager.dto.UpdateBookDTO;
+import com.alexandre.books_manager.repository.BookEditionRepository;
+import com.alexandre.books_manager.repository.BookRepository;
+import com.alexandre.books_manager.repository.DefectEditionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class BookIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookEditionRepository bookEditionRepository;
+
+    @Autowired
+    private DefectEditionRepository defectEditionRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private String baseUrl;
+
+    private final BookEditionDTO edition = new BookEditionDTO(
+            "978-3-16-148410-0",
+            "Test Book Title",
+            "Test Author",
+            1
+    );
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port + "/api/v1/books";
+        defectEditionRepository.deleteAll();
+        bookRepository.deleteAll();
+        bookEditionRepository.deleteAll();
+
+        for (int batch = 0; batch < 5; batch++) {
+            ResponseEntity<BookDTO> response = restTemplate.postForEntity(
+                    baseUrl, new BookDTO("Publisher", 2020, "BATCH-" + batch, edition), BookDTO.class);
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        defectEditionRepository.deleteAll();
+        bookRepository.deleteAll();
+        bookEditionRepository.deleteAll();
+    }
+
+    @Test
+    void shouldPageThroughBooksWithCursor() {
+        // When
+        CursorPageDTO<BookDTO> firstPage = fetchPage(baseUrl + "?limit=3");
+        CursorPageDTO<BookDTO> lastPage = fetchPage(baseUrl + "?limit=3&cursor=" + firstPage.next());
+
+        // Then
+        assertThat(firstPage.items()).extracting(BookDTO::batchNumber)
+                .containsExactly("BATCH-0", "BATCH-1", "BATCH-2");
+        assertThat(firstPage.next()).isNotNull();
+        assertThat(lastPage.items()).extracting(BookDTO::batchNumber)
+                .containsExactly("BATCH-3", "BATCH-4");
+        assertThat(lastPage.next()).isNull();
+    }
+
+    @Test
+    void shouldReadAPageOfBooksWithTheirEditionsInOneStatement() {
+        // Given
+        SqlStatementCounter sqlStatements = new SqlStatementCounter(meterRegistry);
+
+        // When
+        long statements = sqlStatements.count("GET", "/api/v1/books", () -> fetchPage(baseUrl + "?limit=5"));
+
+        // Then
+        assertThat(statements).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void shouldStreamAllBooksAsNdjson() throws Exception {
+        // Given
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_NDJSON));
+
+        // When
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+        assertThat(response.getBody()).endsWith("\n");
+
+        List<BookDTO> books = new ArrayList<>();
+        for (String line : response.getBody().split("\n")) {
+            books.add(objectMapper.readValue(line, BookDTO.class));
+        }
+
+        StringBuilder lines = new StringBuilder();
+        for (BookDTO book : books) {
+            lines.append(objectMapper.writeValueAsString(book)).append('\n');
+        }
+
+        assertThat(response.getBody()).isEqualTo(lines.toString());
+
+        assertThat(books).extracting(BookDTO::batchNumber)
+                .containsExactly("BATCH-0", "BATCH-1", "BATCH-2", "BATCH-3", "BATCH-4");
+        assertThat(books).allSatisfy(book -> assertThat(book.edition()).isEqualTo(edition));
+    }
+
+    @Test
+    void shouldKeepJsonAsDefaultRepresentation() {
+        // Given
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.ALL));
+
+        // When
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    void shouldCreateBooksInBatchAndReportConflicts() {
+        // Given
+        BookEditionDTO newEdition = new BookEditionDTO("978-3-16-148410-9", "New Title", "New Author", 1);
+        List<BookDTO> books = List.of(
+                new BookDTO("Publisher", 2021, "BATCH-0", edition),      // already exists
+                new BookDTO("Publisher", 2021, "BATCH-5", edition),
+                new BookDTO("Publisher", 2021, "BATCH-0", newEdition),
+                new BookDTO("Publisher", 2021, "BATCH-1", newEdition),
+                new BookDTO("Publisher", 2021, "BATCH-1", newEdition)    // duplicated in the request
+        );
+
+        // When
+        ResponseEntity<List<BookBatchResultDTO>> response = restTemplate.exchange(
+                baseUrl + "/batch",
+                HttpMethod.POST,
+                new HttpEntity<>(books),
+                new ParameterizedTypeReference<List<BookBatchResultDTO>>() {}
+        );
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).extracting(BookBatchResultDTO::status).containsExactly(
+                BookBatchResultDTO.Status.CONFLICT,
+                BookBatchResultDTO.Status.CREATED,
+                BookBatchResultDTO.Status.CREATED,
+                BookBatchResultDTO.Status.CREATED,
+                BookBatchResultDTO.Status.CONFLICT
+        );
+        assertThat(bookRepository.count()).isEqualTo(8);
+        assertThat(bookEditionRepository.findByIsbn("978-3-16-148410-9")).isPresent();
+        assertThat(restTemplate.getForEntity(baseUrl + "/BATCH-1/978-3-16-148410-9", BookDTO.class).getBody())
+                .isEqualTo(new BookDTO("Publisher", 2021, "BATCH-1", newEdition));
+    }
+
+    @Test
+    void shouldReportBooksOfInvalidEditionsInBatch() {
+        // Given
+        BookEditionDTO invalidEdition = new BookEditionDTO("978-3-16-148410-9", "T".repeat(300), "New Author", 1);
+        List<BookDTO> books = List.of(
+                new BookDTO("Publisher", 2021, "BATCH-5", edition),
+                new BookDTO("Publisher", 2021, "BATCH-6", invalidEdition)
+        );
+
+        // When
+        ResponseEntity<List<BookBatchResultDTO>> response = restTemplate.exchange(
+                baseUrl + "/batch",
+                HttpMethod.POST,
+                new HttpEntity<>(books),
+                new ParameterizedTypeReference<List<BookBatchResultDTO>>() {}
+        );
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).extracting(BookBatchResultDTO::status).containsExactly(
+                BookBatchResultDTO.Status.CREATED,
+                BookBatchResultDTO.Status.INVALID_EDITION
+        );
+        assertThat(bookRepository.count()).isEqualTo(6);
+        assertThat(bookEditionRepository.findByIsbn("978-3-16-148410-9")).isEmpty();
+    }
+
+    @Test
+    void shouldRejectBatchWithInvalidBook() {
+        // Given
+        List<BookDTO> books = List.of(
+                new BookDTO("Publisher", 2021, "BATCH-5", edition),
+                new BookDTO("", 2021, "BATCH-6", edition)
+        );
+
+        // When
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/batch", books, String.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(bookRepository.count()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldRejectBookWithInvalidEdition() {
+        // Given
+        BookDTO book = new BookDTO("Publisher", 2021, "BATCH-5",
+                new BookEditionDTO("978-3-16-148410-9", null, "Test Author", 1));
+
+        // When
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl, book, String.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(bookEditionRepository.findByIsbn("978-3-16-148410-9")).isEmpty();
+    }
+
+    @Test
+    void shouldNotKeepEditionCreatedForBookThatFailed() {
+        // Given
+        BookDTO book = new BookDTO("P".repeat(300), 2021, "BATCH-5",
+                new BookEditionDTO("978-3-16-148410-9", "New Title", "New Author", 1));
+
+        // When
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl, book, String.class);
+
+        // Then
+        assertThat(response.getStatusCode().is4xxClientError()).isTrue();
+        assertThat(bookEditionRepository.findByIsbn("978-3-16-148410-9")).isEmpty();
+        assertThat(bookEditionRepository.findByIsbn("978-3-16-148410-0")).isPresent();
+    }
+
+    @Test
+    void shouldServeConditionalReadsAndUpdatesOfABook() {
+        // Given
+        String bookUrl = baseUrl + "/BATCH-0/" + edition.isbn();
+        String eTag = restTemplate.getForEntity(bookUrl, BookDTO.class).getHeaders().getETag();
+        UpdateBookDTO update = new UpdateBookDTO("New Publisher", null, "BATCH-0", edition);
+
+        // When
+        ResponseEntity<String> notModified = restTemplate.exchange(
+                bookUrl, HttpMethod.GET, new HttpEntity<>(ifHeader(HttpHeaders.IF_NONE_MATCH, eTag)), String.class);
+        ResponseEntity<BookDTO> updated = restTemplate.exchange(
+                baseUrl, HttpMethod.PATCH, new HttpEntity<>(update, ifHeader(HttpHeaders.IF_MATCH, eTag)), BookDTO.class);
+        ResponseEntity<String> staleUpdate = restTemplate.exchange(
+                baseUrl, HttpMethod.PATCH, new HttpEntity<>(update, ifHeader(HttpHeaders.IF_MATCH, eTag)), String.class);
+        ResponseEntity<BookDTO> modified = restTemplate.exchange(
+                bookUrl, HttpMethod.GET, new HttpEntity<>(ifHeader(HttpHeaders.IF_NONE_MATCH, eTag)), BookDTO.class);
+
+        // Then
+        assertThat(eTag).isEqualTo("\"0-0\"");
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModified.getBody()).isNull();
+        assertThat(updated.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(updated.getHeaders().getETag()).isEqualTo("\"1-0\"");
+        assertThat(staleUpdate.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(modified.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(modified.getHeaders().getETag()).isEqualTo("\"1-0\"");
+        assertThat(modified.getBody().publisher()).isEqualTo("New Publisher");
+    }
+
+    @Test
+    void shouldUpdateBookWithoutReturningItWhenMinimalReturnIsPreferred() {
+        // Given
+        HttpHeaders headers = ifHeader(HttpHeaders.IF_MATCH, "\"0-0\"");
+        headers.set("Prefer", "return=minimal");
+        UpdateBookDTO update = new UpdateBookDTO(null, 2024, "BATCH-1", edition);
+
+        // When
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl, HttpMethod.PATCH, new HttpEntity<>(update, headers), String.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(response.getHeaders().getFirst("Preference-Applied")).isEqualTo("return=minimal");
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"1-0\"");
+        assertThat(response.getBody()).isNull();
+        assertThat(restTemplate.getForEntity(baseUrl + "/BATCH-1/" + edition.isbn(), BookDTO.class).getBody())
+                .isEqualTo(new BookDTO("Publisher", 2024, "BATCH-1", edition));
+    }
+
+    @Test
+    void shouldDeleteBook() {
+        // When
+        ResponseEntity<Void> response = restTemplate.exchange(
+                baseUrl + "/BATCH-0/" + edition.isbn(), HttpMethod.DELETE, null, Void.class);
+        ResponseEntity<Void> secondResponse = restTemplate.exchange(
+                baseUrl + "/BATCH-0/" + edition.isbn(), HttpMethod.DELETE, null, Void.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(secondResponse.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(bookRepository.count()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldDeleteEditionWithItsBooksAndDefects() {
+        // Given
+        String defectsUrl = "http://localhost:" + port + "/api/v1/book-defects";
+        DefectEditionCreateDTO defect = new DefectEditionCreateDTO("DEFECT-1", edition.isbn(), List.of("BATCH-0", "BATCH-1"));
+        assertThat(restTemplate.postForEntity(defectsUrl, defect, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+
+        // When
+        ResponseEntity<Void> response = restTemplate.exchange(
+                "http://localhost:" + port + "/api/v1/book-editions/" + edition.isbn(),
+                HttpMethod.DELETE, null, Void.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(bookRepository.count()).isZero();
+        assertThat(defectEditionRepository.count()).isZero();
+        assertThat(bookEditionRepository.findByIsbn(edition.isbn())).isEmpty();
+    }
+
+    private HttpHeaders ifHeader(String name, String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(name, eTag);
+        return headers;
+    }
+
+    private CursorPageDTO<BookDTO> fetchPage(String url) {
+        ResponseEntity<CursorPageDTO<BookDTO>> response = restTemplate.exchange(
+                url,
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<CursorPageDTO<BookDTO>>() {}
+        );
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return response.getBody();
+    }
+}
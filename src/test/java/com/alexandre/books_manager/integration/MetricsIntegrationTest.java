@@ -0,0 +1,114 @@
+package com.alexandre.books_manager.integration;
+
+import com.alexandre.books_manager.dto.BookEditionDTO;
+import com.alexandre.books_manager.metrics.SqlBudgetExceededException;
+import com.alexandre.books_manager.repository.BookEditionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+class MetricsIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private BookEditionRepository bookEditionRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port;
+        bookEditionRepository.deleteAll();
+    }
+
+    @Test
+    void shouldCountStatementsPerRequest() {
+        // Given
+        BookEditionDTO edition = new BookEditionDTO("978-0-00-000600-1", "Measured Title", "Measured Author", 1);
+        restTemplate.postForEntity(baseUrl + "/api/v1/book-editions", edition, BookEditionDTO.class);
+
+        // When
+        ResponseEntity<BookEditionDTO> response = restTemplate.getForEntity(
+                baseUrl + "/api/v1/book-editions/978-0-00-000600-1", BookEditionDTO.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(meterRegistry.get("books_manager.sql.statements.per.request")
+                .tags("method", "POST", "uri", "/api/v1/book-editions")
+                .summary().totalAmount()).isPositive();
+        assertThat(meterRegistry.get("books_manager.sql.time.per.request")
+                .tags("method", "GET", "uri", "/api/v1/book-editions/{isbn}")
+                .timer().count()).isPositive();
+        assertThat(meterRegistry.get("books_manager.sql.statements")
+                .tags("type", "insert", "outcome", "success")
+                .timer().count()).isPositive();
+        assertThat(meterRegistry.get("books_manager.service")
+                .tags("service", "BookEditionService", "method", "save", "exception", "none")
+                .timer().count()).isPositive();
+    }
+
+    @Test
+    void shouldExposePrometheusScrape() {
+        // Given
+        restTemplate.getForEntity(baseUrl + "/api/v1/book-editions/978-0-00-000600-9", String.class);
+
+        // When
+        ResponseEntity<String> response = restTemplate.getForEntity(baseUrl + "/actuator/prometheus", String.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody())
+                .contains("http_server_requests_seconds_bucket")
+                .contains("books_manager_service_seconds_bucket")
+                .contains("books_manager_sql_statements_seconds_count")
+                .contains("hibernate_entities_loads_total")
+                .contains("hibernate_second_level_cache_requests_total")
+                .contains("hikaricp_connections_pending")
+                .contains("books_manager_datasource_connections_waiting")
+                .contains("books_manager_datasource_connections_available");
+    }
+
+    @Test
+    void shouldFailTransactionRepeatingAStatement() {
+        // When / Then
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            for (int edition = 0; edition <= 10; edition++) {
+                jdbcTemplate.queryForList("select title from book_editions where isbn = ?", String.class,
+                        "978-0-00-00070" + edition);
+            }
+        }))
+                .isInstanceOf(SqlBudgetExceededException.class)
+                .hasMessageContaining("the same SQL statement more than 10 times")
+                .hasMessageContaining("MetricsIntegrationTest");
+    }
+}
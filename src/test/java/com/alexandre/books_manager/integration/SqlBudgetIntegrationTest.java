@@ -0,0 +1,65 @@
+package com.alexandre.books_manager.integration;
+
+import com.alexandre.books_manager.metrics.SqlBudgetExceededException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "books-manager.metrics.enabled=false",
+        "books-manager.sql-budget.endpoints[0].endpoint=GET /api/v1/book-editions/{isbn}",
+        "books-manager.sql-budget.endpoints[0].max-statements=0"
+})
+@ActiveProfiles("test")
+class SqlBudgetIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Test
+    void shouldFailRequestOverItsEndpointBudgetWithoutMetrics() {
+        // When
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "http://localhost:" + port + "/api/v1/book-editions/978-0-00-000800-1", String.class);
+
+        // Then
+        assertThat(applicationContext.containsBean("requestSqlMetricsFilter")).isFalse();
+        assertThat(response.getStatusCode().is5xxServerError()).isTrue();
+    }
+
+    @Test
+    void shouldFailTransactionRepeatingAStatementWithoutMetrics() {
+        // When / Then
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            for (int edition = 0; edition <= 10; edition++) {
+                jdbcTemplate.queryForList("select title from book_editions where isbn = ?", String.class,
+                        "978-0-00-00080" + edition);
+            }
+        }))
+                .isInstanceOf(SqlBudgetExceededException.class)
+                .hasMessageContaining("the same SQL statement more than 10 times")
+                .hasMessageContaining("SqlBudgetIntegrationTest");
+    }
+}
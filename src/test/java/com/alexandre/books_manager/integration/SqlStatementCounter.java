@@ -0,0 +1,62 @@
+package com.alexandre.books_manager.integration;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Counts the SQL statements run by the requests to an endpoint, from the statements per request metric:
+ *
+ * <pre>assertThat(sqlStatements.count("GET", "/api/v1/books", () -> restTemplate.getForEntity(url, String.class)))
+ *         .isLessThanOrEqualTo(2);</pre>
+ *
+ * <p>The metric is recorded once the request is handled, which may be after the client has read the response,
+ * so the count waits for it.</p>
+ */
+final class SqlStatementCounter {
+    private static final String STATEMENTS_PER_REQUEST = "books_manager.sql.statements.per.request";
+    private static final Duration RECORD_TIMEOUT = Duration.ofSeconds(5);
+
+    private final MeterRegistry meterRegistry;
+
+    SqlStatementCounter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Sends the requests and counts their statements.
+     *
+     * @param method   the HTTP method of the endpoint
+     * @param uri      the URI template of the endpoint, as in {@code /api/v1/books/{batchNumber}/{isbn}}
+     * @param requests sends one or more requests to the endpoint
+     * @return the statements run by those requests
+     */
+    long count(String method, String uri, Runnable requests) {
+        long requestsBefore = summary(method, uri).count();
+        double statementsBefore = summary(method, uri).totalAmount();
+
+        requests.run();
+
+        long deadline = System.nanoTime() + RECORD_TIMEOUT.toNanos();
+
+        while (summary(method, uri).count() == requestsBefore) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("No request to " + method + " " + uri + " was recorded");
+            }
+
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        return (long) (summary(method, uri).totalAmount() - statementsBefore);
+    }
+
+    private DistributionSummary summary(String method, String uri) {
+        return DistributionSummary.builder(STATEMENTS_PER_REQUEST)
+                .tags("method", method, "uri", uri)
+                .baseUnit("statements")
+                .register(meterRegistry);
+    }
+}
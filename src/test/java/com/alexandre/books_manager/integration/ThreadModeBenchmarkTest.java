@@ -0,0 +1,184 @@
+package com.alexandre.books_manager.integration;
+
+import com.alexandre.books_manager.BooksManagerApplication;
+import com.alexandre.books_manager.model.Book;
+import com.alexandre.books_manager.model.BookEdition;
+import com.alexandre.books_manager.service.BookService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares request throughput and latency on platform threads and on virtual threads. Run it with
+ * {@code mvn test -Pbenchmark -Dtest=ThreadModeBenchmarkTest}; the number of concurrent clients, of requests and
+ * the latency can be changed with {@code -Dbenchmark.clients=N}, {@code -Dbenchmark.requests=N} and
+ * {@code -Dbenchmark.latency-ms=N}.
+ *
+ * <p>Each database connection is held for {@link #DATABASE_LATENCY} to stand in for the round-trips to a
+ * remote MySQL, and the pool is larger than Tomcat's 200 platform threads, so the thread ceiling rather than
+ * the database bounds the platform thread mode: at most 200 / latency requests per second, against 400 / latency
+ * on virtual threads. The machine must be able to serve more than that, or both modes are bound by the CPU;
+ * raise the latency on a small machine.</p>
+ */
+@Tag("benchmark")
+class ThreadModeBenchmarkTest {
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 1_000);
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 20_000);
+    private static final int WARMUP_REQUESTS = REQUESTS / 10;
+    private static final int CONNECTIONS = 400;
+    private static final Duration DATABASE_LATENCY = Duration.ofMillis(Integer.getInteger("benchmark.latency-ms", 50));
+
+    @Test
+    void compareThreadModes() throws Exception {
+        // When
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        // Then
+        System.out.printf("%d clients, %d requests, %d ms per connection%n", CLIENTS, REQUESTS,
+                DATABASE_LATENCY.toMillis());
+        System.out.printf("platform threads: %s%n", platform);
+        System.out.printf("virtual threads:  %s%n", virtual);
+
+        assertThat(platform.failures()).isZero();
+        assertThat(virtual.failures()).isZero();
+        assertThat(virtual.requestsPerSecond()).isGreaterThan(platform.requestsPerSecond());
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BooksManagerApplication.class,
+                DatabaseLatencyConfiguration.class)
+                .profiles("test")
+                .run(
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.url=jdbc:h2:mem:thread-mode-" + virtualThreads + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.hikari.maximum-pool-size=" + CONNECTIONS,
+                        "--books-manager.datasource.max-concurrency=" + CONNECTIONS,
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.alexandre.books_manager=WARN",
+                        "--logging.level.org.springframework.web=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--spring.jpa.show-sql=false")) {
+            createBook(context.getBean(BookService.class));
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            URI uri = URI.create("http://localhost:" + port + "/api/v1/books/BENCHMARK-1/978-0-00-000400-1");
+
+            load(uri, WARMUP_REQUESTS);
+            return load(uri, REQUESTS);
+        }
+    }
+
+    private Result load(URI uri, int requests) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        List<Future<?>> clients = new ArrayList<>();
+        long start = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int clientNumber = 0; clientNumber < CLIENTS; clientNumber++) {
+                clients.add(executor.submit(() -> {
+                    for (int sent = next.getAndIncrement(); sent < requests; sent = next.getAndIncrement()) {
+                        long sentAt = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies[sent] = System.nanoTime() - sentAt;
+
+                        if (response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (Future<?> clientDone : clients) {
+                clientDone.get();
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        Arrays.sort(latencies);
+        return new Result(requests / seconds, latencies[requests / 2] / 1_000_000.0,
+                latencies[requests * 99 / 100] / 1_000_000.0, failures.get());
+    }
+
+    private void createBook(BookService bookService) {
+        BookEdition edition = new BookEdition();
+        edition.setIsbn("978-0-00-000400-1");
+        edition.setTitle("Benchmark Title");
+        edition.setAuthorName("Benchmark Author");
+        edition.setNumber(1);
+
+        Book book = new Book();
+        book.setBatchNumber("BENCHMARK-1");
+        book.setPublisher("Publisher");
+        book.setPublishedYear(2024);
+        book.setEdition(edition);
+        bookService.save(book);
+    }
+
+    private record Result(double requestsPerSecond, double p50, double p99, int failures) {
+        @Override
+        public String toString() {
+            return String.format("%.0f requests/s, p50 %.1f ms, p99 %.1f ms, %d failures", requestsPerSecond, p50,
+                    p99, failures);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    static class DatabaseLatencyConfiguration {
+        @Bean
+        static BeanPostProcessor databaseLatencyPostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource && beanName.equals("dataSource")) {
+                        return new DelegatingDataSource(dataSource) {
+                            @Override
+                            public Connection getConnection() throws SQLException {
+                                Connection connection = super.getConnection();
+
+                                try {
+                                    Thread.sleep(DATABASE_LATENCY);
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                }
+
+                                return connection;
+                            }
+                        };
+                    }
+
+                    return bean;
+                }
+            };
+        }
+    }
+}
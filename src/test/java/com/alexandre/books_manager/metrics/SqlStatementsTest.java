@@ -0,0 +1,77 @@
+package com.alexandre.books_manager.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlStatementsTest {
+
+    @AfterEach
+    void tearDown() {
+        SqlStatements.clearRequest();
+    }
+
+    @Test
+    void shouldReportTheStatementRunningOverTheBudget() {
+        // Given
+        SqlStatements statements = SqlStatements.startRequest();
+        statements.limit("GET /api/v1/books", 2, 10);
+
+        // When
+        String first = statements.record("select 1", false, 10);
+        String second = statements.record("select 2", false, 10);
+        String third = statements.record("select 3", false, 10);
+        String fourth = statements.record("select 4", false, 10);
+
+        // Then
+        assertThat(first).isNull();
+        assertThat(second).isNull();
+        assertThat(third).isEqualTo("GET /api/v1/books ran more than 2 SQL statements");
+        assertThat(fourth).isNull();
+        assertThat(statements.count()).isEqualTo(4);
+        assertThat(statements.nanos()).isEqualTo(40);
+    }
+
+    @Test
+    void shouldReportRepeatedStatementsButNotBatchesOrIdAllocations() {
+        // Given
+        SqlStatements statements = SqlStatements.startRequest();
+        statements.limit("GET /api/v1/book-defects", 50, 2);
+        String lookup = "select b.batch_number from books b where b.edition_isbn=?";
+        String insert = "insert into books (batch_number, edition_isbn) values (?, ?)";
+        String allocation = "select next value for books_seq";
+
+        // When
+        statements.record(insert, true, 10);
+        statements.record(insert, true, 10);
+        String batch = statements.record(insert, true, 10);
+        statements.record(allocation, false, 10);
+        statements.record(allocation, false, 10);
+        String allocated = statements.record(allocation, false, 10);
+        statements.record(lookup, false, 10);
+        statements.record(lookup, false, 10);
+        String repeated = statements.record(lookup, false, 10);
+
+        // Then
+        assertThat(batch).isNull();
+        assertThat(allocated).isNull();
+        assertThat(repeated).isEqualTo("GET /api/v1/book-defects ran the same SQL statement more than 2 times: "
+                + lookup);
+    }
+
+    @Test
+    void shouldNotCheckUnlimitedStatements() {
+        // Given
+        SqlStatements statements = SqlStatements.startRequest();
+
+        // When
+        for (int statement = 0; statement < 1000; statement++) {
+            assertThat(statements.record("select 1", false, 1)).isNull();
+        }
+
+        // Then
+        assertThat(SqlStatements.currentRequest()).isSameAs(statements);
+        assertThat(statements.count()).isEqualTo(1000);
+    }
+}
@@ -0,0 +1,113 @@
+package com.alexandre.books_manager.repository;
+
+import com.alexandre.books_manager.converter.BookConverter;
+import com.alexandre.books_manager.converter.BookEditionConverter;
+import com.alexandre.books_manager.dto.BookDTO;
+import com.alexandre.books_manager.model.Book;
+import com.alexandre.books_manager.model.BookEdition;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class BookRepositoryTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final BookConverter bookConverter = new BookConverter(new BookEditionConverter());
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int editionNumber = 0; editionNumber < 5; editionNumber++) {
+            BookEdition edition = new BookEdition();
+            edition.setIsbn("978-3-16-14841" + editionNumber);
+            edition.setTitle("Title " + editionNumber);
+            edition.setAuthorName("Author " + editionNumber);
+            edition.setNumber(1);
+            entityManager.persist(edition);
+
+            for (int batch = 0; batch < 4; batch++) {
+                Book book = new Book();
+                book.setBatchNumber("BATCH-" + batch);
+                book.setPublisher("Publisher");
+                book.setPublishedYear(2020);
+                book.setEdition(edition);
+                entityManager.persist(book);
+            }
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager()
+                .getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void shouldLoadEditionsWithTheFirstPageInOneStatement() {
+        // When
+        List<BookDTO> books = bookConverter.toDtoList(bookRepository.findAllByOrderByIdAsc(Limit.of(20)));
+
+        // Then
+        assertThat(books).hasSize(20);
+        assertThat(books).allSatisfy(book -> assertThat(book.edition().title()).startsWith("Title "));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldLoadEditionsWithFollowingPagesInOneStatement() {
+        // Given
+        Long firstId = bookRepository.findAllByOrderByIdAsc(Limit.of(1)).get(0).getId();
+        entityManager.clear();
+        statistics.clear();
+
+        // When
+        List<BookDTO> books = bookConverter.toDtoList(bookRepository.findByIdGreaterThanOrderByIdAsc(firstId, Limit.of(10)));
+
+        // Then
+        assertThat(books).hasSize(10);
+        assertThat(books).allSatisfy(book -> assertThat(book.edition()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldLoadEditionsWithAllBooksInOneStatement() {
+        // When
+        List<BookDTO> books = bookConverter.toDtoList(bookRepository.findAll());
+
+        // Then
+        assertThat(books).hasSize(20);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldLoadEditionWithSingleBookInOneStatement() {
+        // When
+        BookDTO book = bookConverter.toDto(
+                bookRepository.findByBatchNumberAndEditionIsbn("BATCH-2", "978-3-16-148413").orElseThrow());
+
+        // Then
+        assertThat(book.edition().isbn()).isEqualTo("978-3-16-148413");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
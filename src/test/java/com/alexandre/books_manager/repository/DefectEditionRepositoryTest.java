@@ -0,0 +1,135 @@
+package com.alexandre.books_manager.repository;
+
+import com.alexandre.books_manager.converter.BookEditionConverter;
+import com.alexandre.books_manager.converter.DefectEditionConverter;
+import com.alexandre.books_manager.dto.DefectEditionDTO;
+import com.alexandre.books_manager.model.BookEdition;
+import com.alexandre.books_manager.model.DefectEdition;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class DefectEditionRepositoryTest {
+
+    @Autowired
+    private DefectEditionRepository defectEditionRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final DefectEditionConverter defectEditionConverter = new DefectEditionConverter(new BookEditionConverter());
+
+    private Statistics statistics;
+
+    private void createDefects(int editions, int defectsPerEdition, int batchesPerDefect) {
+        for (int editionNumber = 0; editionNumber < editions; editionNumber++) {
+            BookEdition edition = new BookEdition();
+            edition.setIsbn("978-3-16-14841" + editionNumber);
+            edition.setTitle("Title " + editionNumber);
+            edition.setAuthorName("Author " + editionNumber);
+            edition.setNumber(1);
+            entityManager.persist(edition);
+
+            for (int defect = 0; defect < defectsPerEdition; defect++) {
+                Set<String> affectedBatches = new LinkedHashSet<>();
+                for (int batch = 0; batch < batchesPerDefect; batch++) {
+                    affectedBatches.add("BATCH-" + batch);
+                }
+
+                DefectEdition defectEdition = new DefectEdition();
+                defectEdition.setDefectCode("DEFECT-" + defect);
+                defectEdition.setEdition(edition);
+                defectEdition.setAffectedBatches(affectedBatches);
+                entityManager.persist(defectEdition);
+            }
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager()
+                .getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+    }
+
+    @Test
+    void shouldLoadDefectsWithEditionsAndAffectedBatchesInTwoStatements() {
+        // Given
+        createDefects(3, 4, 5);
+
+        // When
+        List<DefectEditionDTO> defects = defectEditionConverter.toDtoList(defectEditionRepository.findAll());
+
+        // Then
+        assertThat(defects).hasSize(12);
+        assertThat(defects).allSatisfy(defect -> {
+            assertThat(defect.edition().title()).startsWith("Title ");
+            assertThat(defect.affectedBatches()).hasSize(5);
+        });
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotIssueMoreStatementsForMoreDefects() {
+        // Given
+        createDefects(10, 10, 3);
+
+        // When
+        List<DefectEditionDTO> defects = defectEditionConverter.toDtoList(defectEditionRepository.findAll());
+
+        // Then
+        assertThat(defects).hasSize(100);
+        assertThat(defects).allSatisfy(defect -> assertThat(defect.affectedBatches()).hasSize(3));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldAddOneBatchToLargeRecallWithOneStatement() {
+        // Given
+        createDefects(1, 1, 5000);
+        DefectEdition defect = defectEditionRepository.findAll().iterator().next();
+        Hibernate.initialize(defect.getAffectedBatches());
+        statistics.clear();
+
+        // When
+        defect.getAffectedBatches().add("BATCH-NEW");
+        entityManager.flush();
+
+        // Then
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        entityManager.clear();
+        assertThat(entityManager.find(DefectEdition.class, defect.getId()).getAffectedBatches()).hasSize(5001);
+    }
+
+    @Test
+    void shouldFindDefectsAffectingBatchOfEdition() {
+        // Given
+        createDefects(3, 4, 5);
+
+        // When
+        List<DefectEdition> defects = defectEditionRepository.findByEditionIsbnAndAffectedBatch("978-3-16-148411", "BATCH-2");
+
+        // Then
+        assertThat(defects).hasSize(4);
+        assertThat(defects).allSatisfy(defect -> assertThat(defect.getEdition().getIsbn()).isEqualTo("978-3-16-148411"));
+    }
+}
@@ -0,0 +1,47 @@
+package com.alexandre.books_manager.repository;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the migrations on H2 in MySQL mode with the MySQL dialect, and starts only if Hibernate finds the
+ * schema it maps, with the id sequences emulated by tables as on MySQL.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:migrations;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.flyway.enabled=true"
+})
+@ActiveProfiles("test")
+class SchemaMigrationTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldCreateTheMappedSchemaWithItsIndexes() {
+        // When
+        MigrationInfo[] applied = flyway.info().applied();
+
+        // Then
+        assertThat(Arrays.stream(applied).map(migration -> migration.getVersion().getVersion()))
+                .containsExactly("1", "2", "3");
+        assertThat(jdbcTemplate.queryForList(
+                "select index_name from information_schema.indexes where table_name in ('books', 'defect_editions')",
+                String.class))
+                .contains("idx_books_edition_isbn_batch_number", "idx_defect_editions_edition_isbn");
+    }
+}
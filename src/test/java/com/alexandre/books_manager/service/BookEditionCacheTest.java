@@ -0,0 +1,104 @@
+package com.alexandre.books_manager.service;
+
+import com.alexandre.books_manager.model.BookEdition;
+import com.alexandre.books_manager.repository.BookEditionRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class BookEditionCacheTest {
+    // A deleted entry stays soft-locked in the region for a while, so every test works on its own ISBN
+    private static final AtomicInteger TESTS = new AtomicInteger();
+
+    @Autowired
+    private BookEditionService bookEditionService;
+
+    @Autowired
+    private BookEditionRepository bookEditionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private String isbn;
+
+    @BeforeEach
+    void setUp() {
+        isbn = "978-0-00-00001" + TESTS.getAndIncrement() + "-0";
+        bookEditionService.save(edition());
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookEditionRepository.deleteById(isbn);
+    }
+
+    @Test
+    void shouldServeRepeatedLookupsFromCache() {
+        // Given
+        bookEditionService.findByIsbn(isbn);
+        statistics.clear();
+
+        // When
+        BookEdition edition = bookEditionService.findByIsbn(isbn).orElseThrow();
+        bookEditionService.findByIsbn(isbn);
+
+        // Then
+        assertThat(edition.getTitle()).isEqualTo("Cached Title");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getDomainDataRegionStatistics(BookEdition.CACHE_REGION).getHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotServeStaleEditionAfterUpdate() {
+        // Given
+        bookEditionService.findByIsbn(isbn);
+        BookEdition update = new BookEdition();
+        update.setIsbn(isbn);
+        update.setTitle("Updated Title");
+
+        // When
+        BookEdition updated = bookEditionService.update(update);
+        statistics.clear();
+        BookEdition edition = bookEditionService.findByIsbn(isbn).orElseThrow();
+        bookEditionService.findByIsbn(isbn);
+
+        // Then
+        assertThat(updated.getTitle()).isEqualTo("Updated Title");
+        assertThat(edition.getTitle()).isEqualTo("Updated Title");
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void shouldEvictCacheOnDelete() {
+        // When
+        bookEditionService.deleteByIsbn(isbn);
+
+        // Then
+        assertThat(bookEditionService.findByIsbn(isbn)).isEmpty();
+    }
+
+    private BookEdition edition() {
+        BookEdition edition = new BookEdition();
+        edition.setIsbn(isbn);
+        edition.setTitle("Cached Title");
+        edition.setAuthorName("Cached Author");
+        edition.setNumber(1);
+        return edition;
+    }
+}
@@ -0,0 +1,84 @@
+package com.alexandre.books_manager.service;
+
+import com.alexandre.books_manager.model.BookEdition;
+import com.alexandre.books_manager.repository.BookEditionRepository;
+import com.alexandre.books_manager.repository.BookRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures how long deleting an edition with many books takes. Run it with {@code mvn test -Pbenchmark};
+ * the number of books can be changed with {@code -Dbenchmark.books=N}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class BookEditionDeleteBenchmarkTest {
+    private static final String ISBN = "978-0-00-000000-9";
+    private static final int BOOKS = Integer.getInteger("benchmark.books", 100_000);
+    private static final long FIRST_BOOK_ID = 1_000_000_000L;
+
+    @Autowired
+    private BookEditionService bookEditionService;
+
+    @Autowired
+    private BookEditionRepository bookEditionRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void deleteEditionWithManyBooks() {
+        // Given
+        BookEdition edition = new BookEdition();
+        edition.setIsbn(ISBN);
+        edition.setTitle("Benchmark Title");
+        edition.setAuthorName("Benchmark Author");
+        edition.setNumber(1);
+        bookEditionRepository.save(edition);
+
+        List<Object[]> rows = new ArrayList<>(BOOKS);
+
+        for (int book = 0; book < BOOKS; book++) {
+            rows.add(new Object[]{FIRST_BOOK_ID + book, "Publisher", 2024, "BATCH-" + book, ISBN});
+        }
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO books (id, publisher, published_year, batch_number, edition_isbn) VALUES (?, ?, ?, ?, ?)",
+                rows);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // When
+        long start = System.nanoTime();
+        bookEditionService.deleteByIsbn(ISBN);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Then
+        System.out.printf("Deleted an edition with %d books in %d ms using %d statements%n",
+                BOOKS, elapsedMillis, statistics.getPrepareStatementCount());
+
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+        assertThat(bookEditionRepository.findByIsbn(ISBN)).isEmpty();
+        assertThat(bookRepository.findByEditionIsbn(ISBN)).isEmpty();
+    }
+}
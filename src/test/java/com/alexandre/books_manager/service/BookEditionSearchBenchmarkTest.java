@@ -0,0 +1,115 @@
+package com.alexandre.books_manager.service;
+
+import com.alexandre.books_manager.model.BookEdition;
+import com.alexandre.books_manager.repository.BookEditionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures search latency on a large index. Run it with {@code mvn test -Pbenchmark}; the number of editions
+ * can be changed with {@code -Dbenchmark.editions=N}. Only the index is measured: loading the matching
+ * editions is a primary key lookup served by the second-level cache.
+ */
+@Tag("benchmark")
+class BookEditionSearchBenchmarkTest {
+    private static final int EDITIONS = Integer.getInteger("benchmark.editions", 1_000_000);
+    private static final int WARMUP_SEARCHES = 2_000;
+    private static final int SEARCHES = 10_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int WORDS = 5_000;
+
+    private final Random random = new Random(42);
+    private final String[] words = new String[WORDS];
+    private final String[] titles = new String[EDITIONS];
+    private BookEditionSearchService bookEditionSearchService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (int word = 0; word < WORDS; word++) {
+            words[word] = randomWord();
+        }
+
+        bookEditionSearchService = new BookEditionSearchService();
+        bookEditionSearchService.setBookEditionRepository(mock(BookEditionRepository.class));
+        bookEditionSearchService.open();
+
+        for (int number = 0; number < EDITIONS; number++) {
+            BookEdition edition = new BookEdition();
+            edition.setIsbn(String.format("978-%010d", number));
+            titles[number] = randomWords(4);
+            edition.setTitle(titles[number]);
+            edition.setAuthorName(randomWords(2));
+            bookEditionSearchService.index(edition);
+        }
+
+        bookEditionSearchService.refresh();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        bookEditionSearchService.close();
+    }
+
+    @Test
+    void searchManyEditions() {
+        // Given
+        for (int search = 0; search < WARMUP_SEARCHES; search++) {
+            bookEditionSearchService.findHits(randomQuery(), null, PAGE_SIZE);
+        }
+
+        long[] latencies = new long[SEARCHES];
+
+        // When
+        for (int search = 0; search < SEARCHES; search++) {
+            String query = randomQuery();
+            long start = System.nanoTime();
+            bookEditionSearchService.findHits(query, null, PAGE_SIZE);
+            latencies[search] = System.nanoTime() - start;
+        }
+
+        // Then
+        Arrays.sort(latencies);
+        double p50 = latencies[SEARCHES / 2] / 1_000_000.0;
+        double p99 = latencies[SEARCHES * 99 / 100] / 1_000_000.0;
+        System.out.printf("Searched %d editions: p50 %.2f ms, p99 %.2f ms%n", EDITIONS, p50, p99);
+
+        assertThat(p99).isLessThan(10.0);
+    }
+
+    /**
+     * The first word of an indexed title followed by the first letters of its second word, as typed in a
+     * search box.
+     */
+    private String randomQuery() {
+        String[] title = titles[random.nextInt(EDITIONS)].split(" ");
+        return title[0] + " " + title[1].substring(0, 2 + random.nextInt(title[1].length() - 2));
+    }
+
+    private String randomWords(int count) {
+        StringBuilder text = new StringBuilder();
+
+        for (int word = 0; word < count; word++) {
+            text.append(word == 0 ? "" : " ").append(words[random.nextInt(WORDS)]);
+        }
+
+        return text.toString();
+    }
+
+    private String randomWord() {
+        char[] letters = new char[4 + random.nextInt(6)];
+
+        for (int letter = 0; letter < letters.length; letter++) {
+            letters[letter] = (char) ('a' + random.nextInt(26));
+        }
+
+        return new String(letters);
+    }
+}
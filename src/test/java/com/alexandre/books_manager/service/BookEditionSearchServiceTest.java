@@ -0,0 +1,170 @@
+package com.alexandre.books_manager.service;
+
+import com.alexandre.books_manager.model.BookEdition;
+import com.alexandre.books_manager.repository.BookEditionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class BookEditionSearchServiceTest {
+
+    @Autowired
+    private BookEditionService bookEditionService;
+
+    @Autowired
+    private BookEditionSearchService bookEditionSearchService;
+
+    @Autowired
+    private BookEditionRepository bookEditionRepository;
+
+    @BeforeEach
+    void setUp() {
+        bookEditionService.save(edition("978-0-00-000100-1", "Zebulon Saga", "Quill Ravensworth"));
+        bookEditionService.save(edition("978-0-00-000100-2", "Chronicles of Ravensworth", "Zebulon Mire"));
+        bookEditionService.save(edition("978-0-00-000100-3", "Zebulon Returns", "Ottoline Fenwick"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String isbn : List.of("978-0-00-000100-1", "978-0-00-000100-2", "978-0-00-000100-3")) {
+            if (bookEditionService.findByIsbn(isbn).isPresent()) {
+                bookEditionService.deleteByIsbn(isbn);
+            }
+        }
+    }
+
+    @Test
+    void shouldRankTitleMatchesAboveAuthorMatches() {
+        // When
+        List<BookEditionSearchService.Match> matches = bookEditionSearchService.search("ravensworth", null, 10);
+
+        // Then
+        assertThat(matches).extracting(match -> match.edition().getIsbn())
+                .containsExactly("978-0-00-000100-2", "978-0-00-000100-1");
+    }
+
+    @Test
+    void shouldMatchLastWordAsPrefixAndRequireEveryWord() {
+        // When
+        List<BookEditionSearchService.Match> matches = bookEditionSearchService.search("zebulon retu", null, 10);
+
+        // Then
+        assertThat(matches).extracting(match -> match.edition().getIsbn())
+                .containsExactly("978-0-00-000100-3");
+    }
+
+    @Test
+    void shouldPageThroughMatches() {
+        // When
+        List<BookEditionSearchService.Match> firstPage = bookEditionSearchService.search("zebulon", null, 2);
+        List<BookEditionSearchService.Match> lastPage = bookEditionSearchService.search("zebulon", firstPage.get(1).position(), 2);
+
+        // Then
+        assertThat(firstPage).hasSize(2);
+        assertThat(lastPage).hasSize(1);
+        assertThat(List.of(firstPage.get(0), firstPage.get(1), lastPage.get(0)))
+                .extracting(match -> match.edition().getIsbn())
+                .containsExactlyInAnyOrder("978-0-00-000100-1", "978-0-00-000100-2", "978-0-00-000100-3");
+    }
+
+    @Test
+    void shouldFollowUpdatesAndDeletes() {
+        // Given
+        BookEdition update = new BookEdition();
+        update.setIsbn("978-0-00-000100-3");
+        update.setTitle("Marmaduke Returns");
+
+        // When
+        bookEditionService.update(update);
+        bookEditionService.deleteByIsbn("978-0-00-000100-1");
+
+        // Then
+        assertThat(bookEditionSearchService.search("zebulon", null, 10)).extracting(match -> match.edition().getIsbn())
+                .containsExactly("978-0-00-000100-2");
+        assertThat(bookEditionSearchService.search("marmaduke", null, 10)).extracting(match -> match.edition().getTitle())
+                .containsExactly("Marmaduke Returns");
+    }
+
+    @Test
+    void shouldRebuildIndexThatMissedAnUpdate(@TempDir Path indexDirectory) throws IOException {
+        // Given
+        BookEditionSearchService stoppedService = openSearchService(indexDirectory);
+        stoppedService.close();
+
+        BookEdition update = new BookEdition();
+        update.setIsbn("978-0-00-000100-3");
+        update.setTitle("Marmaduke Returns");
+        bookEditionService.update(update);
+
+        // When
+        BookEditionSearchService restartedService = openSearchService(indexDirectory);
+
+        // Then
+        try {
+            assertThat(restartedService.findHits("marmaduke", null, 10)).extracting(BookEditionSearchService.Hit::isbn)
+                    .containsExactly("978-0-00-000100-3");
+        } finally {
+            restartedService.close();
+        }
+    }
+
+    @Test
+    void shouldCatchUpWithChangesMadeThroughAnotherInstance(@TempDir Path indexDirectory) throws IOException {
+        // Given
+        BookEditionSearchService otherInstance = openSearchService(indexDirectory);
+
+        BookEdition update = new BookEdition();
+        update.setIsbn("978-0-00-000100-3");
+        update.setTitle("Marmaduke Returns");
+        bookEditionService.update(update);
+        bookEditionService.deleteByIsbn("978-0-00-000100-1");
+
+        // When
+        otherInstance.resync();
+
+        // Then
+        try {
+            assertThat(otherInstance.findHits("marmaduke", null, 10)).extracting(BookEditionSearchService.Hit::isbn)
+                    .containsExactly("978-0-00-000100-3");
+            assertThat(otherInstance.findHits("zebulon", null, 10)).extracting(BookEditionSearchService.Hit::isbn)
+                    .containsExactly("978-0-00-000100-2");
+        } finally {
+            otherInstance.close();
+        }
+    }
+
+    @Test
+    void shouldReturnNothingForTextWithoutWords() {
+        // When & Then
+        assertThat(bookEditionSearchService.search("?!", null, 10)).isEmpty();
+    }
+
+    private BookEditionSearchService openSearchService(Path indexDirectory) throws IOException {
+        BookEditionSearchService searchService = new BookEditionSearchService();
+        searchService.setBookEditionRepository(bookEditionRepository);
+        searchService.setIndexDirectory(indexDirectory.toString());
+        searchService.open();
+        return searchService;
+    }
+
+    private BookEdition edition(String isbn, String title, String authorName) {
+        BookEdition edition = new BookEdition();
+        edition.setIsbn(isbn);
+        edition.setTitle(title);
+        edition.setAuthorName(authorName);
+        edition.setNumber(1);
+        return edition;
+    }
+}
@@ -2,18 +2,28 @@ package com.alexandre.books_manager.service;
 
 import com.alexandre.books_manager.exception.BadRequestException;
 import com.alexandre.books_manager.exception.NotFoundException;
+import com.alexandre.books_manager.exception.PreconditionFailedException;
 import com.alexandre.books_manager.model.BookEdition;
 import com.alexandre.books_manager.repository.BookEditionRepository;
+import com.alexandre.books_manager.repository.BookRepository;
+import com.alexandre.books_manager.repository.DefectEditionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -26,6 +36,15 @@ class BookEditionServiceTest {
     @Mock
     private BookEditionRepository bookEditionRepository;
 
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private DefectEditionRepository defectEditionRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BookEditionService bookEditionService;
 
@@ -64,6 +83,7 @@ class BookEditionServiceTest {
         assertThat(savedBookEdition.getNumber()).isEqualTo(1);
         verify(bookEditionRepository, times(1)).findByIsbn("978-3-16-148410-0");
         verify(bookEditionRepository, times(1)).save(testBookEdition);
+        verify(eventPublisher, times(1)).publishEvent(new BookEditionChangedEvent("978-3-16-148410-0"));
     }
 
     @Test
@@ -80,6 +100,98 @@ class BookEditionServiceTest {
         verify(bookEditionRepository, never()).save(any(BookEdition.class));
     }
 
+    @Test
+    void shouldReturnExistingBookEditionWithoutInserting() {
+        // Given
+        when(bookEditionRepository.findByIsbn("978-3-16-148410-0")).thenReturn(Optional.of(testBookEdition));
+
+        // When
+        BookEdition foundBookEdition = bookEditionService.findOrCreate(testBookEdition);
+
+        // Then
+        assertThat(foundBookEdition).isSameAs(testBookEdition);
+        verify(bookEditionRepository, never()).insert(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    void shouldCreateMissingBookEdition() {
+        // Given
+        when(bookEditionRepository.findByIsbn("978-3-16-148410-0"))
+                .thenReturn(Optional.empty(), Optional.empty(), Optional.of(testBookEdition));
+
+        // When
+        BookEdition createdBookEdition = bookEditionService.findOrCreate(testBookEdition);
+
+        // Then
+        assertThat(createdBookEdition).isSameAs(testBookEdition);
+        verify(bookEditionRepository, times(1)).insert("978-3-16-148410-0", "Test Book Title", "Test Author", 1);
+    }
+
+    @Test
+    void shouldReadBackBookEditionCreatedConcurrently() {
+        // Given
+        when(bookEditionRepository.findByIsbn("978-3-16-148410-0"))
+                .thenReturn(Optional.empty(), Optional.empty(), Optional.of(testBookEdition));
+        doThrow(new DuplicateKeyException("Duplicate entry"))
+                .when(bookEditionRepository).insert(anyString(), anyString(), anyString(), any());
+        Set<String> createdIsbns = new HashSet<>();
+
+        // When
+        BookEdition foundBookEdition = bookEditionService.findOrCreate(testBookEdition, createdIsbns);
+
+        // Then
+        assertThat(foundBookEdition).isSameAs(testBookEdition);
+        assertThat(createdIsbns).isEmpty();
+        verify(bookEditionRepository, times(3)).findByIsbn("978-3-16-148410-0");
+    }
+
+    @Test
+    void shouldPropagateIntegrityViolationsOtherThanDuplicates() {
+        // Given
+        testBookEdition.setTitle(null);
+        when(bookEditionRepository.findByIsbn("978-3-16-148410-0")).thenReturn(Optional.empty());
+        doThrow(new DataIntegrityViolationException("NULL not allowed for column TITLE"))
+                .when(bookEditionRepository).insert(anyString(), any(), anyString(), any());
+
+        // When & Then
+        assertThatThrownBy(() -> bookEditionService.findOrCreate(testBookEdition))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .hasMessageContaining("TITLE");
+
+        verify(bookEditionRepository, times(2)).findByIsbn("978-3-16-148410-0");
+    }
+
+    @Test
+    void shouldReportCreatedBookEdition() {
+        // Given
+        when(bookEditionRepository.findByIsbn("978-3-16-148410-0"))
+                .thenReturn(Optional.empty(), Optional.empty(), Optional.of(testBookEdition));
+        Set<String> createdIsbns = new HashSet<>();
+
+        // When
+        bookEditionService.findOrCreate(testBookEdition, createdIsbns);
+
+        // Then
+        assertThat(createdIsbns).containsExactly("978-3-16-148410-0");
+    }
+
+    @Test
+    void shouldOnlyCreateMissingBookEditionsInBulk() {
+        // Given
+        when(bookEditionRepository.findAllById(List.of("978-3-16-148410-0", "978-3-16-148410-1")))
+                .thenReturn(List.of(testBookEdition));
+        when(bookEditionRepository.findByIsbn("978-3-16-148410-1"))
+                .thenReturn(Optional.empty(), Optional.empty(), Optional.of(secondBookEdition));
+
+        // When
+        Map<String, BookEdition> editions = bookEditionService.findOrCreateAll(List.of(testBookEdition, secondBookEdition));
+
+        // Then
+        assertThat(editions).containsOnlyKeys("978-3-16-148410-0", "978-3-16-148410-1");
+        verify(bookEditionRepository, times(1)).insert("978-3-16-148410-1", "Second Book Title", "Second Author", 2);
+        verify(bookEditionRepository, never()).findByIsbn("978-3-16-148410-0");
+    }
+
     @Test
     void shouldFindAllBookEditions() {
         // Given
@@ -95,6 +207,34 @@ class BookEditionServiceTest {
         verify(bookEditionRepository, times(1)).findAll();
     }
 
+    @Test
+    void shouldFindFirstPageOfBookEditions() {
+        // Given
+        List<BookEdition> bookEditions = Arrays.asList(testBookEdition, secondBookEdition);
+        when(bookEditionRepository.findAllByOrderByIsbnAsc(Limit.of(3))).thenReturn(bookEditions);
+
+        // When
+        List<BookEdition> page = bookEditionService.findPage(null, 3);
+
+        // Then
+        assertThat(page).containsExactly(testBookEdition, secondBookEdition);
+        verify(bookEditionRepository, never()).findByIsbnGreaterThanOrderByIsbnAsc(anyString(), any(Limit.class));
+    }
+
+    @Test
+    void shouldFindBookEditionsAfterCursor() {
+        // Given
+        when(bookEditionRepository.findByIsbnGreaterThanOrderByIsbnAsc("978-3-16-148410-0", Limit.of(3)))
+                .thenReturn(List.of(secondBookEdition));
+
+        // When
+        List<BookEdition> page = bookEditionService.findPage("978-3-16-148410-0", 3);
+
+        // Then
+        assertThat(page).containsExactly(secondBookEdition);
+        verify(bookEditionRepository, never()).findAllByOrderByIsbnAsc(any(Limit.class));
+    }
+
     @Test
     void shouldFindBookEditionByIsbn() {
         // Given
@@ -132,8 +272,9 @@ class BookEditionServiceTest {
         updatedBookEdition.setAuthorName("Updated Author");
         updatedBookEdition.setNumber(2);
 
-        when(bookEditionRepository.findByIsbn("978-3-16-148410-0")).thenReturn(Optional.of(testBookEdition));
-        when(bookEditionRepository.save(any(BookEdition.class))).thenReturn(updatedBookEdition);
+        when(bookEditionRepository.updateNonNullFields("978-3-16-148410-0", "Updated Book Title", "Updated Author", 2, null))
+                .thenReturn(1);
+        when(bookEditionRepository.findUncachedByIsbn("978-3-16-148410-0")).thenReturn(Optional.of(updatedBookEdition));
 
         // When
         BookEdition result = bookEditionService.update(updatedBookEdition);
@@ -143,8 +284,8 @@ class BookEditionServiceTest {
         assertThat(result.getTitle()).isEqualTo("Updated Book Title");
         assertThat(result.getAuthorName()).isEqualTo("Updated Author");
         assertThat(result.getNumber()).isEqualTo(2);
-        verify(bookEditionRepository, times(1)).findByIsbn("978-3-16-148410-0");
-        verify(bookEditionRepository, times(1)).save(any(BookEdition.class));
+        verify(bookEditionRepository, never()).findVersionByIsbn(anyString());
+        verify(bookEditionRepository, never()).save(any(BookEdition.class));
     }
 
     @Test
@@ -155,20 +296,15 @@ class BookEditionServiceTest {
         partialUpdate.setTitle("Updated Title Only");
         // authorName and number are null
 
-        BookEdition existingBookEdition = new BookEdition();
-        existingBookEdition.setIsbn("978-3-16-148410-0");
-        existingBookEdition.setTitle("Original Title");
-        existingBookEdition.setAuthorName("Original Author");
-        existingBookEdition.setNumber(1);
-
         BookEdition expectedUpdated = new BookEdition();
         expectedUpdated.setIsbn("978-3-16-148410-0");
         expectedUpdated.setTitle("Updated Title Only");
         expectedUpdated.setAuthorName("Original Author"); // Should remain unchanged
         expectedUpdated.setNumber(1); // Should remain unchanged
 
-        when(bookEditionRepository.findByIsbn("978-3-16-148410-0")).thenReturn(Optional.of(existingBookEdition));
-        when(bookEditionRepository.save(any(BookEdition.class))).thenReturn(expectedUpdated);
+        when(bookEditionRepository.updateNonNullFields("978-3-16-148410-0", "Updated Title Only", null, null, null))
+                .thenReturn(1);
+        when(bookEditionRepository.findUncachedByIsbn("978-3-16-148410-0")).thenReturn(Optional.of(expectedUpdated));
 
         // When
         BookEdition result = bookEditionService.update(partialUpdate);
@@ -178,49 +314,85 @@ class BookEditionServiceTest {
         assertThat(result.getTitle()).isEqualTo("Updated Title Only");
         assertThat(result.getAuthorName()).isEqualTo("Original Author");
         assertThat(result.getNumber()).isEqualTo(1);
-        verify(bookEditionRepository, times(1)).findByIsbn("978-3-16-148410-0");
-        verify(bookEditionRepository, times(1)).save(any(BookEdition.class));
+        verify(bookEditionRepository, times(1)).updateNonNullFields("978-3-16-148410-0", "Updated Title Only", null, null, null);
+        verify(bookEditionRepository, never()).save(any(BookEdition.class));
+    }
+
+    @Test
+    void shouldThrowPreconditionFailedExceptionWhenUpdatingModifiedBookEdition() {
+        // Given
+        BookEdition update = new BookEdition();
+        update.setIsbn("978-3-16-148410-0");
+        update.setTitle("New Title");
+        when(bookEditionRepository.updateNonNullFields("978-3-16-148410-0", "New Title", null, null, 3L)).thenReturn(0);
+        when(bookEditionRepository.findVersionByIsbn("978-3-16-148410-0")).thenReturn(Optional.of(4L));
+
+        // When & Then
+        assertThatThrownBy(() -> bookEditionService.update(update, 3L))
+                .isInstanceOf(PreconditionFailedException.class);
+
+        verify(bookEditionRepository, never()).findUncachedByIsbn(anyString());
+    }
+
+    @Test
+    void shouldReturnNewVersionWithoutReadingWhenPatchingExpectedVersion() {
+        // Given
+        BookEdition update = new BookEdition();
+        update.setIsbn("978-3-16-148410-0");
+        update.setNumber(3);
+        when(bookEditionRepository.updateNonNullFields("978-3-16-148410-0", null, null, 3, 3L)).thenReturn(1);
+
+        // When
+        Long version = bookEditionService.patch(update, 3L);
+
+        // Then
+        assertThat(version).isEqualTo(4L);
+        verify(bookEditionRepository, never()).findVersionByIsbn(anyString());
+        verify(bookEditionRepository, never()).findUncachedByIsbn(anyString());
     }
 
     @Test
     void shouldThrowNotFoundExceptionWhenUpdatingNonExistentBookEdition() {
         // Given
-        when(bookEditionRepository.findByIsbn("978-3-16-148410-0")).thenReturn(Optional.empty());
+        when(bookEditionRepository.updateNonNullFields("978-3-16-148410-0", "Test Book Title", "Test Author", 1, null))
+                .thenReturn(0);
+        when(bookEditionRepository.findVersionByIsbn("978-3-16-148410-0")).thenReturn(Optional.empty());
 
         // When & Then
         assertThatThrownBy(() -> bookEditionService.update(testBookEdition))
                 .isInstanceOf(NotFoundException.class)
                 .hasMessageContaining("Book Edition not found");
 
-        verify(bookEditionRepository, times(1)).findByIsbn("978-3-16-148410-0");
+        verify(bookEditionRepository, never()).findUncachedByIsbn(anyString());
         verify(bookEditionRepository, never()).save(any(BookEdition.class));
     }
 
     @Test
     void shouldDeleteBookEditionByIsbn() {
         // Given
-        when(bookEditionRepository.findByIsbn("978-3-16-148410-0")).thenReturn(Optional.of(testBookEdition));
-        doNothing().when(bookEditionRepository).deleteByIsbn("978-3-16-148410-0");
+        when(bookEditionRepository.deleteByIsbn("978-3-16-148410-0")).thenReturn(1);
 
         // When
         bookEditionService.deleteByIsbn("978-3-16-148410-0");
 
         // Then
-        verify(bookEditionRepository, times(1)).findByIsbn("978-3-16-148410-0");
+        verify(defectEditionRepository, times(1)).deleteByEditionIsbn("978-3-16-148410-0");
+        verify(bookRepository, times(1)).deleteByEditionIsbn("978-3-16-148410-0");
         verify(bookEditionRepository, times(1)).deleteByIsbn("978-3-16-148410-0");
+        verify(bookEditionRepository, never()).findByIsbn(anyString());
+        verify(eventPublisher, times(1)).publishEvent(new BookEditionChangedEvent("978-3-16-148410-0"));
     }
 
     @Test
     void shouldThrowNotFoundExceptionWhenDeletingNonExistentBookEdition() {
         // Given
-        when(bookEditionRepository.findByIsbn("NONEXISTENT-ISBN")).thenReturn(Optional.empty());
+        when(bookEditionRepository.deleteByIsbn("NONEXISTENT-ISBN")).thenReturn(0);
 
         // When & Then
         assertThatThrownBy(() -> bookEditionService.deleteByIsbn("NONEXISTENT-ISBN"))
                 .isInstanceOf(NotFoundException.class);
 
-        verify(bookEditionRepository, times(1)).findByIsbn("NONEXISTENT-ISBN");
-        verify(bookEditionRepository, never()).deleteByIsbn(anyString());
+        verify(bookEditionRepository, times(1)).deleteByIsbn("NONEXISTENT-ISBN");
     }
 
     @Test
@@ -237,16 +409,16 @@ class BookEditionServiceTest {
         existingBookEdition.setAuthorName("Old Author");
         existingBookEdition.setNumber(5);
 
-        when(bookEditionRepository.findByIsbn("978-3-16-148410-0")).thenReturn(Optional.of(existingBookEdition));
-        when(bookEditionRepository.save(any(BookEdition.class))).thenReturn(existingBookEdition);
+        when(bookEditionRepository.updateNonNullFields("978-3-16-148410-0", "New Title", null, null, null)).thenReturn(1);
+        when(bookEditionRepository.findUncachedByIsbn("978-3-16-148410-0")).thenReturn(Optional.of(existingBookEdition));
 
         // When
         BookEdition result = bookEditionService.update(updateWithOnlyTitle);
 
         // Then
         assertThat(result).isNotNull();
-        verify(bookEditionRepository, times(1)).findByIsbn("978-3-16-148410-0");
-        verify(bookEditionRepository, times(1)).save(any(BookEdition.class));
+        verify(bookEditionRepository, times(1)).updateNonNullFields("978-3-16-148410-0", "New Title", null, null, null);
+        verify(bookEditionRepository, never()).save(any(BookEdition.class));
     }
 
     @Test
@@ -263,16 +435,16 @@ class BookEditionServiceTest {
         existingBookEdition.setAuthorName("Old Author");
         existingBookEdition.setNumber(5);
 
-        when(bookEditionRepository.findByIsbn("978-3-16-148410-0")).thenReturn(Optional.of(existingBookEdition));
-        when(bookEditionRepository.save(any(BookEdition.class))).thenReturn(existingBookEdition);
+        when(bookEditionRepository.updateNonNullFields("978-3-16-148410-0", null, "New Author", null, null)).thenReturn(1);
+        when(bookEditionRepository.findUncachedByIsbn("978-3-16-148410-0")).thenReturn(Optional.of(existingBookEdition));
 
         // When
         BookEdition result = bookEditionService.update(updateWithOnlyAuthor);
 
         // Then
         assertThat(result).isNotNull();
-        verify(bookEditionRepository, times(1)).findByIsbn("978-3-16-148410-0");
-        verify(bookEditionRepository, times(1)).save(any(BookEdition.class));
+        verify(bookEditionRepository, times(1)).updateNonNullFields("978-3-16-148410-0", null, "New Author", null, null);
+        verify(bookEditionRepository, never()).save(any(BookEdition.class));
     }
 
     @Test
@@ -289,15 +461,15 @@ class BookEditionServiceTest {
         existingBookEdition.setAuthorName("Old Author");
         existingBookEdition.setNumber(5);
 
-        when(bookEditionRepository.findByIsbn("978-3-16-148410-0")).thenReturn(Optional.of(existingBookEdition));
-        when(bookEditionRepository.save(any(BookEdition.class))).thenReturn(existingBookEdition);
+        when(bookEditionRepository.updateNonNullFields("978-3-16-148410-0", null, null, 10, null)).thenReturn(1);
+        when(bookEditionRepository.findUncachedByIsbn("978-3-16-148410-0")).thenReturn(Optional.of(existingBookEdition));
 
         // When
         BookEdition result = bookEditionService.update(updateWithOnlyNumber);
 
         // Then
         assertThat(result).isNotNull();
-        verify(bookEditionRepository, times(1)).findByIsbn("978-3-16-148410-0");
-        verify(bookEditionRepository, times(1)).save(any(BookEdition.class));
+        verify(bookEditionRepository, times(1)).updateNonNullFields("978-3-16-148410-0", null, null, 10, null);
+        verify(bookEditionRepository, never()).save(any(BookEdition.class));
     }
 }
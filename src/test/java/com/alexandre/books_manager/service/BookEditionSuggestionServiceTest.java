@@ -0,0 +1,170 @@
+package com.alexandre.books_manager.service;
+
+import com.alexandre.books_manager.model.Book;
+import com.alexandre.books_manager.model.BookEdition;
+import com.alexandre.books_manager.model.InstanceChanges;
+import com.alexandre.books_manager.repository.BookEditionRepository;
+import com.alexandre.books_manager.repository.BookRepository;
+import com.alexandre.books_manager.repository.InstanceChangesRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class BookEditionSuggestionServiceTest {
+    private static final List<String> ISBNS = List.of("978-0-00-000200-1", "978-0-00-000200-2", "978-0-00-000200-3");
+    private static final String OTHER_INSTANCE = "suggestions-other-instance";
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookEditionService bookEditionService;
+
+    @Autowired
+    private BookEditionSuggestionService bookEditionSuggestionService;
+
+    @Autowired
+    private BookEditionRepository bookEditionRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private InstanceChangesRepository instanceChangesRepository;
+
+    @BeforeEach
+    void setUp() {
+        bookEditionService.save(edition(ISBNS.get(0), "Quixotic Tales", "Qabil Quorn"));
+        bookEditionService.save(edition(ISBNS.get(1), "Quixotic Nights", "Qabil Quorn"));
+        addBooks(ISBNS.get(1), 2);
+
+        InstanceChanges otherInstance = new InstanceChanges();
+        otherInstance.setInstanceId(OTHER_INSTANCE);
+        instanceChangesRepository.save(otherInstance);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String isbn : ISBNS) {
+            if (bookEditionService.findByIsbn(isbn).isPresent()) {
+                bookEditionService.deleteByIsbn(isbn);
+            }
+        }
+
+        instanceChangesRepository.deleteById(OTHER_INSTANCE);
+    }
+
+    @Test
+    void shouldSuggestTitlesWithMostBooksFirst() {
+        // When
+        addBooks(ISBNS.get(0), 3);
+        bookEditionSuggestionService.applyChanges();
+
+        // Then
+        assertThat(bookEditionSuggestionService.suggestTitles("quix", 10))
+                .containsExactly("Quixotic Tales", "Quixotic Nights");
+        assertThat(bookEditionSuggestionService.suggestTitles("QUIXOTIC N", 10))
+                .containsExactly("Quixotic Nights");
+    }
+
+    @Test
+    void shouldSuggestAuthorOnceForAllItsEditions() {
+        // When
+        bookEditionService.save(edition(ISBNS.get(2), "Quietus", "Qabil Quest"));
+        bookEditionSuggestionService.applyChanges();
+
+        // Then
+        assertThat(bookEditionSuggestionService.suggestAuthorNames("qabil", 10))
+                .containsExactly("Qabil Quorn", "Qabil Quest");
+    }
+
+    @Test
+    void shouldFollowEditionUpdatesAndDeletes() {
+        // Given
+        BookEdition update = new BookEdition();
+        update.setIsbn(ISBNS.get(0));
+        update.setTitle("Quagmire");
+
+        // When
+        bookEditionService.update(update);
+        bookEditionService.deleteByIsbn(ISBNS.get(1));
+        bookEditionSuggestionService.applyChanges();
+
+        // Then
+        assertThat(bookEditionSuggestionService.suggestTitles("qu", 10)).containsExactly("Quagmire");
+        assertThat(bookEditionSuggestionService.suggestAuthorNames("qabil", 10)).containsExactly("Qabil Quorn");
+    }
+
+    @Test
+    void shouldCatchUpWithEditionsCreatedThroughAnotherInstance() {
+        // Given
+        // Inserted without publishing an event, as another instance would
+        bookEditionRepository.insert(ISBNS.get(2), "Quietus", "Qabil Quest", 1);
+
+        // When
+        bookEditionSuggestionService.resync();
+
+        // Then
+        assertThat(bookEditionSuggestionService.suggestTitles("quie", 10)).containsExactly("Quietus");
+        assertThat(bookEditionSuggestionService.suggestAuthorNames("qabil", 10))
+                .containsExactly("Qabil Quorn", "Qabil Quest");
+    }
+
+    @Test
+    void shouldCatchUpWithBooksAddedThroughAnotherInstance() {
+        // Given
+        bookEditionSuggestionService.applyChanges();
+        BookEdition edition = bookEditionRepository.findByIsbn(ISBNS.get(0)).orElseThrow();
+
+        // Inserted without publishing an event, and counted, as another instance would
+        for (int batch = 0; batch < 3; batch++) {
+            Book book = new Book();
+            book.setBatchNumber("SUGGEST-OTHER-" + batch);
+            book.setPublisher("Publisher");
+            book.setPublishedYear(2024);
+            book.setEdition(edition);
+            bookRepository.save(book);
+        }
+
+        instanceChangesRepository.incrementBookChanges(OTHER_INSTANCE);
+
+        // When
+        bookEditionSuggestionService.resync();
+
+        // Then
+        assertThat(bookEditionSuggestionService.suggestTitles("quix", 10))
+                .containsExactly("Quixotic Tales", "Quixotic Nights");
+    }
+
+    private void addBooks(String isbn, int count) {
+        BookEdition edition = new BookEdition();
+        edition.setIsbn(isbn);
+
+        for (int batch = 0; batch < count; batch++) {
+            Book book = new Book();
+            book.setBatchNumber("SUGGEST-" + batch);
+            book.setPublisher("Publisher");
+            book.setPublishedYear(2024);
+            book.setEdition(edition);
+            bookService.save(book);
+        }
+    }
+
+    private BookEdition edition(String isbn, String title, String authorName) {
+        BookEdition edition = new BookEdition();
+        edition.setIsbn(isbn);
+        edition.setTitle(title);
+        edition.setAuthorName(authorName);
+        edition.setNumber(1);
+        return edition;
+    }
+}
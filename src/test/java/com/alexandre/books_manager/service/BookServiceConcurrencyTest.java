@@ -0,0 +1,89 @@
+package com.alexandre.books_manager.service;
+
+import com.alexandre.books_manager.model.Book;
+import com.alexandre.books_manager.model.BookEdition;
+import com.alexandre.books_manager.repository.BookEditionRepository;
+import com.alexandre.books_manager.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class BookServiceConcurrencyTest {
+    private static final String ISBN = "978-0-00-000000-8";
+    private static final int WRITERS = 300;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookEditionService bookEditionService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookEditionRepository bookEditionRepository;
+
+    @AfterEach
+    void tearDown() {
+        bookEditionService.deleteByIsbn(ISBN);
+    }
+
+    @Test
+    void shouldCreateEditionOnceWhenManyBooksOfANewIsbnAreSavedAtOnce() throws Exception {
+        // Given
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Book>> results = new ArrayList<>();
+
+        // When
+        try (ExecutorService executor = Executors.newFixedThreadPool(WRITERS)) {
+            for (int writer = 0; writer < WRITERS; writer++) {
+                Book book = newBook("BATCH-" + writer);
+
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return bookService.save(book);
+                }));
+            }
+
+            start.countDown();
+
+            // Then
+            for (Future<Book> result : results) {
+                assertThat(result.get(60, TimeUnit.SECONDS).getId()).isNotNull();
+            }
+        }
+
+        assertThat(bookEditionRepository.findByIsbn(ISBN)).isPresent();
+        assertThat(bookRepository.findByEditionIsbn(ISBN)).hasSize(WRITERS);
+    }
+
+    private Book newBook(String batchNumber) {
+        BookEdition edition = new BookEdition();
+        edition.setIsbn(ISBN);
+        edition.setTitle("Concurrent Title");
+        edition.setAuthorName("Concurrent Author");
+        edition.setNumber(1);
+
+        Book book = new Book();
+        book.setBatchNumber(batchNumber);
+        book.setPublisher("Publisher");
+        book.setPublishedYear(2024);
+        book.setEdition(edition);
+        return book;
+    }
+}
@@ -0,0 +1,148 @@
+package com.alexandre.books_manager.service;
+
+import com.alexandre.books_manager.model.Book;
+import com.alexandre.books_manager.model.BookEdition;
+import com.alexandre.books_manager.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private BookEditionService bookEditionService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private BookService bookService;
+
+    private BookEdition testBookEdition;
+
+    @BeforeEach
+    void setUp() {
+        testBookEdition = new BookEdition();
+        testBookEdition.setIsbn("978-3-16-148410-0");
+        testBookEdition.setTitle("Test Book Title");
+        testBookEdition.setAuthorName("Test Author");
+        testBookEdition.setNumber(1);
+    }
+
+    @Test
+    void shouldSkipBookInsertedConcurrentlyWithABatch() {
+        // Given
+        Book first = newBook("BATCH-1");
+        Book concurrent = newBook("BATCH-2");
+        Book last = newBook("BATCH-3");
+        when(bookEditionService.findOrCreateAll(anyCollection(), anySet(), anySet()))
+                .thenReturn(Map.of("978-3-16-148410-0", testBookEdition));
+        when(bookRepository.findKeysByEditionIsbnInAndBatchNumberIn(anyCollection(), anyCollection()))
+                .thenReturn(List.of());
+        when(bookRepository.saveAll(any())).thenThrow(duplicateKey());
+        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> {
+            Book book = invocation.getArgument(0);
+            book.setId(1L);
+
+            if (book == concurrent) {
+                throw duplicateKey();
+            }
+
+            return book;
+        });
+
+        // When
+        List<Book> insertedBooks = bookService.saveAll(List.of(first, concurrent, last));
+
+        // Then
+        assertThat(insertedBooks).containsExactly(first, last);
+        assertThat(concurrent.getId()).isNull();
+        verify(eventPublisher, times(1)).publishEvent(new BooksChangedEvent(Set.of("978-3-16-148410-0")));
+        verify(bookEditionService, never()).deleteUnused(anyCollection());
+    }
+
+    @Test
+    void shouldDeleteCreatedEditionWhenBatchFails() {
+        // Given
+        Book book = newBook("BATCH-1");
+        when(bookEditionService.findOrCreateAll(anyCollection(), anySet(), anySet())).thenAnswer(invocation -> {
+            Set<String> createdIsbns = invocation.getArgument(1);
+            createdIsbns.add("978-3-16-148410-0");
+            return Map.of("978-3-16-148410-0", testBookEdition);
+        });
+        when(bookRepository.findKeysByEditionIsbnInAndBatchNumberIn(anyCollection(), anyCollection()))
+                .thenReturn(List.of());
+        when(bookRepository.saveAll(any())).thenThrow(new DataIntegrityViolationException("Value too long"));
+
+        // When & Then
+        assertThatThrownBy(() -> bookService.saveAll(List.of(book)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        verify(bookEditionService, times(1)).deleteUnused(Set.of("978-3-16-148410-0"));
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void shouldSkipBooksOfEditionThatCannotBeCreated() {
+        // Given
+        BookEdition invalidEdition = new BookEdition();
+        invalidEdition.setIsbn("978-3-16-148410-9");
+        invalidEdition.setTitle("T".repeat(300));
+        Book valid = newBook("BATCH-1");
+        Book invalid = newBook("BATCH-2");
+        invalid.setEdition(invalidEdition);
+        when(bookEditionService.findOrCreateAll(anyCollection(), anySet(), anySet())).thenAnswer(invocation -> {
+            Set<String> invalidIsbns = invocation.getArgument(2);
+            invalidIsbns.add("978-3-16-148410-9");
+            return Map.of("978-3-16-148410-0", testBookEdition);
+        });
+        when(bookRepository.findKeysByEditionIsbnInAndBatchNumberIn(anyCollection(), anyCollection()))
+                .thenReturn(List.of());
+        Set<String> invalidIsbns = new HashSet<>();
+
+        // When
+        List<Book> insertedBooks = bookService.saveAll(List.of(valid, invalid), invalidIsbns);
+
+        // Then
+        assertThat(insertedBooks).containsExactly(valid);
+        assertThat(invalidIsbns).containsExactly("978-3-16-148410-9");
+        verify(bookRepository, times(1)).saveAll(List.of(valid));
+    }
+
+    private Book newBook(String batchNumber) {
+        Book book = new Book();
+        book.setBatchNumber(batchNumber);
+        book.setPublisher("Publisher");
+        book.setPublishedYear(2024);
+        book.setEdition(testBookEdition);
+        return book;
+    }
+
+    private static DuplicateKeyException duplicateKey() {
+        return new DuplicateKeyException("Duplicate entry", new SQLException("Duplicate entry", "23505"));
+    }
+}
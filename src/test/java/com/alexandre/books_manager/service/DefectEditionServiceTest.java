@@ -0,0 +1,107 @@
+package com.alexandre.books_manager.service;
+
+import com.alexandre.books_manager.exception.NotFoundException;
+import com.alexandre.books_manager.model.BookEdition;
+import com.alexandre.books_manager.model.DefectEdition;
+import com.alexandre.books_manager.repository.BookRepository;
+import com.alexandre.books_manager.repository.DefectEditionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DefectEditionServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private DefectEditionRepository defectEditionRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private DefectEditionService defectEditionService;
+
+    private DefectEdition testDefectEdition;
+
+    @BeforeEach
+    void setUp() {
+        BookEdition edition = new BookEdition();
+        edition.setIsbn("978-3-16-148410-0");
+
+        testDefectEdition = new DefectEdition();
+        testDefectEdition.setDefectCode("67038-100");
+        testDefectEdition.setEdition(edition);
+        testDefectEdition.setAffectedBatches(new LinkedHashSet<>(List.of("BATCH-1", "BATCH-2", "BATCH-3")));
+    }
+
+    @Test
+    void shouldSaveDefectWhenAllAffectedBatchesExist() {
+        // Given
+        when(bookRepository.findBatchNumbersByEditionIsbnAndBatchNumberIn(eq("978-3-16-148410-0"), anyCollection()))
+                .thenReturn(List.of("BATCH-1", "BATCH-2", "BATCH-3"));
+        when(defectEditionRepository.save(testDefectEdition)).thenReturn(testDefectEdition);
+
+        // When
+        DefectEdition savedDefectEdition = defectEditionService.save(testDefectEdition);
+
+        // Then
+        assertThat(savedDefectEdition).isSameAs(testDefectEdition);
+        verify(bookRepository, times(1)).findBatchNumbersByEditionIsbnAndBatchNumberIn(eq("978-3-16-148410-0"), anyCollection());
+        verify(bookRepository, never()).findByBatchNumberAndEditionIsbn(any(), any());
+        verify(eventPublisher, times(1)).publishEvent(new DefectEditionChangedEvent("978-3-16-148410-0"));
+    }
+
+    @Test
+    void shouldReportEveryMissingBatchAtOnce() {
+        // Given
+        when(bookRepository.findBatchNumbersByEditionIsbnAndBatchNumberIn(eq("978-3-16-148410-0"), anyCollection()))
+                .thenReturn(List.of("BATCH-2"));
+
+        // When & Then
+        assertThatThrownBy(() -> defectEditionService.save(testDefectEdition))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessage("No books found with ISBN: 978-3-16-148410-0, and batch numbers: BATCH-1, BATCH-3");
+
+        verify(defectEditionRepository, never()).save(any(DefectEdition.class));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void shouldCheckLargeRecallsInChunks() {
+        // Given
+        List<String> affectedBatches = IntStream.range(0, 2500)
+                .mapToObj(batch -> "BATCH-" + batch)
+                .toList();
+        testDefectEdition.setAffectedBatches(new LinkedHashSet<>(affectedBatches));
+
+        when(bookRepository.findBatchNumbersByEditionIsbnAndBatchNumberIn(eq("978-3-16-148410-0"), anyCollection()))
+                .thenAnswer(invocation -> new ArrayList<>(invocation.<Collection<String>>getArgument(1)));
+        when(defectEditionRepository.save(testDefectEdition)).thenReturn(testDefectEdition);
+
+        // When
+        defectEditionService.save(testDefectEdition);
+
+        // Then
+        verify(bookRepository, times(3)).findBatchNumbersByEditionIsbnAndBatchNumberIn(eq("978-3-16-148410-0"), anyCollection());
+    }
+}
@@ -0,0 +1,110 @@
+package com.alexandre.books_manager.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures suggestion lookups and merges on a large index. Run it with {@code mvn test -Pbenchmark}; the
+ * number of suggestions can be changed with {@code -Dbenchmark.suggestions=N}.
+ */
+@Tag("benchmark")
+class PrefixIndexBenchmarkTest {
+    private static final int SUGGESTIONS = Integer.getInteger("benchmark.suggestions", 1_000_000);
+    private static final int WARMUP_LOOKUPS = 100_000;
+    private static final int LOOKUPS = 100_000;
+    private static final int MERGES = 50;
+
+    private final Random random = new Random(42);
+    private final String[] texts = new String[SUGGESTIONS];
+    private PrefixIndex index;
+
+    @BeforeEach
+    void setUp() {
+        SortedMap<String, PrefixIndex.Change> changes = new TreeMap<>();
+
+        for (int suggestion = 0; suggestion < SUGGESTIONS; suggestion++) {
+            texts[suggestion] = randomWord() + " " + randomWord();
+            changes.put(PrefixIndex.toKey(texts[suggestion]), new PrefixIndex.Change(texts[suggestion], random.nextInt(100), 1));
+        }
+
+        index = PrefixIndex.EMPTY.merge(changes);
+    }
+
+    @Test
+    void lookUpManySuggestions() {
+        // Given
+        String[] suggestions = new String[10];
+
+        for (int lookup = 0; lookup < WARMUP_LOOKUPS; lookup++) {
+            index.top(randomPrefix(), suggestions, suggestions.length);
+        }
+
+        long[] latencies = new long[LOOKUPS];
+
+        // When
+        for (int lookup = 0; lookup < LOOKUPS; lookup++) {
+            String prefix = randomPrefix();
+            long start = System.nanoTime();
+            index.top(prefix, suggestions, suggestions.length);
+            latencies[lookup] = System.nanoTime() - start;
+        }
+
+        // Then
+        Arrays.sort(latencies);
+        double p50 = latencies[LOOKUPS / 2] / 1_000.0;
+        double p99 = latencies[LOOKUPS * 99 / 100] / 1_000.0;
+        System.out.printf("Looked up %d suggestions: p50 %.2f µs, p99 %.2f µs%n", SUGGESTIONS, p50, p99);
+
+        assertThat(p99).isLessThan(100.0);
+    }
+
+    @Test
+    void mergeIntoManySuggestions() {
+        // Given
+        long[] latencies = new long[MERGES];
+
+        // When
+        for (int merge = 0; merge < MERGES; merge++) {
+            String text = randomWord() + " " + randomWord();
+            SortedMap<String, PrefixIndex.Change> changes = new TreeMap<>();
+            changes.put(PrefixIndex.toKey(text), new PrefixIndex.Change(text, 1, 1));
+
+            long start = System.nanoTime();
+            index = index.merge(changes);
+            latencies[merge] = System.nanoTime() - start;
+        }
+
+        // Then
+        Arrays.sort(latencies);
+        double p50 = latencies[MERGES / 2] / 1_000_000.0;
+        System.out.printf("Merged one suggestion into %d: p50 %.2f ms%n", SUGGESTIONS, p50);
+
+        assertThat(p50).isLessThan(100.0);
+    }
+
+    /**
+     * The first letters of an indexed text, as typed in a search box.
+     */
+    private String randomPrefix() {
+        String text = PrefixIndex.toKey(texts[random.nextInt(SUGGESTIONS)]);
+        return text.substring(0, 1 + random.nextInt(text.length() - 1));
+    }
+
+    private String randomWord() {
+        char[] letters = new char[4 + random.nextInt(6)];
+
+        for (int letter = 0; letter < letters.length; letter++) {
+            letters[letter] = (char) ('a' + random.nextInt(26));
+        }
+
+        return new String(letters);
+    }
+}
@@ -0,0 +1,138 @@
+package com.alexandre.books_manager.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefixIndexTest {
+    private PrefixIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = PrefixIndex.EMPTY.merge(changes(
+                "The Hobbit", 5,
+                "The Silmarillion", 9,
+                "Thérèse Raquin", 2,
+                "The Two Towers", 5,
+                "Dune", 7));
+    }
+
+    @Test
+    void shouldSuggestHeaviestMatchesFirst() {
+        // When & Then
+        assertThat(top("the", 10)).containsExactly("The Silmarillion", "The Hobbit", "The Two Towers", "Thérèse Raquin");
+        assertThat(top("the", 2)).containsExactly("The Silmarillion", "The Hobbit");
+        assertThat(top("the t", 10)).containsExactly("The Two Towers");
+        assertThat(top("x", 10)).isEmpty();
+    }
+
+    @Test
+    void shouldIgnoreCaseAccentsAndRepeatedSpaces() {
+        // When & Then
+        assertThat(top("  THERESE  ", 10)).containsExactly("Thérèse Raquin");
+        assertThat(top("the   hob", 10)).containsExactly("The Hobbit");
+    }
+
+    @Test
+    void shouldNormalizeKeysWithoutRegularExpressions() {
+        // When & Then
+        assertThat(PrefixIndex.toKey("\tThérèse \n RAQUIN  ")).isEqualTo("therese raquin");
+        assertThat(PrefixIndex.toKey("Cien Años")).isEqualTo("cien anos");
+        assertThat(PrefixIndex.toKey("  ")).isEmpty();
+    }
+
+    @Test
+    void shouldReturnTypedPrefixAlreadyNormalizedAsIs() {
+        // Given
+        String prefix = "the ho";
+
+        // When & Then
+        assertThat(PrefixIndex.toKey(prefix)).isSameAs(prefix);
+    }
+
+    @Test
+    void shouldReorderSuggestionsWhenWeightsChange() {
+        // Given
+        SortedMap<String, PrefixIndex.Change> changes = new TreeMap<>();
+        changes.put("therese raquin", new PrefixIndex.Change("Thérèse Raquin", 10, 0));
+
+        // When
+        PrefixIndex merged = index.merge(changes);
+
+        // Then
+        assertThat(merged.weightAt(merged.positionOf("therese raquin"))).isEqualTo(12);
+        assertThat(top(merged, "th", 2)).containsExactly("Thérèse Raquin", "The Silmarillion");
+        assertThat(top("th", 2)).containsExactly("The Silmarillion", "The Hobbit");
+    }
+
+    @Test
+    void shouldAddAndRemoveSuggestionsWhenMerging() {
+        // Given
+        SortedMap<String, PrefixIndex.Change> changes = new TreeMap<>();
+        changes.put("the hobbit", new PrefixIndex.Change("The Hobbit", -5, -1));
+        changes.put("the fellowship", new PrefixIndex.Change("The Fellowship", 1, 1));
+
+        // When
+        PrefixIndex merged = index.merge(changes);
+
+        // Then
+        assertThat(merged.size()).isEqualTo(5);
+        assertThat(merged.positionOf("the hobbit")).isNegative();
+        assertThat(top(merged, "the f", 10)).containsExactly("The Fellowship");
+        assertThat(index.size()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldNotAllocateWhenLookingUp() {
+        // Given
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        String[] suggestions = new String[PrefixIndex.MAX_LIMIT];
+        long threadId = Thread.currentThread().threadId();
+
+        for (int warmup = 0; warmup < 100_000; warmup++) {
+            index.top(PrefixIndex.toKey("the"), suggestions, 3);
+        }
+
+        // When
+        long before = threads.getThreadAllocatedBytes(threadId);
+
+        for (int lookup = 0; lookup < 1_000; lookup++) {
+            index.top(PrefixIndex.toKey("the"), suggestions, 3);
+        }
+
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // Then
+        assertThat(allocated).isLessThan(1_000);
+    }
+
+    private String[] top(String prefix, int limit) {
+        return top(index, prefix, limit);
+    }
+
+    private static String[] top(PrefixIndex index, String prefix, int limit) {
+        String[] suggestions = new String[limit];
+        int count = index.top(PrefixIndex.toKey(prefix), suggestions, limit);
+        return Arrays.copyOf(suggestions, count);
+    }
+
+    /**
+     * @param textsAndWeights pairs of a text and its weight, each text counting one reference
+     */
+    private static SortedMap<String, PrefixIndex.Change> changes(Object... textsAndWeights) {
+        SortedMap<String, PrefixIndex.Change> changes = new TreeMap<>();
+
+        for (int pair = 0; pair < textsAndWeights.length; pair += 2) {
+            String text = (String) textsAndWeights[pair];
+            changes.put(PrefixIndex.toKey(text), new PrefixIndex.Change(text, (Integer) textsAndWeights[pair + 1], 1));
+        }
+
+        return changes;
+    }
+}
@@ -0,0 +1,141 @@
+package com.alexandre.books_manager.service;
+
+import com.alexandre.books_manager.model.Book;
+import com.alexandre.books_manager.model.BookEdition;
+import com.alexandre.books_manager.model.DefectEdition;
+import com.alexandre.books_manager.model.InstanceChanges;
+import com.alexandre.books_manager.repository.DefectEditionRepository;
+import com.alexandre.books_manager.repository.InstanceChangesRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class RecallCheckServiceTest {
+    private static final String ISBN = "978-0-00-000300-1";
+    private static final String OTHER_INSTANCE = "recall-other-instance";
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookEditionService bookEditionService;
+
+    @Autowired
+    private DefectEditionService defectEditionService;
+
+    @Autowired
+    private RecallCheckService recallCheckService;
+
+    @Autowired
+    private DefectEditionRepository defectEditionRepository;
+
+    @Autowired
+    private InstanceChangesRepository instanceChangesRepository;
+
+    private BookEdition edition;
+
+    @BeforeEach
+    void setUp() {
+        edition = new BookEdition();
+        edition.setIsbn(ISBN);
+        edition.setTitle("Recalled Title");
+        edition.setAuthorName("Recalled Author");
+        edition.setNumber(1);
+        edition = bookEditionService.save(edition);
+
+        InstanceChanges otherInstance = new InstanceChanges();
+        otherInstance.setInstanceId(OTHER_INSTANCE);
+        instanceChangesRepository.save(otherInstance);
+
+        for (String batchNumber : List.of("RECALL-1", "RECALL-2", "RECALL-3")) {
+            Book book = new Book();
+            book.setBatchNumber(batchNumber);
+            book.setPublisher("Publisher");
+            book.setPublishedYear(2024);
+            book.setEdition(edition);
+            bookService.save(book);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (bookEditionService.findByIsbn(ISBN).isPresent()) {
+            bookEditionService.deleteByIsbn(ISBN);
+        }
+
+        instanceChangesRepository.deleteById(OTHER_INSTANCE);
+    }
+
+    @Test
+    void shouldReportBatchesAffectedBySavedDefects() {
+        // When
+        defectEditionService.save(defect("RECALL-DEFECT-1", "RECALL-1"));
+        defectEditionService.save(defect("RECALL-DEFECT-2", "RECALL-2"));
+
+        // Then
+        assertThat(recallCheckService.isAffected("RECALL-1", ISBN)).isTrue();
+        assertThat(recallCheckService.isAffected("RECALL-2", ISBN)).isTrue();
+        assertThat(recallCheckService.isAffected("RECALL-3", ISBN)).isFalse();
+        assertThat(recallCheckService.isAffected("RECALL-1", "978-0-00-000300-2")).isFalse();
+    }
+
+    @Test
+    void shouldForgetDefectsOfDeletedEditions() {
+        // Given
+        defectEditionService.save(defect("RECALL-DEFECT-1", "RECALL-1"));
+
+        // When
+        bookEditionService.deleteByIsbn(ISBN);
+
+        // Then
+        assertThat(recallCheckService.isAffected("RECALL-1", ISBN)).isFalse();
+    }
+
+    @Test
+    void shouldCatchUpWithDefectsSavedThroughAnotherInstance() {
+        // Given
+        defectEditionService.save(defect("RECALL-DEFECT-1", "RECALL-1"));
+        // Saved without publishing an event, and counted, as another instance would
+        defectEditionRepository.save(defect("RECALL-DEFECT-2", "RECALL-2"));
+        instanceChangesRepository.incrementDefectChanges(OTHER_INSTANCE);
+
+        // When
+        recallCheckService.resync();
+
+        // Then
+        assertThat(recallCheckService.isAffected("RECALL-1", ISBN)).isTrue();
+        assertThat(recallCheckService.isAffected("RECALL-2", ISBN)).isTrue();
+    }
+
+    @Test
+    void shouldNotReadAffectedBatchesWhenNoOtherInstanceCountedChanges() {
+        // Given
+        recallCheckService.resync();
+        // Saved without publishing an event nor counting it
+        defectEditionRepository.save(defect("RECALL-DEFECT-1", "RECALL-1"));
+
+        // When
+        recallCheckService.resync();
+
+        // Then
+        assertThat(recallCheckService.isAffected("RECALL-1", ISBN)).isFalse();
+    }
+
+    private DefectEdition defect(String defectCode, String... affectedBatches) {
+        DefectEdition defect = new DefectEdition();
+        defect.setDefectCode(defectCode);
+        defect.setEdition(edition);
+        defect.setAffectedBatches(new LinkedHashSet<>(List.of(affectedBatches)));
+        return defect;
+    }
+}
@@ -0,0 +1,72 @@
+package com.alexandre.books_manager.service;
+
+import com.alexandre.books_manager.model.Book;
+import com.alexandre.books_manager.model.BookEdition;
+import com.alexandre.books_manager.model.DefectEdition;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The in-memory indexes are updated after each write from the connection of the committed transaction, or, for
+ * suggestions, by their updater once the write released its connection, so writes go through with a single
+ * connection instead of waiting for a second one.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:single-connection;DB_CLOSE_DELAY=-1",
+        "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=2000"
+})
+@ActiveProfiles("test")
+class SingleConnectionTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookEditionService bookEditionService;
+
+    @Autowired
+    private DefectEditionService defectEditionService;
+
+    @Autowired
+    private BookEditionSuggestionService bookEditionSuggestionService;
+
+    @Autowired
+    private RecallCheckService recallCheckService;
+
+    @Test
+    void shouldUpdateIndexesWithOneConnection() {
+        // Given
+        BookEdition edition = new BookEdition();
+        edition.setIsbn("978-0-00-000500-1");
+        edition.setTitle("Solitary Title");
+        edition.setAuthorName("Solitary Author");
+        edition.setNumber(1);
+
+        Book book = new Book();
+        book.setBatchNumber("SINGLE-1");
+        book.setPublisher("Publisher");
+        book.setPublishedYear(2024);
+        book.setEdition(edition);
+
+        DefectEdition defect = new DefectEdition();
+        defect.setDefectCode("SINGLE-DEFECT-1");
+        defect.setAffectedBatches(Set.of("SINGLE-1"));
+
+        // When
+        defect.setEdition(bookEditionService.save(edition));
+        bookService.save(book);
+        defectEditionService.save(defect);
+        bookEditionSuggestionService.applyChanges();
+
+        // Then
+        assertThat(bookEditionSuggestionService.suggestTitles("solitary", 10)).containsExactly("Solitary Title");
+        assertThat(recallCheckService.isAffected("SINGLE-1", "978-0-00-000500-1")).isTrue();
+    }
+}